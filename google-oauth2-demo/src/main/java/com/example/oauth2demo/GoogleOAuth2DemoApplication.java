@@ -2,6 +2,7 @@ package com.example.oauth2demo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
 
 /**
@@ -11,9 +12,12 @@ import org.springframework.session.config.annotation.web.http.EnableSpringHttpSe
  * - 将 HttpSession 持久化到数据库（SPRING_SESSION 表）
  * - 支持多服务器部署，session 自动共享
  * - 应用重启后 session 仍然保留
+ *
+ * 启用定时任务：用于清理过期的引用令牌等后台维护工作
  */
 @SpringBootApplication
 @EnableSpringHttpSession
+@EnableScheduling
 public class GoogleOAuth2DemoApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,91 @@
+package com.example.oauth2demo.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
+
+import java.util.Enumeration;
+
+/**
+ * Bearer Token解析器：先读 Authorization 头，再从 accessToken Cookie 中读取
+ *
+ * 读取 Cookie 时直接扫描原始 Cookie 请求头，只截取目标 Cookie 的值：
+ * request.getCookies() 会让容器解析全部 Cookie 并为每个 Cookie 创建对象，
+ * 而浏览器通常会带上很多 Cookie（包括本应用设置的 google/github/twitter access token）。
+ */
+public class CookieBearerTokenResolver implements BearerTokenResolver {
+
+    public static final String ACCESS_TOKEN_COOKIE = "accessToken";
+    public static final String REFRESH_TOKEN_COOKIE = "refreshToken";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    @Override
+    public String resolve(HttpServletRequest request) {
+        // 首先尝试从Authorization头读取
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith(BEARER_PREFIX)) {
+            return authHeader.substring(BEARER_PREFIX.length());
+        }
+
+        // 如果没有Authorization头，从Cookie中读取
+        return resolveCookie(request, ACCESS_TOKEN_COOKIE);
+    }
+
+    /**
+     * 从原始 Cookie 请求头中读取指定名称的 Cookie 值，不存在时返回 null
+     */
+    public static String resolveCookie(HttpServletRequest request, String name) {
+        Enumeration<String> headers = request.getHeaders("Cookie");
+        if (headers == null) {
+            return null;
+        }
+        while (headers.hasMoreElements()) {
+            String value = findCookie(headers.nextElement(), name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在单个 Cookie 头（"a=1; b=2"）中查找 name，只为命中的值创建一个子串
+     */
+    static String findCookie(String header, String name) {
+        if (header == null) {
+            return null;
+        }
+        int length = header.length();
+        int nameLength = name.length();
+        int i = 0;
+        while (i < length) {
+            // 跳过分隔符和空白
+            char c = header.charAt(i);
+            if (c == ';' || c == ',' || c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+
+            int end = header.indexOf(';', i);
+            if (end < 0) {
+                end = length;
+            }
+            if (i + nameLength < end
+                    && header.charAt(i + nameLength) == '='
+                    && header.regionMatches(i, name, 0, nameLength)) {
+                int valueStart = i + nameLength + 1;
+                int valueEnd = end;
+                while (valueEnd > valueStart && header.charAt(valueEnd - 1) == ' ') {
+                    valueEnd--;
+                }
+                if (valueEnd - valueStart >= 2 && header.charAt(valueStart) == '"' && header.charAt(valueEnd - 1) == '"') {
+                    valueStart++;
+                    valueEnd--;
+                }
+                return header.substring(valueStart, valueEnd);
+            }
+            i = end + 1;
+        }
+        return null;
+    }
+}
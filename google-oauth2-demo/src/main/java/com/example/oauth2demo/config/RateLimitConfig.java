@@ -0,0 +1,41 @@
+package com.example.oauth2demo.config;
+
+import com.example.oauth2demo.service.InMemoryRateLimitBackend;
+import com.example.oauth2demo.service.RateLimitBackend;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * 限流配置
+ * 注册 {@link RateLimitFilter}，并在没有自定义共享后端时使用进程内后端
+ */
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig {
+
+    /**
+     * 默认的进程内限流后端；如果容器中已经存在其他 RateLimitBackend（如共享后端），则不创建
+     */
+    @Bean
+    @ConditionalOnMissingBean(RateLimitBackend.class)
+    public RateLimitBackend rateLimitBackend(RateLimitProperties properties) {
+        return new InMemoryRateLimitBackend(properties.getMaxKeys(), properties.getStripes());
+    }
+
+    /**
+     * 限流过滤器注册在最高优先级，先于 Session 和 Security 过滤器执行
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimitBackend rateLimitBackend,
+                                                                   RateLimitProperties properties) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+            new FilterRegistrationBean<>(new RateLimitFilter(rateLimitBackend, properties));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.oauth2demo.config;
+
+import com.example.oauth2demo.service.RateLimitBackend;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 认证端点限流过滤器
+ * 在 Spring Session / Spring Security 之前执行，被拒绝的请求不会触发 BCrypt、RSA 验签或数据库访问
+ *
+ * 路径按精确匹配查表；每个端点按配置的维度（客户端IP、用户名、client id）分别计数，任一维度超限即返回 429
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final byte[] REJECTED_BODY =
+        "{\"error\":\"Too many requests\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimitBackend backend;
+    private final Map<String, CompiledRule> rulesByPath = new HashMap<>();
+
+    public RateLimitFilter(RateLimitBackend backend, RateLimitProperties properties) {
+        this.backend = backend;
+        properties.getEndpoints().forEach((name, rule) -> {
+            CompiledRule compiled = new CompiledRule(name, rule);
+            for (String path : rule.getPaths()) {
+                rulesByPath.put(path, compiled);
+            }
+            log.info("Rate limit on {} {}: {} requests per {} by {}",
+                name, rule.getPaths(), rule.getLimit(), rule.getWindow(), rule.getKeys());
+        });
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rulesByPath.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        CompiledRule rule = rulesByPath.get(request.getRequestURI());
+        for (int i = 0; i < rule.keyTypes.length; i++) {
+            String key = resolveKey(rule.keyTypes[i], request);
+            if (key != null && !backend.tryAcquire(rule.buckets[i], key, rule.limit, rule.windowMillis)) {
+                reject(response, rule);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String resolveKey(KeyType keyType, HttpServletRequest request) {
+        switch (keyType) {
+            case IP:
+                return request.getRemoteAddr();
+            case USERNAME:
+                return request.getParameter("username");
+            case CLIENT:
+                return resolveClientId(request);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * client id 优先取 HTTP Basic 认证中的用户名（RFC 7662 的常见做法），其次取 client_id 参数
+     */
+    private String resolveClientId(HttpServletRequest request) {
+        String authorization = request.getHeader("Authorization");
+        if (authorization != null && authorization.regionMatches(true, 0, "Basic ", 0, 6)) {
+            try {
+                String decoded = new String(Base64.getDecoder().decode(authorization.substring(6).trim()),
+                    StandardCharsets.UTF_8);
+                int colon = decoded.indexOf(':');
+                return colon >= 0 ? decoded.substring(0, colon) : decoded;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return request.getParameter("client_id");
+    }
+
+    private void reject(HttpServletResponse response, CompiledRule rule) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", rule.retryAfterSeconds);
+        response.setContentType("application/json");
+        response.setContentLength(REJECTED_BODY.length);
+        response.getOutputStream().write(REJECTED_BODY);
+    }
+
+    private enum KeyType {
+        IP, USERNAME, CLIENT
+    }
+
+    /**
+     * 预先计算好的端点规则，请求路径上不再做字符串拼接或解析
+     */
+    private static final class CompiledRule {
+        private final int limit;
+        private final long windowMillis;
+        private final String retryAfterSeconds;
+        private final KeyType[] keyTypes;
+        private final String[] buckets;
+
+        private CompiledRule(String name, RateLimitProperties.EndpointRule rule) {
+            this.limit = rule.getLimit();
+            this.windowMillis = Math.max(1, rule.getWindow().toMillis());
+            this.retryAfterSeconds = String.valueOf(Math.max(1, rule.getWindow().toSeconds()));
+            this.keyTypes = new KeyType[rule.getKeys().size()];
+            this.buckets = new String[keyTypes.length];
+            for (int i = 0; i < keyTypes.length; i++) {
+                keyTypes[i] = KeyType.valueOf(rule.getKeys().get(i).trim().toUpperCase(Locale.ROOT));
+                buckets[i] = name + ":" + keyTypes[i].name().toLowerCase(Locale.ROOT);
+            }
+        }
+    }
+}
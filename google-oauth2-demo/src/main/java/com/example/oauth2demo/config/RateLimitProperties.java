@@ -0,0 +1,99 @@
+package com.example.oauth2demo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 认证端点限流配置
+ * 每个端点可以配置多个路径、窗口内的请求上限，以及按哪些维度（ip / username / client）计数
+ */
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // 每个限流桶精确计数的最大键数（进程内后端使用）
+    private int maxKeys = 100_000;
+
+    // 键数超过上限后共享计数的溢出条带数量（进程内后端使用）
+    private int stripes = 8192;
+
+    private Map<String, EndpointRule> endpoints = new LinkedHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public Map<String, EndpointRule> getEndpoints() {
+        return endpoints;
+    }
+
+    public void setEndpoints(Map<String, EndpointRule> endpoints) {
+        this.endpoints = endpoints;
+    }
+
+    // 端点限流规则内部类
+    public static class EndpointRule {
+        private List<String> paths = new ArrayList<>();
+        private int limit = 60;
+        private Duration window = Duration.ofMinutes(1);
+        private List<String> keys = new ArrayList<>(List.of("ip"));
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        public void setLimit(int limit) {
+            this.limit = limit;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public List<String> getKeys() {
+            return keys;
+        }
+
+        public void setKeys(List<String> keys) {
+            this.keys = keys;
+        }
+    }
+}
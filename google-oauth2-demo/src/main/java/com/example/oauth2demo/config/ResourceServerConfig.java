@@ -1,15 +1,12 @@
 package com.example.oauth2demo.config;
 
+import com.example.oauth2demo.service.AuthoritySetInterner;
 import com.example.oauth2demo.service.JwtTokenService;
-import jakarta.servlet.http.Cookie;
-import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.web.BearerTokenResolver;
@@ -26,33 +23,15 @@ import java.util.*;
 public class ResourceServerConfig {
 
     private final JwtTokenService jwtTokenService;
+    private final AuthoritySetInterner authoritySetInterner;
 
     /**
      * 自定义Bearer Token解析器，从Cookie中读取Token
+     * 直接扫描原始Cookie头，不让容器解析全部Cookie
      */
     @Bean
     public BearerTokenResolver bearerTokenResolver() {
-        return new BearerTokenResolver() {
-            @Override
-            public String resolve(HttpServletRequest request) {
-                // 首先尝试从Authorization头读取
-                String authHeader = request.getHeader("Authorization");
-                if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                    return authHeader.substring(7);
-                }
-
-                // 如果没有Authorization头，从Cookie中读取
-                if (request.getCookies() != null) {
-                    for (Cookie cookie : request.getCookies()) {
-                        if ("accessToken".equals(cookie.getName())) {
-                            return cookie.getValue();
-                        }
-                    }
-                }
-
-                return null;
-            }
-        };
+        return new CookieBearerTokenResolver();
     }
 
     /**
@@ -66,20 +45,18 @@ public class ResourceServerConfig {
 
     /**
      * JWT认证转换器，从token中提取权限信息
+     * 权限声明直接作为键查找共享的不可变权限集合，常见权限组合在热路径上不分配对象
      */
     @Bean
     public JwtAuthenticationConverter jwtAuthenticationConverter() {
         JwtAuthenticationConverter converter = new JwtAuthenticationConverter();
         converter.setJwtGrantedAuthoritiesConverter(jwt -> {
-            Collection<GrantedAuthority> authorities = new ArrayList<>();
             // 从token中提取权限信息
-            List<String> auths = jwt.getClaimAsStringList("authorities");
-            if (auths != null) {
-                for (String auth : auths) {
-                    authorities.add(new SimpleGrantedAuthority(auth));
-                }
+            Object claim = jwt.getClaims().get("authorities");
+            if (claim instanceof Collection<?> auths) {
+                return authoritySetInterner.intern(auths);
             }
-            return authorities;
+            return authoritySetInterner.intern(jwt.getClaimAsStringList("authorities"));
         });
         return converter;
     }
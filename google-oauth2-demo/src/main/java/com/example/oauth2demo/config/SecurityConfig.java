@@ -181,18 +181,19 @@ public class SecurityConfig {
                     }
 
                     if (userDto != null) {
-                        // 🎯 统一处理：无论是登录还是绑定，都生成新的JWT token
-                        accessToken = jwtTokenService.generateAccessToken(
-                            userDto.getUsername(),
-                            userDto.getEmail(),
-                            userDto.getId(),
-                            userService.getCurrentUser(userDto.getUsername()).getAuthorities()
-                        );
-
-                        refreshToken = jwtTokenService.generateRefreshToken(
-                            userDto.getUsername(),
-                            userDto.getId()
-                        );
+                        // 🎯 统一处理：无论是登录还是绑定，都生成新的token（state 中 token_format=reference 时签发引用令牌）
+                        java.util.Set<String> authorities = userService.getCurrentUser(userDto.getUsername()).getAuthorities();
+                        if (requestsReferenceTokens(request)) {
+                            accessToken = jwtTokenService.generateReferenceAccessToken(
+                                userDto.getUsername(), userDto.getEmail(), userDto.getId(), authorities);
+                            refreshToken = jwtTokenService.generateReferenceRefreshToken(
+                                userDto.getUsername(), userDto.getId());
+                        } else {
+                            accessToken = jwtTokenService.generateAccessToken(
+                                userDto.getUsername(), userDto.getEmail(), userDto.getId(), authorities);
+                            refreshToken = jwtTokenService.generateRefreshToken(
+                                userDto.getUsername(), userDto.getId());
+                        }
 
                         // 存储Access Token到HttpOnly Cookie
                         Cookie accessTokenCookie = new Cookie("accessToken", accessToken);
@@ -302,18 +303,8 @@ public class SecurityConfig {
              */
             private String getCurrentUserIdFromRequest(HttpServletRequest request) {
                 try {
-                    Cookie[] cookies = request.getCookies();
-                    if (cookies == null) {
-                        return null;
-                    }
-
-                    String accessToken = null;
-                    for (Cookie cookie : cookies) {
-                        if ("accessToken".equals(cookie.getName())) {
-                            accessToken = cookie.getValue();
-                            break;
-                        }
-                    }
+                    String accessToken = CookieBearerTokenResolver.resolveCookie(
+                        request, CookieBearerTokenResolver.ACCESS_TOKEN_COOKIE);
 
                     if (accessToken == null || accessToken.trim().isEmpty()) {
                         return null;
@@ -332,6 +323,32 @@ public class SecurityConfig {
                 }
             }
 
+            /**
+             * state参数中是否要求签发引用令牌（token_format=reference）
+             * 引用令牌模式未启用时回退为JWT
+             */
+            private boolean requestsReferenceTokens(HttpServletRequest request) {
+                String state = request.getParameter("state");
+                if (state == null) {
+                    return false;
+                }
+                try {
+                    String decodedState = java.net.URLDecoder.decode(state, "UTF-8");
+                    Map<String, Object> stateData = new ObjectMapper().readValue(decodedState, Map.class);
+                    Object tokenFormat = stateData.get("token_format");
+                    if (tokenFormat == null || !jwtTokenService.isReferenceFormat(tokenFormat.toString())) {
+                        return false;
+                    }
+                    if (!jwtTokenService.getReference().isEnabled()) {
+                        System.out.println("Reference token mode is disabled, issuing JWT instead");
+                        return false;
+                    }
+                    return true;
+                } catch (Exception e) {
+                    return false;
+                }
+            }
+
             /**
              * 处理OAuth2错误，支持JSON响应和重定向
              */
@@ -1,5 +1,6 @@
 package com.example.oauth2demo.controller;
 
+import com.example.oauth2demo.config.CookieBearerTokenResolver;
 import com.example.oauth2demo.entity.UserEntity;
 import com.example.oauth2demo.repository.UserRepository;
 import com.example.oauth2demo.service.JwtValidationService;
@@ -143,15 +144,7 @@ public class ApiAuthController {
     public ResponseEntity<?> validateGoogleToken(HttpServletRequest request) {
         try {
             // 从cookie中获取Google ID Token
-            String token = null;
-            if (request.getCookies() != null) {
-                for (jakarta.servlet.http.Cookie cookie : request.getCookies()) {
-                    if ("id_token".equals(cookie.getName())) {
-                        token = cookie.getValue();
-                        break;
-                    }
-                }
-            }
+            String token = CookieBearerTokenResolver.resolveCookie(request, "id_token");
 
             if (token == null || token.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("valid", false, "error", "未找到Google ID Token"));
@@ -172,15 +165,7 @@ public class ApiAuthController {
     public ResponseEntity<?> validateGithubToken(HttpServletRequest request) {
         try {
             // 从cookie中获取GitHub Access Token
-            String token = null;
-            if (request.getCookies() != null) {
-                for (jakarta.servlet.http.Cookie cookie : request.getCookies()) {
-                    if ("github_access_token".equals(cookie.getName())) {
-                        token = cookie.getValue();
-                        break;
-                    }
-                }
-            }
+            String token = CookieBearerTokenResolver.resolveCookie(request, "github_access_token");
 
             if (token == null || token.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("valid", false, "error", "未找到GitHub Access Token"));
@@ -201,15 +186,7 @@ public class ApiAuthController {
     public ResponseEntity<?> validateTwitterToken(HttpServletRequest request) {
         try {
             // 从cookie中获取Twitter Access Token
-            String token = null;
-            if (request.getCookies() != null) {
-                for (jakarta.servlet.http.Cookie cookie : request.getCookies()) {
-                    if ("twitter_access_token".equals(cookie.getName())) {
-                        token = cookie.getValue();
-                        break;
-                    }
-                }
-            }
+            String token = CookieBearerTokenResolver.resolveCookie(request, "twitter_access_token");
 
             if (token == null || token.trim().isEmpty()) {
                 return ResponseEntity.badRequest().body(Map.of("valid", false, "error", "未找到Twitter Access Token"));
@@ -135,7 +135,18 @@ public class AuthController {
                 required = true
             )
             @RequestParam String password,
+            @Parameter(
+                name = "token_format",
+                description = "签发Token的格式：jwt（默认）或 reference（需要 jwt.reference.enabled=true）",
+                required = false
+            )
+            @RequestParam(value = "token_format", required = false) String tokenFormat,
             HttpServletRequest request, HttpServletResponse response) {
+        boolean reference = jwtTokenService.isReferenceFormat(tokenFormat);
+        if (reference && !jwtTokenService.getReference().isEnabled()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Reference token mode is disabled"));
+        }
         try {
             // 使用AuthenticationManager进行认证
             Authentication authentication = authenticationManager.authenticate(
@@ -148,18 +159,15 @@ public class AuthController {
             // 获取用户信息
             UserDto user = userService.login(username, password);
 
-            // 生成JWT Token
-            String accessToken = jwtTokenService.generateAccessToken(
-                user.getUsername(),
-                user.getEmail(),
-                user.getId(),
-                userService.getCurrentUser(user.getUsername()).getAuthorities()
-            );
+            // 生成Token（JWT 或引用令牌）
+            java.util.Set<String> authorities = userService.getCurrentUser(user.getUsername()).getAuthorities();
+            String accessToken = reference
+                ? jwtTokenService.generateReferenceAccessToken(user.getUsername(), user.getEmail(), user.getId(), authorities)
+                : jwtTokenService.generateAccessToken(user.getUsername(), user.getEmail(), user.getId(), authorities);
 
-            String refreshToken = jwtTokenService.generateRefreshToken(
-                user.getUsername(),
-                user.getId()
-            );
+            String refreshToken = reference
+                ? jwtTokenService.generateReferenceRefreshToken(user.getUsername(), user.getId())
+                : jwtTokenService.generateRefreshToken(user.getUsername(), user.getId());
 
             // 存储Token到HttpOnly Cookie
             Cookie accessTokenCookie = new Cookie("accessToken", accessToken);
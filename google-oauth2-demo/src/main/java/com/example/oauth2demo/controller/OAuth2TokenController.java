@@ -1,6 +1,7 @@
 package com.example.oauth2demo.controller;
 
 import com.example.oauth2demo.service.JwtTokenService;
+import com.example.oauth2demo.service.ReferenceTokenStore;
 import com.nimbusds.jose.JWSAlgorithm;
 import com.nimbusds.jose.jwk.RSAKey;
 import io.jsonwebtoken.Claims;
@@ -79,6 +80,7 @@ public class OAuth2TokenController {
      * 符合 RFC 7662 (Token Introspection) 规范
      * 支持两种路径：/oauth2/introspect 和 /oauth2/api/introspect
      * 支持两种请求格式：查询参数和表单提交
+     * 支持两种Token：RS256 JWT 和引用令牌句柄（直接查本地存储，无需验签）
      */
     @PostMapping({"/introspect", "/api/introspect"})
     public ResponseEntity<?> introspect(
@@ -126,6 +128,10 @@ public class OAuth2TokenController {
             return ResponseEntity.ok(Map.of("active", false));
         }
         
+        if (jwtTokenService.isReferenceToken(tokenValue)) {
+            return ResponseEntity.ok(introspectReferenceToken(tokenValue));
+        }
+
         try {
             // 验证 Token 签名
             Claims claims = Jwts.parserBuilder()
@@ -173,6 +179,32 @@ public class OAuth2TokenController {
         }
     }
     
+    /**
+     * 引用令牌内省：从本地存储读取声明记录，响应字段与 JWT 内省保持一致
+     */
+    private Map<String, Object> introspectReferenceToken(String tokenValue) {
+        ReferenceTokenStore.ReferenceToken record = jwtTokenService.resolveReferenceToken(tokenValue);
+        if (record == null) {
+            log.warn("Reference token not found or expired");
+            return Map.of("active", false, "error", "Invalid token");
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("active", true);
+        response.put("sub", record.getSubject());
+        response.put("userId", record.getUserId());
+        response.put("email", record.getEmail());
+        response.put("authorities", record.getAuthorities());
+        response.put("aud", record.getAudience());
+        response.put("iss", record.getIssuer() != null ? record.getIssuer() : jwtTokenService.getToken().getIssuer());
+        response.put("iat", record.getIssuedAt() / 1000);
+        response.put("exp", record.getExpiresAt() / 1000);
+        response.put("jti", record.getJti());
+        response.put("token_type", "Bearer");
+        response.put("token_format", "reference");
+        return response;
+    }
+
     /**
      * Token 内省测试端点（GET方法）
      * 用于测试端点是否能够成功响应
@@ -1,5 +1,7 @@
 package com.example.oauth2demo.controller;
 
+import com.example.oauth2demo.config.CookieBearerTokenResolver;
+import com.example.oauth2demo.service.JwtTokenService;
 import com.example.oauth2demo.service.TokenRefreshService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,6 +11,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,10 +32,12 @@ import java.util.Map;
 public class TokenController {
 
     private final TokenRefreshService tokenRefreshService;
+    private final JwtTokenService jwtTokenService;
 
     /**
      * 刷新JWT Token
      * 使用refresh token获取新的access token和refresh token
+     * refresh token 可以是 JWT 或引用令牌句柄，通过 token_format 参数可指定新签发的格式
      */
     @PostMapping("/refresh")
     @Operation(
@@ -62,19 +67,34 @@ public class TokenController {
             )
         )
     })
+    @Parameter(
+        name = "refreshToken",
+        description = "Refresh token（从cookie中获取）",
+        required = true,
+        in = io.swagger.v3.oas.annotations.enums.ParameterIn.COOKIE
+    )
     public ResponseEntity<?> refreshToken(
             @Parameter(
-                name = "refreshToken",
-                description = "Refresh token（从cookie中获取）",
-                required = true,
-                in = io.swagger.v3.oas.annotations.enums.ParameterIn.COOKIE
+                name = "token_format",
+                description = "新签发Token的格式：jwt 或 reference，缺省时与传入的refresh token一致",
+                required = false
             )
-            @CookieValue(value = "refreshToken", required = false) String refreshTokenCookie,
+            @RequestParam(value = "token_format", required = false) String tokenFormat,
+            HttpServletRequest request,
             HttpServletResponse response) {
 
+        boolean formatRequested = tokenFormat != null && !tokenFormat.isBlank();
+        if (formatRequested && jwtTokenService.isReferenceFormat(tokenFormat)
+                && !jwtTokenService.getReference().isEnabled()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "Reference token mode is disabled"));
+        }
         try {
             log.info("Token refresh request received");
 
+            String refreshTokenCookie = CookieBearerTokenResolver.resolveCookie(
+                request, CookieBearerTokenResolver.REFRESH_TOKEN_COOKIE);
+
             if (refreshTokenCookie == null || refreshTokenCookie.trim().isEmpty()) {
                 log.warn("No refresh token found in cookies");
                 return ResponseEntity.status(401).body(
@@ -83,7 +103,9 @@ public class TokenController {
             }
 
             // 刷新token
-            TokenRefreshService.TokenPair tokenPair = tokenRefreshService.refreshUserTokens(refreshTokenCookie);
+            TokenRefreshService.TokenPair tokenPair = formatRequested
+                ? tokenRefreshService.refreshUserTokens(refreshTokenCookie, jwtTokenService.isReferenceFormat(tokenFormat))
+                : tokenRefreshService.refreshUserTokens(refreshTokenCookie);
             log.info("Tokens refreshed successfully");
 
             // 设置新的Cookies
@@ -0,0 +1,57 @@
+package com.example.oauth2demo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 引用令牌（Reference Token）持久化实体
+ * 仅在 jwt.reference.persist=true 时写入，用于服务重启或多实例部署时恢复内存存储
+ *
+ * 注意：主键保存的是句柄的 SHA-256 摘要，而不是句柄本身，数据库泄露时句柄不可直接使用
+ */
+@Entity
+@Table(name = "reference_tokens", indexes = {
+    @Index(name = "idx_reference_tokens_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReferenceTokenEntity {
+
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;  // 句柄的 SHA-256（十六进制）
+
+    @Column(nullable = false, length = 36)
+    private String jti;
+
+    @Column(nullable = false, length = 16)
+    private String tokenType;  // access / refresh
+
+    @Column(nullable = false, length = 255)
+    private String subject;  // 用户名
+
+    @Column(length = 36)
+    private String userId;
+
+    @Column(length = 255)
+    private String email;
+
+    @Column(columnDefinition = "TEXT")
+    private String authorities;  // 逗号分隔的权限列表
+
+    @Column(length = 255)
+    private String issuer;  // iss 声明
+
+    @Column(length = 255)
+    private String audience;  // aud 声明（refresh 令牌为空）
+
+    @Column(nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,40 @@
+package com.example.oauth2demo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh Token 家族快照实体
+ * 开启家族和撤销家族时立即写入，轮换定期快照到此表，服务重启后从此表恢复
+ */
+@Entity
+@Table(name = "refresh_token_families", indexes = {
+    @Index(name = "idx_refresh_token_families_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshTokenFamilyEntity {
+
+    @Id
+    @Column(length = 36)
+    private String familyId;  // 家族ID（UUID），写入 refresh token 的 fid 声明
+
+    @Column(length = 36)
+    private String userId;
+
+    @Column(nullable = false, length = 36)
+    private String latestJti;  // 家族中当前唯一有效的 refresh token jti
+
+    @Column(nullable = false)
+    private boolean revoked;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;  // latestJti 的签发时间，恢复后用于接受快照之后签发的 token
+}
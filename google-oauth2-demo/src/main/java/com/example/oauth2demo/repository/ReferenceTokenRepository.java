@@ -0,0 +1,32 @@
+package com.example.oauth2demo.repository;
+
+import com.example.oauth2demo.entity.ReferenceTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * 引用令牌Repository接口
+ */
+@Repository
+public interface ReferenceTokenRepository extends JpaRepository<ReferenceTokenEntity, String> {
+
+    /**
+     * 清理已过期的引用令牌
+     */
+    @Transactional
+    long deleteByExpiresAtBefore(LocalDateTime time);
+
+    /**
+     * 删除指定句柄摘要的记录，返回影响行数（并发删除时只有一个调用者得到 1）
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from ReferenceTokenEntity t where t.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+}
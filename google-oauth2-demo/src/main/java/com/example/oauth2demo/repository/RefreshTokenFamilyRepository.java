@@ -0,0 +1,27 @@
+package com.example.oauth2demo.repository;
+
+import com.example.oauth2demo.entity.RefreshTokenFamilyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Refresh Token 家族快照Repository接口
+ */
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamilyEntity, String> {
+
+    /**
+     * 加载尚未过期的家族（启动时恢复内存索引）
+     */
+    List<RefreshTokenFamilyEntity> findByExpiresAtAfter(LocalDateTime time);
+
+    /**
+     * 清理已过期的家族
+     */
+    @Transactional
+    long deleteByExpiresAtBefore(LocalDateTime time);
+}
@@ -0,0 +1,69 @@
+package com.example.oauth2demo.service;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 权限集合驻留（interning）缓存
+ *
+ * 绝大多数用户共享少数几种权限组合（如 [ROLE_USER]、[ROLE_USER, ROLE_ADMIN]），
+ * 这里把权限字符串集合映射为共享的、不可变的 GrantedAuthority 集合：
+ * - 命中时直接用传入的集合做键查找，不创建任何对象
+ * - 未命中时复制一份不可变的键并转换一次，单个 SimpleGrantedAuthority 实例也在所有集合间共享
+ * - 缓存条目数有上限，超过后只转换不缓存，防止异常的权限组合撑大内存
+ */
+@Component
+public class AuthoritySetInterner {
+
+    private static final int MAX_CACHED_SETS = 1024;
+
+    private final Map<Collection<?>, Collection<GrantedAuthority>> authoritySets = new ConcurrentHashMap<>();
+    private final Map<String, GrantedAuthority> authorities = new ConcurrentHashMap<>();
+
+    /**
+     * 将权限字符串集合转换为共享的不可变 GrantedAuthority 集合
+     *
+     * @param claim 权限字符串的 List 或 Set（如 JWT 的 authorities 声明、UserEntity 的权限集合），可以为 null
+     */
+    public Collection<GrantedAuthority> intern(Collection<?> claim) {
+        if (claim == null || claim.isEmpty()) {
+            return List.of();
+        }
+        Collection<GrantedAuthority> cached = authoritySets.get(claim);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<GrantedAuthority> converted = new ArrayList<>(claim.size());
+        for (Object value : claim) {
+            if (value != null) {
+                converted.add(internAuthority(value.toString()));
+            }
+        }
+        Collection<GrantedAuthority> shared = List.copyOf(converted);
+        if (authoritySets.size() < MAX_CACHED_SETS && converted.size() == claim.size()) {
+            Collection<?> key = claim instanceof Set ? Set.copyOf(claim) : List.copyOf(claim);
+            Collection<GrantedAuthority> existing = authoritySets.putIfAbsent(key, shared);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return shared;
+    }
+
+    private GrantedAuthority internAuthority(String authority) {
+        GrantedAuthority cached = authorities.get(authority);
+        if (cached != null) {
+            return cached;
+        }
+        return authorities.computeIfAbsent(authority, SimpleGrantedAuthority::new);
+    }
+}
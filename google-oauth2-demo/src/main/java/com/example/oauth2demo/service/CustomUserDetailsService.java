@@ -4,8 +4,6 @@ import com.example.oauth2demo.entity.UserEntity;
 import com.example.oauth2demo.entity.UserLoginMethod;
 import com.example.oauth2demo.repository.UserLoginMethodRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -21,6 +19,7 @@ import org.springframework.stereotype.Service;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserLoginMethodRepository loginMethodRepository;
+    private final AuthoritySetInterner authoritySetInterner;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -34,10 +33,8 @@ public class CustomUserDetailsService implements UserDetailsService {
             throw new UsernameNotFoundException("User is disabled: " + username);
         }
 
-        // 将UserEntity的authorities转换为Spring Security的GrantedAuthority
-        var grantedAuthorities = user.getAuthorities().stream()
-            .map(SimpleGrantedAuthority::new)
-            .toList();
+        // 将UserEntity的authorities转换为Spring Security的GrantedAuthority（共享的不可变集合）
+        var grantedAuthorities = authoritySetInterner.intern(user.getAuthorities());
 
         return User.builder()
             .username(username)
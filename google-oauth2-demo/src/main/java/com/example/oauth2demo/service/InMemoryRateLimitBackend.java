@@ -0,0 +1,132 @@
+package com.example.oauth2demo.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程内滑动窗口限流后端
+ *
+ * 每个限流桶按键精确计数，键的数量有上限：
+ * - 每个键两个 long：当前窗口（窗口序号 << 32 | 计数）和上一窗口，全部使用 CAS 更新，无锁
+ * - 采用滑动窗口近似算法：估计值 = 上一窗口计数 × 剩余比例 + 当前窗口计数
+ * - 键数达到 maxKeys 时先清理已经不参与计数的空闲键（每个窗口最多一次）；仍然放不下的新键落到固定大小的
+ *   溢出条带（stripe）上按哈希共享计数，内存占用固定，不会因为攻击者伪造大量 IP/用户名而无限增长
+ * - 只有溢出条带上的键会互相影响，冲突只会让限流更严格，不会放过超限请求；正常流量下各键互不干扰
+ */
+public class InMemoryRateLimitBackend implements RateLimitBackend {
+
+    public static final int DEFAULT_MAX_KEYS = 100_000;
+    public static final int DEFAULT_STRIPES = 8192;
+
+    private final int maxKeys;
+    private final int stripeMask;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public InMemoryRateLimitBackend() {
+        this(DEFAULT_MAX_KEYS, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param maxKeys 每个限流桶精确计数的最大键数
+     * @param stripes 每个限流桶的溢出条带数量，会向上取整为2的幂
+     */
+    public InMemoryRateLimitBackend(int maxKeys, int stripes) {
+        this.maxKeys = Math.max(1, maxKeys);
+        int size = Integer.highestOneBit((Math.max(16, stripes) - 1) << 1);
+        this.stripeMask = size - 1;
+    }
+
+    @Override
+    public boolean tryAcquire(String bucket, String key, int limit, long windowMillis) {
+        Bucket counters = buckets.get(bucket);
+        if (counters == null) {
+            counters = buckets.computeIfAbsent(bucket, b -> new Bucket());
+        }
+
+        long now = System.currentTimeMillis();
+        int window = (int) (now / windowMillis);
+        double previousWeight = 1.0d - (double) (now % windowMillis) / windowMillis;
+
+        AtomicLongArray slots = counters.exact.get(key);
+        int index = 0;
+        if (slots == null) {
+            slots = counters.exactOrNull(key, window);
+            if (slots == null) {
+                slots = counters.overflow;
+                index = (spread(key.hashCode()) & stripeMask) << 1;
+            }
+        }
+        return tryAcquire(slots, index, window, previousWeight, limit);
+    }
+
+    private static boolean tryAcquire(AtomicLongArray slots, int index, int window, double previousWeight, int limit) {
+        while (true) {
+            long state = slots.get(index);
+            int stateWindow = (int) (state >>> 32);
+            int count = (int) state;
+
+            if (stateWindow != window) {
+                // 进入新窗口：当前窗口滚动为上一窗口，只有相邻窗口的计数才参与加权
+                if (slots.compareAndSet(index, state, (long) window << 32)) {
+                    slots.set(index + 1, window - stateWindow == 1 ? state : 0L);
+                }
+                continue;
+            }
+
+            long previous = slots.get(index + 1);
+            int previousCount = (int) (previous >>> 32) == window - 1 ? (int) previous : 0;
+            if (previousCount * previousWeight + count >= limit) {
+                return false;
+            }
+            if (slots.compareAndSet(index, state, state + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 限流桶中精确计数的键数
+     */
+    public int size(String bucket) {
+        Bucket counters = buckets.get(bucket);
+        return counters == null ? 0 : counters.exact.size();
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x45d9f3b;
+    }
+
+    /**
+     * 一个限流桶：精确计数的键和共享的溢出条带
+     */
+    private final class Bucket {
+        private final Map<String, AtomicLongArray> exact = new ConcurrentHashMap<>();
+        private final AtomicLongArray overflow = new AtomicLongArray((stripeMask + 1) * 2);
+        private volatile int lastPurgeWindow = Integer.MIN_VALUE;
+
+        /**
+         * 为新键分配精确计数；键数已满且清理后仍放不下时返回 null
+         */
+        private AtomicLongArray exactOrNull(String key, int window) {
+            if (exact.size() >= maxKeys) {
+                purgeIdle(window);
+                if (exact.size() >= maxKeys) {
+                    return exact.get(key);
+                }
+            }
+            return exact.computeIfAbsent(key, k -> new AtomicLongArray(2));
+        }
+
+        /**
+         * 清理当前和上一窗口都没有计数的键，它们对估计值没有贡献
+         */
+        private void purgeIdle(int window) {
+            if (lastPurgeWindow == window) {
+                return;
+            }
+            lastPurgeWindow = window;
+            exact.values().removeIf(slots -> (int) (slots.get(0) >>> 32) < window - 1);
+        }
+    }
+}
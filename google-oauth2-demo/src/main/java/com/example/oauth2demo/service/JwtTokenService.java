@@ -1,13 +1,19 @@
 package com.example.oauth2demo.service;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.stereotype.Service;
 
 import java.security.*;
+import java.time.Instant;
 import java.security.spec.X509EncodedKeySpec;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.*;
@@ -19,6 +25,7 @@ import java.nio.file.Paths;
  * JWT Token生成和管理服务
  * 使用 RSA-2048 密钥对进行签名和验证
  * 支持 JWKS 和异构资源服务器集成
+ * 支持引用令牌模式：签发不透明句柄，声明保存在服务端（见 {@link ReferenceTokenStore}）
  */
 @Service
 @Getter
@@ -33,6 +40,13 @@ public class JwtTokenService {
     private RsaConfig rsa;
     private ExpiresConfig expires;
     private TokenConfig token;
+    private ReferenceConfig reference;
+
+    @Autowired
+    private ReferenceTokenStore referenceTokenStore;
+
+    @Autowired
+    private RefreshTokenFamilyIndex refreshTokenFamilyIndex;
 
     // RSA配置内部类
     public static class RsaConfig {
@@ -100,6 +114,19 @@ public class JwtTokenService {
         }
     }
 
+    // 引用令牌配置内部类
+    public static class ReferenceConfig {
+        private boolean enabled;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
+
     public JwtTokenService() {
         // 初始化配置默认值
         if (rsa == null) {
@@ -117,6 +144,10 @@ public class JwtTokenService {
             token.setAudience("resource-server");
             token.setKid("key-1");
         }
+        if (reference == null) {
+            reference = new ReferenceConfig();
+            reference.setEnabled(false); // 默认只签发 JWT
+        }
 
         String rsaKeyFilePath = rsa.getKeyFile() != null && !rsa.getKeyFile().isEmpty() ? rsa.getKeyFile() : "rsa-keys.ser";
         KeyPair keyPair = loadOrGenerateKeyPair(rsaKeyFilePath);
@@ -270,12 +301,25 @@ public class JwtTokenService {
 
     /**
      * 生成刷新 Token
+     * 每次登录开启一个新的 refresh token 家族，后续刷新在同一家族内轮换
      */
     public String generateRefreshToken(String username, String userId) {
+        UUID familyId = UUID.randomUUID();
+        UUID jti = UUID.randomUUID();
+        refreshTokenFamilyIndex.startFamily(familyId, userId, jti,
+                System.currentTimeMillis() + expires.getRefreshToken());
+        return generateRefreshToken(username, userId, familyId, jti);
+    }
+
+    /**
+     * 生成指定家族和 jti 的刷新 Token（刷新轮换时使用）
+     */
+    public String generateRefreshToken(String username, String userId, UUID familyId, UUID jti) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("type", "refresh");
-        claims.put("jti", UUID.randomUUID().toString());
+        claims.put("jti", jti.toString());
+        claims.put("fid", familyId.toString());
         
         long issuedAtMs = System.currentTimeMillis();
         long expiresInMs = expires.getRefreshToken(); // 从配置文件读取
@@ -300,10 +344,79 @@ public class JwtTokenService {
                 new HashSet<>(Arrays.asList("ROLE_USER")));
     }
 
+    /**
+     * 生成引用访问 Token（不透明句柄，声明保存在服务端）
+     */
+    public String generateReferenceAccessToken(
+            String username,
+            String email,
+            String userId,
+            java.util.Set<String> authorities) {
+        ensureReferenceEnabled();
+        return referenceTokenStore.issue(ReferenceTokenStore.TokenType.ACCESS, username, userId, email,
+                authorities, token.getIssuer(), token.getAudience(), expires.getAccessToken());
+    }
+
+    /**
+     * 生成引用刷新 Token（不透明句柄，声明保存在服务端）
+     */
+    public String generateReferenceRefreshToken(String username, String userId) {
+        ensureReferenceEnabled();
+        return referenceTokenStore.issue(ReferenceTokenStore.TokenType.REFRESH, username, userId, null,
+                null, token.getIssuer(), null, expires.getRefreshToken());
+    }
+
+    /**
+     * 判断 Token 是否为引用令牌句柄（而不是 JWT）
+     */
+    public boolean isReferenceToken(String token) {
+        return ReferenceTokenStore.isReferenceHandle(token);
+    }
+
+    /**
+     * 解析引用令牌，无效或过期时返回 null
+     */
+    public ReferenceTokenStore.ReferenceToken resolveReferenceToken(String token) {
+        return referenceTokenStore.lookup(token);
+    }
+
+    /**
+     * 原子地取出并撤销引用刷新令牌，并发刷新同一句柄时只有一个请求成功
+     *
+     * @return 被取出的记录，无效、过期或已被使用时返回 null
+     */
+    public ReferenceTokenStore.ReferenceToken consumeReferenceRefreshToken(String token) {
+        return referenceTokenStore.consume(token, ReferenceTokenStore.TokenType.REFRESH);
+    }
+
+    /**
+     * 撤销引用令牌
+     */
+    public void revokeReferenceToken(String token) {
+        referenceTokenStore.revoke(token);
+    }
+
+    /**
+     * 判断 token_format 参数是否要求签发引用令牌
+     */
+    public boolean isReferenceFormat(String tokenFormat) {
+        return "reference".equalsIgnoreCase(tokenFormat);
+    }
+
+    private void ensureReferenceEnabled() {
+        if (!reference.isEnabled()) {
+            throw new IllegalStateException("Reference token mode is disabled (jwt.reference.enabled=false)");
+        }
+    }
+
     /**
      * 验证 Refresh Token
      */
     public boolean validateRefreshToken(String token) {
+        if (isReferenceToken(token)) {
+            ReferenceTokenStore.ReferenceToken record = resolveReferenceToken(token);
+            return record != null && record.getType() == ReferenceTokenStore.TokenType.REFRESH;
+        }
         try {
             Jwts.parserBuilder()
                     .setSigningKey(publicKey)
@@ -315,10 +428,28 @@ public class JwtTokenService {
         }
     }
 
+    /**
+     * 验证并解析 Refresh Token（JWT），返回声明
+     */
+    public Claims parseRefreshToken(String token) {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(publicKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        if (!"refresh".equals(claims.get("type", String.class))) {
+            throw new IllegalArgumentException("Not a refresh token");
+        }
+        return claims;
+    }
+
     /**
      * 从 Token 中提取用户名
      */
     public String extractUsername(String token) {
+        if (isReferenceToken(token)) {
+            return requireReferenceToken(token).getSubject();
+        }
         try {
             return Jwts.parserBuilder()
                     .setSigningKey(publicKey)
@@ -335,6 +466,9 @@ public class JwtTokenService {
      * 从 Token 中提取用户 ID
      */
     public String getUserIdFromToken(String token) {
+        if (isReferenceToken(token)) {
+            return requireReferenceToken(token).getUserId();
+        }
         try {
             return Jwts.parserBuilder()
                     .setSigningKey(publicKey)
@@ -347,12 +481,54 @@ public class JwtTokenService {
         }
     }
 
+    private ReferenceTokenStore.ReferenceToken requireReferenceToken(String token) {
+        ReferenceTokenStore.ReferenceToken record = resolveReferenceToken(token);
+        if (record == null) {
+            throw new RuntimeException("Invalid or expired reference token");
+        }
+        return record;
+    }
+
     /**
      * 获取 JWT 解码器
      * 用于 OAuth2 资源服务器验证 JWT Token
+     * 引用令牌直接查本地存储，不做签名验证；JWT 仍走 RSA 公钥验签
+     */
+    public JwtDecoder jwtDecoder() {
+        JwtDecoder signedDecoder = NimbusJwtDecoder.withPublicKey((java.security.interfaces.RSAPublicKey) publicKey).build();
+        return tokenValue -> isReferenceToken(tokenValue) ? decodeReferenceToken(tokenValue) : signedDecoder.decode(tokenValue);
+    }
+
+    /**
+     * 将引用令牌记录转换为 Spring Security 的 Jwt 对象，使下游授权逻辑无需区分两种令牌
      */
-    public org.springframework.security.oauth2.jwt.JwtDecoder jwtDecoder() {
-        return NimbusJwtDecoder.withPublicKey((java.security.interfaces.RSAPublicKey) publicKey).build();
+    private Jwt decodeReferenceToken(String tokenValue) {
+        ReferenceTokenStore.ReferenceToken record = resolveReferenceToken(tokenValue);
+        if (record == null || record.getType() != ReferenceTokenStore.TokenType.ACCESS) {
+            throw new BadJwtException("Invalid or expired reference token");
+        }
+        Jwt.Builder builder = Jwt.withTokenValue(tokenValue)
+                .header("alg", "none")
+                .header("typ", "reference")
+                .subject(record.getSubject())
+                .issuedAt(Instant.ofEpochMilli(record.getIssuedAt()))
+                .expiresAt(Instant.ofEpochMilli(record.getExpiresAt()))
+                .claim("jti", record.getJti())
+                .claim("type", "access")
+                .claim("authorities", new ArrayList<>(record.getAuthorities()));
+        if (record.getUserId() != null) {
+            builder.claim("userId", record.getUserId());
+        }
+        if (record.getEmail() != null) {
+            builder.claim("email", record.getEmail());
+        }
+        if (record.getIssuer() != null) {
+            builder.claim("iss", record.getIssuer());
+        }
+        if (record.getAudience() != null) {
+            builder.audience(List.of(record.getAudience()));
+        }
+        return builder.build();
     }
 
     // Getter和Setter方法
@@ -379,4 +555,12 @@ public class JwtTokenService {
     public void setToken(TokenConfig token) {
         this.token = token;
     }
+
+    public ReferenceConfig getReference() {
+        return reference;
+    }
+
+    public void setReference(ReferenceConfig reference) {
+        this.reference = reference;
+    }
 }
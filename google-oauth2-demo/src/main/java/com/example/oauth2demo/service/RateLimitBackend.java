@@ -0,0 +1,19 @@
+package com.example.oauth2demo.service;
+
+/**
+ * 限流计数后端
+ * 默认使用进程内的 {@link InMemoryRateLimitBackend}；多实例部署时可以提供共享实现（如 Redis）替换它
+ */
+public interface RateLimitBackend {
+
+    /**
+     * 尝试在滑动窗口内占用一个配额
+     *
+     * @param bucket       限流桶名称（通常为 "端点:维度"，如 login:ip）
+     * @param key          限流键（客户端IP、用户名或 client id）
+     * @param limit        窗口内允许的最大请求数
+     * @param windowMillis 窗口长度（毫秒）
+     * @return true 表示放行，false 表示超出限制
+     */
+    boolean tryAcquire(String bucket, String key, int limit, long windowMillis);
+}
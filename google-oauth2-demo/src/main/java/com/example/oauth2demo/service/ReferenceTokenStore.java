@@ -0,0 +1,317 @@
+package com.example.oauth2demo.service;
+
+import com.example.oauth2demo.entity.ReferenceTokenEntity;
+import com.example.oauth2demo.repository.ReferenceTokenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 引用令牌（Reference Token）存储
+ * 签发短小的不透明随机句柄，句柄映射到服务端保存的声明记录
+ *
+ * - 内存中使用 ConcurrentHashMap 保存，查找无需验签
+ * - 记录带过期时间，查找时惰性淘汰，并定期批量清理
+ * - 可选持久化到 reference_tokens 表（jwt.reference.persist=true），内存未命中时回源
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceTokenStore {
+
+    /**
+     * 句柄前缀，JWT 总是包含两个 '.'，而句柄不包含，两者可以在同一端点上区分
+     */
+    public static final String HANDLE_PREFIX = "rt_";
+
+    private static final int HANDLE_BYTES = 32;
+
+    private final ReferenceTokenRepository referenceTokenRepository;
+
+    private final Map<String, ReferenceToken> tokens = new ConcurrentHashMap<>();
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${jwt.reference.persist:false}")
+    private boolean persist;
+
+    /**
+     * 判断给定字符串是否为引用令牌句柄
+     */
+    public static boolean isReferenceHandle(String token) {
+        return token != null && token.startsWith(HANDLE_PREFIX) && token.indexOf('.') < 0;
+    }
+
+    /**
+     * 签发新的引用令牌
+     *
+     * @return 不透明句柄
+     */
+    public String issue(TokenType type, String subject, String userId, String email,
+                        Set<String> authorities, String issuer, String audience, long expiresInMs) {
+        byte[] random = new byte[HANDLE_BYTES];
+        secureRandom.nextBytes(random);
+        String handle = HANDLE_PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(random);
+
+        long now = System.currentTimeMillis();
+        ReferenceToken token = new ReferenceToken(
+            UUID.randomUUID().toString(), type, subject, userId, email,
+            authorities != null ? Set.copyOf(authorities) : Set.of(),
+            issuer, audience, now, now + expiresInMs
+        );
+        tokens.put(handle, token);
+
+        if (persist) {
+            try {
+                referenceTokenRepository.save(toEntity(handle, token));
+            } catch (Exception e) {
+                log.warn("Failed to persist reference token {}: {}", token.getJti(), e.getMessage());
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * 查找引用令牌，过期或不存在时返回 null
+     */
+    public ReferenceToken lookup(String handle) {
+        if (!isReferenceHandle(handle)) {
+            return null;
+        }
+
+        ReferenceToken token = tokens.get(handle);
+        if (token == null && persist) {
+            token = loadPersisted(handle);
+        }
+        if (token == null) {
+            return null;
+        }
+        if (token.isExpired()) {
+            revoke(handle);
+            return null;
+        }
+        return token;
+    }
+
+    /**
+     * 原子地取出并撤销引用令牌（刷新时使用）：并发出示同一句柄时只有一个调用者拿到记录，其余返回 null
+     *
+     * 持久化模式下还要求删除数据库记录的影响行数为 1，多个实例之间同样只有一个成功；
+     * 签发时落库失败的句柄因此无法刷新，需要重新登录
+     *
+     * @param handle 句柄
+     * @param type   期望的令牌类型，类型不符时不撤销
+     * @return 被取出的记录，无效、过期或已被其他请求取出时返回 null
+     */
+    public ReferenceToken consume(String handle, TokenType type) {
+        ReferenceToken token = lookup(handle);
+        if (token == null || token.getType() != type || !tokens.remove(handle, token)) {
+            return null;
+        }
+        if (persist) {
+            try {
+                if (referenceTokenRepository.deleteByTokenHash(hash(handle)) == 0) {
+                    return null;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to delete persisted reference token {}: {}", token.getJti(), e.getMessage());
+                return null;
+            }
+        }
+        return token;
+    }
+
+    /**
+     * 撤销引用令牌
+     */
+    public void revoke(String handle) {
+        tokens.remove(handle);
+        if (persist) {
+            try {
+                referenceTokenRepository.deleteById(hash(handle));
+            } catch (Exception e) {
+                log.debug("Failed to delete persisted reference token: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 当前内存中的引用令牌数量
+     */
+    public int size() {
+        return tokens.size();
+    }
+
+    /**
+     * 定期清理过期的引用令牌
+     */
+    @Scheduled(fixedDelayString = "${jwt.reference.purge-interval:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        int before = tokens.size();
+        tokens.values().removeIf(token -> token.getExpiresAt() <= now);
+        int removed = before - tokens.size();
+        if (removed > 0) {
+            log.debug("Purged {} expired reference tokens", removed);
+        }
+
+        if (persist) {
+            try {
+                referenceTokenRepository.deleteByExpiresAtBefore(LocalDateTime.now(ZoneOffset.UTC));
+            } catch (Exception e) {
+                log.warn("Failed to purge persisted reference tokens: {}", e.getMessage());
+            }
+        }
+    }
+
+    private ReferenceToken loadPersisted(String handle) {
+        try {
+            return referenceTokenRepository.findById(hash(handle))
+                .map(entity -> {
+                    ReferenceToken token = fromEntity(entity);
+                    tokens.put(handle, token);
+                    return token;
+                })
+                .orElse(null);
+        } catch (Exception e) {
+            log.warn("Failed to load persisted reference token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private ReferenceTokenEntity toEntity(String handle, ReferenceToken token) {
+        return ReferenceTokenEntity.builder()
+            .tokenHash(hash(handle))
+            .jti(token.getJti())
+            .tokenType(token.getType().name().toLowerCase())
+            .subject(token.getSubject())
+            .userId(token.getUserId())
+            .email(token.getEmail())
+            .authorities(String.join(",", token.getAuthorities()))
+            .issuer(token.getIssuer())
+            .audience(token.getAudience())
+            .issuedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(token.getIssuedAt()), ZoneOffset.UTC))
+            .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(token.getExpiresAt()), ZoneOffset.UTC))
+            .build();
+    }
+
+    private ReferenceToken fromEntity(ReferenceTokenEntity entity) {
+        Set<String> authorities = entity.getAuthorities() == null || entity.getAuthorities().isEmpty()
+            ? Set.of()
+            : Set.of(entity.getAuthorities().split(","));
+        return new ReferenceToken(
+            entity.getJti(),
+            TokenType.valueOf(entity.getTokenType().toUpperCase()),
+            entity.getSubject(),
+            entity.getUserId(),
+            entity.getEmail(),
+            authorities,
+            entity.getIssuer(),
+            entity.getAudience(),
+            entity.getIssuedAt().toInstant(ZoneOffset.UTC).toEpochMilli(),
+            entity.getExpiresAt().toInstant(ZoneOffset.UTC).toEpochMilli()
+        );
+    }
+
+    private static String hash(String handle) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(handle.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 引用令牌类型
+     */
+    public enum TokenType {
+        ACCESS, REFRESH
+    }
+
+    /**
+     * 服务端保存的引用令牌声明记录（不可变）
+     */
+    public static class ReferenceToken {
+        private final String jti;
+        private final TokenType type;
+        private final String subject;
+        private final String userId;
+        private final String email;
+        private final Set<String> authorities;
+        private final String issuer;
+        private final String audience;
+        private final long issuedAt;
+        private final long expiresAt;
+
+        public ReferenceToken(String jti, TokenType type, String subject, String userId, String email,
+                              Set<String> authorities, String issuer, String audience,
+                              long issuedAt, long expiresAt) {
+            this.jti = jti;
+            this.type = type;
+            this.subject = subject;
+            this.userId = userId;
+            this.email = email;
+            this.authorities = authorities;
+            this.issuer = issuer;
+            this.audience = audience;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+
+        public String getJti() {
+            return jti;
+        }
+
+        public TokenType getType() {
+            return type;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public Set<String> getAuthorities() {
+            return authorities;
+        }
+
+        public String getIssuer() {
+            return issuer;
+        }
+
+        public String getAudience() {
+            return audience;
+        }
+
+        public long getIssuedAt() {
+            return issuedAt;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
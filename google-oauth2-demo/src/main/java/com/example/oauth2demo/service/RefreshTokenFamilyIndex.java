@@ -0,0 +1,285 @@
+package com.example.oauth2demo.service;
+
+import com.example.oauth2demo.entity.RefreshTokenFamilyEntity;
+import com.example.oauth2demo.repository.RefreshTokenFamilyRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refresh Token 家族索引
+ *
+ * 每次登录开启一个家族（fid），家族中只有最新签发的 refresh token（latestJti）有效：
+ * - 开启家族：立即写入 refresh_token_families 表（登录本身已经访问数据库）
+ * - 正常刷新：比较并替换 latestJti，O(1)，纯内存操作，不访问数据库
+ * - 重放检测：出示的 jti 不是 latestJti，说明旧 token 被再次使用，整个家族立即撤销并落库
+ * - 结束家族：刷新改为签发引用令牌时，出示最新 token 的请求撤销家族并落库
+ * - 持久化：轮换过的家族定期批量快照，启动时恢复
+ *
+ * 快照之后、重启之前的轮换会丢失，恢复的家族的 latestJti 可能已经过时。这类家族标记为"最新未知"：
+ * 签发时间晚于快照中记录的最新 token 的 refresh token 视为丢失的轮换结果并接受，之后恢复严格比较；
+ * 更早签发的旧 token 仍然按重放处理。
+ *
+ * fid/jti 在索引中以 UUID（两个 long）保存，而不是 36 字符的字符串
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenFamilyIndex {
+
+    private final RefreshTokenFamilyRepository familyRepository;
+
+    private final Map<UUID, Family> families = new ConcurrentHashMap<>();
+
+    /**
+     * 启动时从快照表恢复未过期的家族
+     */
+    @PostConstruct
+    public void restore() {
+        try {
+            List<RefreshTokenFamilyEntity> snapshot = familyRepository.findByExpiresAtAfter(LocalDateTime.now(ZoneOffset.UTC));
+            for (RefreshTokenFamilyEntity entity : snapshot) {
+                families.put(UUID.fromString(entity.getFamilyId()), fromEntity(entity));
+            }
+            log.info("Restored {} refresh token families from snapshot", snapshot.size());
+        } catch (Exception e) {
+            log.warn("Failed to restore refresh token families: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 开启新的家族并立即落库，重启后不会出现未知的家族
+     */
+    public void startFamily(UUID familyId, String userId, UUID jti, long expiresAt) {
+        Family family = new Family(userId, jti, expiresAt, System.currentTimeMillis());
+        families.put(familyId, family);
+        RefreshTokenFamilyEntity entity;
+        synchronized (family) {
+            entity = toEntity(familyId, family);
+            family.dirty = false;
+        }
+        save(familyId, family, entity);
+    }
+
+    /**
+     * 轮换家族中的 refresh token
+     *
+     * @param familyId          出示的 token 的家族ID
+     * @param presentedJti      出示的 token 的 jti
+     * @param presentedIssuedAt 出示的 token 的签发时间（毫秒）
+     * @param newJti            即将签发的新 token 的 jti
+     * @param expiresAt         新 token 的过期时间
+     * @return RotationResult
+     */
+    public RotationResult rotate(UUID familyId, UUID presentedJti, long presentedIssuedAt, UUID newJti, long expiresAt) {
+        return advance(familyId, presentedJti, presentedIssuedAt, newJti, expiresAt);
+    }
+
+    /**
+     * 结束家族：出示的是最新 token 时撤销家族并立即落库（刷新改为签发引用令牌，不再签发该家族的 JWT）
+     *
+     * @return 成功时返回 ROTATED，其余结果与 {@link #rotate} 相同
+     */
+    public RotationResult retire(UUID familyId, UUID presentedJti, long presentedIssuedAt) {
+        return advance(familyId, presentedJti, presentedIssuedAt, null, 0);
+    }
+
+    /**
+     * newJti 为 null 时结束家族，否则轮换到 newJti
+     */
+    private RotationResult advance(UUID familyId, UUID presentedJti, long presentedIssuedAt, UUID newJti, long expiresAt) {
+        while (true) {
+            Family family = families.get(familyId);
+            if (family == null) {
+                family = load(familyId);
+                if (family == null) {
+                    log.warn("Unknown refresh token family {}", familyId);
+                    return RotationResult.UNKNOWN_FAMILY;
+                }
+            }
+
+            RefreshTokenFamilyEntity revokedEntity;
+            boolean reuse;
+            synchronized (family) {
+                if (family.removed) {
+                    // 快照清理时已被移出索引，重新查找
+                    continue;
+                }
+                if (family.revoked) {
+                    return RotationResult.REVOKED;
+                }
+                boolean current = family.latestJti.equals(presentedJti);
+                if (!current && family.latestUncertain && presentedIssuedAt / 1000 > family.rotatedAt / 1000) {
+                    log.info("Accepting refresh token of family {} issued after the last snapshot", familyId);
+                    current = true;
+                }
+                if (current && newJti != null) {
+                    family.latestJti = newJti;
+                    family.expiresAt = expiresAt;
+                    family.rotatedAt = System.currentTimeMillis();
+                    family.latestUncertain = false;
+                    family.dirty = true;
+                    return RotationResult.ROTATED;
+                }
+                reuse = !current;
+                family.revoked = true;
+                family.dirty = false;
+                revokedEntity = toEntity(familyId, family);
+                if (reuse) {
+                    log.warn("Refresh token reuse detected, revoking family {} of user {}", familyId, family.userId);
+                } else {
+                    log.info("Retiring refresh token family {} of user {}", familyId, family.userId);
+                }
+            }
+            // 家族撤销立即落库，不等待下一次快照；数据库写入不持有家族锁
+            save(familyId, family, revokedEntity);
+            return reuse ? RotationResult.REUSE_DETECTED : RotationResult.ROTATED;
+        }
+    }
+
+    /**
+     * 当前内存中的家族数量
+     */
+    public int size() {
+        return families.size();
+    }
+
+    /**
+     * 定期把变更过的家族快照到数据库，并清理已过期的家族
+     */
+    @Scheduled(fixedDelayString = "${jwt.refresh-family.snapshot-interval:30000}")
+    public void snapshot() {
+        long now = System.currentTimeMillis();
+        List<RefreshTokenFamilyEntity> dirty = new ArrayList<>();
+        families.forEach((familyId, family) -> {
+            synchronized (family) {
+                if (family.dirty) {
+                    dirty.add(toEntity(familyId, family));
+                    family.dirty = false;
+                }
+            }
+        });
+        families.values().removeIf(family -> {
+            synchronized (family) {
+                if (family.expiresAt > now) {
+                    return false;
+                }
+                family.removed = true;
+                return true;
+            }
+        });
+
+        if (dirty.isEmpty()) {
+            return;
+        }
+        try {
+            familyRepository.saveAll(dirty);
+            familyRepository.deleteByExpiresAtBefore(LocalDateTime.now(ZoneOffset.UTC));
+            log.debug("Snapshotted {} refresh token families", dirty.size());
+        } catch (Exception e) {
+            log.warn("Failed to snapshot refresh token families: {}", e.getMessage());
+            // 快照失败时重新标记，下次重试
+            for (RefreshTokenFamilyEntity entity : dirty) {
+                markDirty(families.get(UUID.fromString(entity.getFamilyId())));
+            }
+        }
+    }
+
+    private void save(UUID familyId, Family family, RefreshTokenFamilyEntity entity) {
+        try {
+            familyRepository.save(entity);
+        } catch (Exception e) {
+            log.warn("Failed to persist refresh token family {}: {}", familyId, e.getMessage());
+            // 交给下一次快照重试
+            markDirty(family);
+        }
+    }
+
+    private void markDirty(Family family) {
+        if (family != null) {
+            synchronized (family) {
+                family.dirty = true;
+            }
+        }
+    }
+
+    /**
+     * 索引中没有的家族回源查询（启动时恢复失败等情况）
+     */
+    private Family load(UUID familyId) {
+        try {
+            return familyRepository.findById(familyId.toString())
+                .filter(entity -> entity.getExpiresAt().isAfter(LocalDateTime.now(ZoneOffset.UTC)))
+                .map(entity -> families.computeIfAbsent(familyId, id -> fromEntity(entity)))
+                .orElse(null);
+        } catch (Exception e) {
+            log.warn("Failed to load refresh token family {}: {}", familyId, e.getMessage());
+            return null;
+        }
+    }
+
+    private RefreshTokenFamilyEntity toEntity(UUID familyId, Family family) {
+        return RefreshTokenFamilyEntity.builder()
+            .familyId(familyId.toString())
+            .userId(family.userId)
+            .latestJti(family.latestJti.toString())
+            .revoked(family.revoked)
+            .expiresAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(family.expiresAt), ZoneOffset.UTC))
+            .updatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(family.rotatedAt), ZoneOffset.UTC))
+            .build();
+    }
+
+    /**
+     * 从快照恢复的家族：快照之后可能还有未落库的轮换，latestJti 标记为未知
+     */
+    private Family fromEntity(RefreshTokenFamilyEntity entity) {
+        Family family = new Family(entity.getUserId(), UUID.fromString(entity.getLatestJti()),
+            entity.getExpiresAt().toInstant(ZoneOffset.UTC).toEpochMilli(),
+            entity.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        family.revoked = entity.isRevoked();
+        family.latestUncertain = true;
+        family.dirty = false;
+        return family;
+    }
+
+    /**
+     * 轮换结果
+     */
+    public enum RotationResult {
+        ROTATED, REUSE_DETECTED, REVOKED, UNKNOWN_FAMILY
+    }
+
+    /**
+     * 家族状态，所有可变字段在 synchronized(family) 内读写
+     */
+    private static final class Family {
+        private final String userId;
+        private UUID latestJti;
+        private long expiresAt;
+        // latestJti 的签发时间（毫秒）
+        private long rotatedAt;
+        // 从快照恢复、尚未确认 latestJti 是否最新
+        private boolean latestUncertain;
+        private boolean revoked;
+        private boolean removed;
+        private boolean dirty = true;
+
+        private Family(String userId, UUID latestJti, long expiresAt, long rotatedAt) {
+            this.userId = userId;
+            this.latestJti = latestJti;
+            this.expiresAt = expiresAt;
+            this.rotatedAt = rotatedAt;
+        }
+    }
+}
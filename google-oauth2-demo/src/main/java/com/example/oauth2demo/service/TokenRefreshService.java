@@ -2,13 +2,17 @@ package com.example.oauth2demo.service;
 
 import com.example.oauth2demo.entity.UserEntity;
 import com.example.oauth2demo.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+
 /**
  * JWT Token刷新服务
  * 处理refresh token验证和新的access token生成
+ * JWT refresh token 按家族轮换，旧token被重放时撤销整个家族（见 {@link RefreshTokenFamilyIndex}）
  */
 @Service
 @RequiredArgsConstructor
@@ -17,23 +21,59 @@ public class TokenRefreshService {
 
     private final UserRepository userRepository;
     private final JwtTokenService jwtTokenService;
+    private final RefreshTokenFamilyIndex refreshTokenFamilyIndex;
 
     /**
      * 刷新用户的JWT Token
+     * 新签发的Token与传入的refresh token格式保持一致（JWT 或引用令牌）
      *
      * @param refreshTokenValue refresh token字符串
      * @return 新的TokenPair
      */
     public TokenPair refreshUserTokens(String refreshTokenValue) {
+        return refreshUserTokens(refreshTokenValue, jwtTokenService.isReferenceToken(refreshTokenValue));
+    }
+
+    /**
+     * 刷新用户的Token
+     *
+     * @param refreshTokenValue refresh token字符串（JWT 或引用令牌句柄）
+     * @param reference 是否签发引用令牌
+     * @return 新的TokenPair
+     */
+    public TokenPair refreshUserTokens(String refreshTokenValue, boolean reference) {
         try {
-            // 1. 验证refresh token
-            if (!jwtTokenService.validateRefreshToken(refreshTokenValue)) {
-                throw new RuntimeException("无效的refresh token");
+            // 1. 先检查请求的格式，此时出示的refresh token尚未被使用
+            if (reference && !jwtTokenService.getReference().isEnabled()) {
+                throw new RuntimeException("Reference token mode is disabled");
             }
 
-            // 2. 从refresh token中提取用户信息
-            String username = jwtTokenService.extractUsername(refreshTokenValue);
-            String userId = jwtTokenService.getUserIdFromToken(refreshTokenValue);
+            // 2. 验证refresh token并提取用户信息（JWT 只验签解析一次，引用令牌只查找一次）
+            boolean presentedReference = jwtTokenService.isReferenceToken(refreshTokenValue);
+            String username;
+            String userId;
+            UUID familyId = null;
+            UUID presentedJti = null;
+            long presentedIssuedAt = 0;
+            if (presentedReference) {
+                ReferenceTokenStore.ReferenceToken record = jwtTokenService.resolveReferenceToken(refreshTokenValue);
+                if (record == null || record.getType() != ReferenceTokenStore.TokenType.REFRESH) {
+                    throw new RuntimeException("无效的refresh token");
+                }
+                username = record.getSubject();
+                userId = record.getUserId();
+            } else {
+                Claims claims = jwtTokenService.parseRefreshToken(refreshTokenValue);
+                username = claims.getSubject();
+                userId = claims.get("userId", String.class);
+                // 家族信息：旧版本签发的token没有fid，刷新时开启新家族
+                String fid = claims.get("fid", String.class);
+                if (fid != null && claims.getId() != null) {
+                    familyId = UUID.fromString(fid);
+                    presentedJti = UUID.fromString(claims.getId());
+                    presentedIssuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().getTime() : 0;
+                }
+            }
 
             // 3. 验证提取的信息不为空
             if (userId == null || userId.trim().isEmpty()) {
@@ -52,13 +92,37 @@ public class TokenRefreshService {
                 throw new RuntimeException("Token用户名不匹配");
             }
 
-            // 6. 生成新的Token对
-            String newAccessToken = jwtTokenService.generateAccessToken(
-                user.getUsername(), user.getEmail(), user.getId(), user.getAuthorities()
-            );
-            String newRefreshToken = jwtTokenService.generateRefreshToken(
-                user.getUsername(), user.getId()
-            );
+            // 6. 先生成新的Token对，签发失败时出示的refresh token仍然有效
+            UUID newJti = UUID.randomUUID();
+            String newAccessToken;
+            String newRefreshToken;
+            if (reference) {
+                newAccessToken = jwtTokenService.generateReferenceAccessToken(
+                    user.getUsername(), user.getEmail(), user.getId(), user.getAuthorities()
+                );
+                newRefreshToken = jwtTokenService.generateReferenceRefreshToken(
+                    user.getUsername(), user.getId()
+                );
+            } else {
+                newAccessToken = jwtTokenService.generateAccessToken(
+                    user.getUsername(), user.getEmail(), user.getId(), user.getAuthorities()
+                );
+                newRefreshToken = familyId != null
+                    ? jwtTokenService.generateRefreshToken(user.getUsername(), user.getId(), familyId, newJti)
+                    : jwtTokenService.generateRefreshToken(user.getUsername(), user.getId());
+            }
+
+            // 7. 提交轮换，失败时新签发的引用令牌一并撤销
+            try {
+                commitRotation(refreshTokenValue, presentedReference, reference,
+                    familyId, presentedJti, presentedIssuedAt, newJti);
+            } catch (RuntimeException e) {
+                if (reference) {
+                    jwtTokenService.revokeReferenceToken(newAccessToken);
+                    jwtTokenService.revokeReferenceToken(newRefreshToken);
+                }
+                throw e;
+            }
 
             log.info("成功刷新token for user: {}", username);
             return new TokenPair(newAccessToken, newRefreshToken);
@@ -69,6 +133,38 @@ public class TokenRefreshService {
         }
     }
 
+    /**
+     * 使出示的refresh token失效
+     * - 引用令牌：原子地取出并撤销句柄，并发刷新同一句柄时只有一个请求成功
+     * - JWT：同一家族内比较并替换最新jti（纯内存操作），重放的旧token会撤销整个家族；
+     *   改为签发引用令牌时结束家族，不会轮换到一个从未签发的jti
+     */
+    private void commitRotation(String refreshTokenValue, boolean presentedReference, boolean reference,
+                                UUID familyId, UUID presentedJti, long presentedIssuedAt, UUID newJti) {
+        if (presentedReference) {
+            if (jwtTokenService.consumeReferenceRefreshToken(refreshTokenValue) == null) {
+                throw new RuntimeException("refresh token已被使用或已过期");
+            }
+            return;
+        }
+        if (familyId == null) {
+            return;
+        }
+        RefreshTokenFamilyIndex.RotationResult rotation = reference
+            ? refreshTokenFamilyIndex.retire(familyId, presentedJti, presentedIssuedAt)
+            : refreshTokenFamilyIndex.rotate(familyId, presentedJti, presentedIssuedAt, newJti,
+                System.currentTimeMillis() + jwtTokenService.getExpires().getRefreshToken());
+        if (rotation == RefreshTokenFamilyIndex.RotationResult.REUSE_DETECTED) {
+            throw new RuntimeException("检测到refresh token重放，已撤销该登录会话");
+        }
+        if (rotation == RefreshTokenFamilyIndex.RotationResult.REVOKED) {
+            throw new RuntimeException("refresh token所属登录会话已被撤销");
+        }
+        if (rotation == RefreshTokenFamilyIndex.RotationResult.UNKNOWN_FAMILY) {
+            throw new RuntimeException("refresh token所属登录会话不存在或已过期");
+        }
+    }
+
     /**
      * Token对数据传输对象
      */
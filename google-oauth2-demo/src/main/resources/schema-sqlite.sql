@@ -76,8 +76,35 @@ CREATE TABLE IF NOT EXISTS token_blacklist (
     reason TEXT
 );
 
+-- 引用令牌表（可选持久化，jwt.reference.persist=true 时使用）
+CREATE TABLE IF NOT EXISTS reference_tokens (
+    token_hash TEXT PRIMARY KEY,  -- 句柄的 SHA-256（十六进制），不保存句柄明文
+    jti TEXT NOT NULL,
+    token_type TEXT NOT NULL,  -- access / refresh
+    subject TEXT NOT NULL,
+    user_id TEXT,
+    email TEXT,
+    authorities TEXT,  -- 逗号分隔的权限列表
+    issuer TEXT,  -- iss 声明
+    audience TEXT,  -- aud 声明（refresh 令牌为空）
+    issued_at DATETIME NOT NULL,
+    expires_at DATETIME NOT NULL
+);
+
+-- Refresh Token 家族快照表（内存家族索引定期快照，启动时恢复）
+CREATE TABLE IF NOT EXISTS refresh_token_families (
+    family_id TEXT PRIMARY KEY,  -- 家族ID（refresh token 的 fid 声明）
+    user_id TEXT,
+    latest_jti TEXT NOT NULL,  -- 家族中当前唯一有效的 refresh token jti
+    revoked INTEGER DEFAULT 0 NOT NULL,
+    expires_at DATETIME NOT NULL,
+    updated_at DATETIME NOT NULL  -- latest_jti 的签发时间
+);
+
 -- 创建索引
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
 CREATE INDEX IF NOT EXISTS idx_token_blacklist_jti ON token_blacklist(jti);
-CREATE INDEX IF NOT EXISTS idx_token_blacklist_expires_at ON token_blacklist(expires_at);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_token_blacklist_expires_at ON token_blacklist(expires_at);
+CREATE INDEX IF NOT EXISTS idx_reference_tokens_expires_at ON reference_tokens(expires_at);
+CREATE INDEX IF NOT EXISTS idx_refresh_token_families_expires_at ON refresh_token_families(expires_at);
\ No newline at end of file
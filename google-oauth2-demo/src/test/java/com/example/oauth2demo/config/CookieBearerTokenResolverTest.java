@@ -0,0 +1,68 @@
+package com.example.oauth2demo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Cookie 头解析测试：与容器解析 Cookie 的结果一致，只返回名称完全匹配的值
+ */
+class CookieBearerTokenResolverTest {
+
+    @Test
+    void findsCookieAmongSeveralWithWhitespace() {
+        String header = "theme=dark ;  accessToken=abc.def.ghi  ;\tlang=zh";
+        assertEquals("abc.def.ghi", CookieBearerTokenResolver.findCookie(header, "accessToken"));
+        assertEquals("dark", CookieBearerTokenResolver.findCookie(header, "theme"));
+        assertEquals("zh", CookieBearerTokenResolver.findCookie(header, "lang"));
+    }
+
+    @Test
+    void stripsQuotesAroundValue() {
+        assertEquals("abc", CookieBearerTokenResolver.findCookie("accessToken=\"abc\"; b=2", "accessToken"));
+        // 单个引号不是成对的引号，原样返回
+        assertEquals("\"", CookieBearerTokenResolver.findCookie("accessToken=\"", "accessToken"));
+    }
+
+    @Test
+    void missingOrEmptyCookie() {
+        assertNull(CookieBearerTokenResolver.findCookie("a=1; b=2", "accessToken"));
+        assertNull(CookieBearerTokenResolver.findCookie("", "accessToken"));
+        assertNull(CookieBearerTokenResolver.findCookie(null, "accessToken"));
+        assertEquals("", CookieBearerTokenResolver.findCookie("accessToken=; b=2", "accessToken"));
+    }
+
+    @Test
+    void nameThatIsAPrefixOfAnotherDoesNotMatch() {
+        String header = "access_token_x=wrong; x_access_token=wrong2; access_token=right";
+        assertEquals("right", CookieBearerTokenResolver.findCookie(header, "access_token"));
+        assertEquals("wrong", CookieBearerTokenResolver.findCookie(header, "access_token_x"));
+        assertNull(CookieBearerTokenResolver.findCookie("access_token_x=wrong", "access_token"));
+    }
+
+    @Test
+    void skipsMalformedPairWithoutEquals() {
+        assertEquals("abc", CookieBearerTokenResolver.findCookie("accessToken; garbage; accessToken=abc", "accessToken"));
+        assertNull(CookieBearerTokenResolver.findCookie("accessToken", "accessToken"));
+    }
+
+    @Test
+    void resolvesFromAnyCookieHeaderAndPrefersAuthorization() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Cookie", "theme=dark");
+        request.addHeader("Cookie", "accessToken=from-cookie");
+        CookieBearerTokenResolver resolver = new CookieBearerTokenResolver();
+        assertEquals("from-cookie", resolver.resolve(request));
+        assertNull(CookieBearerTokenResolver.resolveCookie(request, CookieBearerTokenResolver.REFRESH_TOKEN_COOKIE));
+
+        request.addHeader("Authorization", "Bearer from-header");
+        assertEquals("from-header", resolver.resolve(request));
+    }
+
+    @Test
+    void requestWithoutCookieHeader() {
+        assertNull(new CookieBearerTokenResolver().resolve(new MockHttpServletRequest()));
+    }
+}
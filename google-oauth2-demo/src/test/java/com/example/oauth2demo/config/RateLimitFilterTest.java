@@ -0,0 +1,99 @@
+package com.example.oauth2demo.config;
+
+import com.example.oauth2demo.service.InMemoryRateLimitBackend;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 限流过滤器测试：以进程内后端代替共享后端，登录端点按用户名计数
+ */
+class RateLimitFilterTest {
+
+    private static final int LIMIT = 5;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.EndpointRule login = new RateLimitProperties.EndpointRule();
+        login.setPaths(List.of("/api/auth/login"));
+        login.setLimit(LIMIT);
+        login.setWindow(Duration.ofHours(1));
+        login.setKeys(List.of("ip", "username"));
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getEndpoints().put("login", login);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new LoginStubController())
+            .addFilters(new RateLimitFilter(new InMemoryRateLimitBackend(), properties))
+            .build();
+    }
+
+    @Test
+    void rejectsLoginAttemptsOverTheLimitForTheSameUsername() throws Exception {
+        for (int i = 0; i < LIMIT; i++) {
+            mockMvc.perform(post("/api/auth/login").param("username", "alice").param("password", "x")
+                    .with(remoteAddr("10.0.0." + i)))
+                .andExpect(status().isOk());
+        }
+
+        // 换一个 IP 仍然按用户名计数
+        mockMvc.perform(post("/api/auth/login").param("username", "alice").param("password", "x")
+                .with(remoteAddr("10.0.1.1")))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string("Retry-After", "3600"));
+    }
+
+    @Test
+    void otherUsernamesAreNotLimited() throws Exception {
+        for (int i = 0; i <= LIMIT; i++) {
+            mockMvc.perform(post("/api/auth/login").param("username", "alice").param("password", "x")
+                .with(remoteAddr("10.0.0." + i)));
+        }
+
+        mockMvc.perform(post("/api/auth/login").param("username", "bob").param("password", "x")
+                .with(remoteAddr("10.0.2.1")))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void unrelatedPathsAreNotFiltered() throws Exception {
+        for (int i = 0; i <= LIMIT; i++) {
+            mockMvc.perform(post("/api/auth/other").with(remoteAddr("10.0.0.1")))
+                .andExpect(status().isOk());
+        }
+    }
+
+    private static RequestPostProcessor remoteAddr(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+
+    @RestController
+    static class LoginStubController {
+
+        @PostMapping("/api/auth/login")
+        public String login() {
+            return "ok";
+        }
+
+        @PostMapping("/api/auth/other")
+        public String other() {
+            return "ok";
+        }
+    }
+}
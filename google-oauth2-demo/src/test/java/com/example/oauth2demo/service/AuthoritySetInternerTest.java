@@ -0,0 +1,71 @@
+package com.example.oauth2demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 权限集合驻留测试：重复查找返回同一实例，不同集合互不共享，缓存条目数不超过上限
+ */
+class AuthoritySetInternerTest {
+
+    private static final int MAX_CACHED_SETS = 1024;
+
+    private final AuthoritySetInterner interner = new AuthoritySetInterner();
+
+    @Test
+    void repeatedLookupsReturnTheSameInstance() {
+        // JWT 声明反序列化后每次都是新的 List，UserEntity 的权限是 Set
+        Collection<GrantedAuthority> first = interner.intern(new ArrayList<>(List.of("ROLE_USER", "ROLE_ADMIN")));
+        Collection<GrantedAuthority> second = interner.intern(new ArrayList<>(List.of("ROLE_USER", "ROLE_ADMIN")));
+        assertSame(first, second);
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN")), List.copyOf(first));
+
+        Collection<GrantedAuthority> fromSet = interner.intern(new LinkedHashSet<>(List.of("ROLE_USER")));
+        assertSame(fromSet, interner.intern(Set.of("ROLE_USER")));
+        // 单个权限实例在不同集合之间共享
+        assertSame(first.iterator().next(), fromSet.iterator().next());
+    }
+
+    @Test
+    void emptyAndNullClaimsMapToEmpty() {
+        assertTrue(interner.intern(null).isEmpty());
+        assertTrue(interner.intern(List.of()).isEmpty());
+    }
+
+    @Test
+    void distinctSetsReturnDistinctInstances() {
+        Collection<GrantedAuthority> user = interner.intern(List.of("ROLE_USER"));
+        Collection<GrantedAuthority> admin = interner.intern(List.of("ROLE_USER", "ROLE_ADMIN"));
+        assertNotSame(user, admin);
+        assertNotEquals(List.copyOf(user), List.copyOf(admin));
+        assertSame(admin, interner.intern(new ArrayList<>(List.of("ROLE_USER", "ROLE_ADMIN"))));
+    }
+
+    @Test
+    void cacheStopsGrowingAtTheCap() {
+        for (int i = 0; i < MAX_CACHED_SETS; i++) {
+            interner.intern(List.of("ROLE_" + i));
+        }
+        // 上限内的集合仍然命中缓存
+        assertSame(interner.intern(List.of("ROLE_0")), interner.intern(new ArrayList<>(List.of("ROLE_0"))));
+
+        // 超过上限后只转换不缓存：结果正确，但每次都是新的集合
+        Collection<GrantedAuthority> first = interner.intern(List.of("ROLE_OVERFLOW"));
+        Collection<GrantedAuthority> second = interner.intern(List.of("ROLE_OVERFLOW"));
+        assertNotSame(first, second);
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_OVERFLOW")), List.copyOf(second));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.oauth2demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryRateLimitBackendTest {
+
+    private static final long WINDOW = 3_600_000;
+
+    @Test
+    void limitsEachKeyIndependently() {
+        // 条带很少：如果按哈希共享计数，几千个键里一定有冲突
+        InMemoryRateLimitBackend backend = new InMemoryRateLimitBackend(10_000, 16);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(backend.tryAcquire("login:username", "victim", 3, WINDOW));
+        }
+        assertFalse(backend.tryAcquire("login:username", "victim", 3, WINDOW));
+
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(backend.tryAcquire("login:username", "user-" + i, 3, WINDOW), "user-" + i);
+        }
+        assertEquals(5_001, backend.size("login:username"));
+    }
+
+    @Test
+    void bucketsAreCountedSeparately() {
+        InMemoryRateLimitBackend backend = new InMemoryRateLimitBackend();
+        assertTrue(backend.tryAcquire("login:ip", "10.0.0.1", 1, WINDOW));
+        assertFalse(backend.tryAcquire("login:ip", "10.0.0.1", 1, WINDOW));
+        assertTrue(backend.tryAcquire("refresh:ip", "10.0.0.1", 1, WINDOW));
+    }
+
+    @Test
+    void keysBeyondCapacityShareOverflowStripes() {
+        InMemoryRateLimitBackend backend = new InMemoryRateLimitBackend(100, 16);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(backend.tryAcquire("login:ip", "exact-" + i, 1, WINDOW));
+        }
+        assertEquals(100, backend.size("login:ip"));
+
+        // 超出容量的键落到 16 个溢出条带上，内存不再增长，冲突的键共享计数
+        int accepted = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if (backend.tryAcquire("login:ip", "flood-" + i, 1, WINDOW)) {
+                accepted++;
+            }
+        }
+        assertEquals(100, backend.size("login:ip"));
+        assertTrue(accepted <= 16, "accepted " + accepted);
+
+        // 已有的键仍然精确计数
+        assertFalse(backend.tryAcquire("login:ip", "exact-0", 1, WINDOW));
+    }
+}
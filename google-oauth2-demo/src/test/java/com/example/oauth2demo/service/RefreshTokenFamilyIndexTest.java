@@ -0,0 +1,138 @@
+package com.example.oauth2demo.service;
+
+import com.example.oauth2demo.entity.RefreshTokenFamilyEntity;
+import com.example.oauth2demo.repository.RefreshTokenFamilyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 家族索引测试：以内存 Map 代替 refresh_token_families 表，模拟快照、重启和恢复
+ */
+class RefreshTokenFamilyIndexTest {
+
+    private static final long TTL = 3_600_000;
+
+    private final Map<String, RefreshTokenFamilyEntity> table = new ConcurrentHashMap<>();
+    private RefreshTokenFamilyRepository repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(RefreshTokenFamilyRepository.class);
+        when(repository.save(any())).thenAnswer(invocation -> {
+            RefreshTokenFamilyEntity entity = invocation.getArgument(0);
+            table.put(entity.getFamilyId(), entity);
+            return entity;
+        });
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<RefreshTokenFamilyEntity> entities = invocation.getArgument(0);
+            entities.forEach(entity -> table.put(entity.getFamilyId(), entity));
+            return entities;
+        });
+        when(repository.findById(any())).thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        when(repository.findByExpiresAtAfter(any())).thenAnswer(invocation -> {
+            LocalDateTime time = invocation.getArgument(0);
+            List<RefreshTokenFamilyEntity> alive = new ArrayList<>();
+            table.values().stream().filter(entity -> entity.getExpiresAt().isAfter(time)).forEach(alive::add);
+            return alive;
+        });
+    }
+
+    private RefreshTokenFamilyIndex restart() {
+        RefreshTokenFamilyIndex index = new RefreshTokenFamilyIndex(repository);
+        index.restore();
+        return index;
+    }
+
+    @Test
+    void rotatesAndDetectsReuse() {
+        RefreshTokenFamilyIndex index = restart();
+        UUID family = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        index.startFamily(family, "user-1", first, now + TTL);
+
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.ROTATED,
+            index.rotate(family, first, now, second, now + TTL));
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.REUSE_DETECTED,
+            index.rotate(family, first, now, UUID.randomUUID(), now + TTL));
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.REVOKED,
+            index.rotate(family, second, now, UUID.randomUUID(), now + TTL));
+        // 撤销立即落库
+        assertEquals(true, table.get(family.toString()).isRevoked());
+    }
+
+    @Test
+    void newFamiliesSurviveRestartWithoutSnapshot() {
+        RefreshTokenFamilyIndex index = restart();
+        UUID family = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        long now = System.currentTimeMillis();
+        index.startFamily(family, "user-1", first, now + TTL);
+
+        RefreshTokenFamilyIndex restarted = restart();
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.ROTATED,
+            restarted.rotate(family, first, now, UUID.randomUUID(), now + TTL));
+    }
+
+    @Test
+    void acceptsTokenRotatedAfterTheLastSnapshot() {
+        RefreshTokenFamilyIndex index = restart();
+        UUID family = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        long issuedAt = System.currentTimeMillis() - 10_000;
+        index.startFamily(family, "user-1", first, issuedAt + TTL);
+        // 轮换没有快照就重启：表中仍是 first
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.ROTATED,
+            index.rotate(family, first, issuedAt, second, issuedAt + TTL));
+        long secondIssuedAt = System.currentTimeMillis() + 2_000;
+
+        RefreshTokenFamilyIndex restarted = restart();
+        UUID third = UUID.randomUUID();
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.ROTATED,
+            restarted.rotate(family, second, secondIssuedAt, third, issuedAt + TTL));
+        // 确认之后恢复严格比较：再次出示 second 属于重放
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.REUSE_DETECTED,
+            restarted.rotate(family, second, secondIssuedAt, UUID.randomUUID(), issuedAt + TTL));
+    }
+
+    @Test
+    void rejectsTokensOlderThanTheSnapshot() {
+        RefreshTokenFamilyIndex index = restart();
+        UUID family = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        long firstIssuedAt = System.currentTimeMillis() - 10_000;
+        index.startFamily(family, "user-1", first, firstIssuedAt + TTL);
+        index.rotate(family, first, firstIssuedAt, second, firstIssuedAt + TTL);
+        index.snapshot();
+
+        // 快照记录 second，重启后出示更早签发的 first 是重放
+        RefreshTokenFamilyIndex restarted = restart();
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.REUSE_DETECTED,
+            restarted.rotate(family, first, firstIssuedAt, UUID.randomUUID(), firstIssuedAt + TTL));
+    }
+
+    @Test
+    void unknownFamiliesAreRejected() {
+        RefreshTokenFamilyIndex index = restart();
+        long now = System.currentTimeMillis();
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.UNKNOWN_FAMILY,
+            index.rotate(UUID.randomUUID(), UUID.randomUUID(), now, UUID.randomUUID(), now + TTL));
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.oauth2demo.service;
+
+import com.example.oauth2demo.entity.UserEntity;
+import com.example.oauth2demo.repository.ReferenceTokenRepository;
+import com.example.oauth2demo.repository.RefreshTokenFamilyRepository;
+import com.example.oauth2demo.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 刷新服务测试：签发失败不消耗出示的 refresh token，同一引用令牌并发刷新只有一个成功
+ */
+class TokenRefreshServiceTest {
+
+    private static final long TTL = 3_600_000;
+
+    private final UserEntity user = UserEntity.builder()
+        .id("user-1").username("alice").email("alice@example.com").authorities(Set.of("ROLE_USER")).build();
+    private final JwtTokenService.ReferenceConfig referenceConfig = new JwtTokenService.ReferenceConfig();
+
+    private JwtTokenService jwtTokenService;
+    private ReferenceTokenStore referenceTokenStore;
+    private RefreshTokenFamilyIndex familyIndex;
+    private TokenRefreshService service;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(user));
+        familyIndex = new RefreshTokenFamilyIndex(mock(RefreshTokenFamilyRepository.class));
+        referenceTokenStore = new ReferenceTokenStore(mock(ReferenceTokenRepository.class));
+
+        JwtTokenService.ExpiresConfig expires = new JwtTokenService.ExpiresConfig();
+        expires.setAccessToken(TTL);
+        expires.setRefreshToken(TTL);
+        jwtTokenService = mock(JwtTokenService.class);
+        when(jwtTokenService.getReference()).thenReturn(referenceConfig);
+        when(jwtTokenService.getExpires()).thenReturn(expires);
+        when(jwtTokenService.isReferenceToken(any()))
+            .thenAnswer(invocation -> ReferenceTokenStore.isReferenceHandle(invocation.getArgument(0)));
+        when(jwtTokenService.resolveReferenceToken(anyString()))
+            .thenAnswer(invocation -> referenceTokenStore.lookup(invocation.getArgument(0)));
+        when(jwtTokenService.consumeReferenceRefreshToken(anyString()))
+            .thenAnswer(invocation -> referenceTokenStore.consume(invocation.getArgument(0), ReferenceTokenStore.TokenType.REFRESH));
+        when(jwtTokenService.generateReferenceAccessToken(any(), any(), any(), any()))
+            .thenAnswer(invocation -> referenceTokenStore.issue(ReferenceTokenStore.TokenType.ACCESS,
+                invocation.getArgument(0), invocation.getArgument(2), invocation.getArgument(1),
+                invocation.getArgument(3), "issuer", "audience", TTL));
+        when(jwtTokenService.generateReferenceRefreshToken(any(), any()))
+            .thenAnswer(invocation -> referenceTokenStore.issue(ReferenceTokenStore.TokenType.REFRESH,
+                invocation.getArgument(0), invocation.getArgument(1), null, null, "issuer", null, TTL));
+        when(jwtTokenService.generateAccessToken(any(), any(), any(), any())).thenReturn("access.jwt.token");
+        when(jwtTokenService.generateRefreshToken(any(), any(), any(), any()))
+            .thenAnswer(invocation -> "refresh.jwt." + invocation.getArgument(3));
+
+        service = new TokenRefreshService(userRepository, jwtTokenService, familyIndex);
+    }
+
+    /**
+     * 在家族中登记一个 refresh JWT，返回它的字符串形式（解析结果由 mock 提供）
+     */
+    private String startFamily(UUID familyId, UUID jti) {
+        long now = System.currentTimeMillis();
+        familyIndex.startFamily(familyId, user.getId(), jti, now + TTL);
+        Claims claims = Jwts.claims();
+        claims.setSubject(user.getUsername());
+        claims.setId(jti.toString());
+        claims.setIssuedAt(new Date(now));
+        claims.put("userId", user.getId());
+        claims.put("fid", familyId.toString());
+        String token = "refresh.jwt." + jti;
+        when(jwtTokenService.parseRefreshToken(token)).thenReturn(claims);
+        return token;
+    }
+
+    @Test
+    void disabledReferenceFormatDoesNotConsumeTheRefreshToken() {
+        referenceConfig.setEnabled(false);
+        UUID familyId = UUID.randomUUID();
+        String presented = startFamily(familyId, UUID.randomUUID());
+
+        assertThrows(RuntimeException.class, () -> service.refreshUserTokens(presented, true));
+
+        // 重试同一个 refresh token 不会被当作重放
+        TokenRefreshService.TokenPair pair = service.refreshUserTokens(presented, false);
+        assertNotNull(pair.getRefreshToken());
+    }
+
+    @Test
+    void failedIssuanceDoesNotConsumeTheRefreshToken() {
+        UUID familyId = UUID.randomUUID();
+        String presented = startFamily(familyId, UUID.randomUUID());
+        when(jwtTokenService.generateAccessToken(any(), any(), any(), any()))
+            .thenThrow(new IllegalStateException("signing failed"))
+            .thenReturn("access.jwt.token");
+
+        assertThrows(RuntimeException.class, () -> service.refreshUserTokens(presented, false));
+        assertNotNull(service.refreshUserTokens(presented, false).getRefreshToken());
+    }
+
+    @Test
+    void switchingToReferenceTokensRetiresTheFamily() {
+        referenceConfig.setEnabled(true);
+        UUID familyId = UUID.randomUUID();
+        UUID jti = UUID.randomUUID();
+        String presented = startFamily(familyId, jti);
+
+        TokenRefreshService.TokenPair pair = service.refreshUserTokens(presented, true);
+        assertNotNull(referenceTokenStore.lookup(pair.getRefreshToken()));
+
+        // 家族已结束，不存在从未签发的最新jti
+        assertEquals(RefreshTokenFamilyIndex.RotationResult.REVOKED,
+            familyIndex.rotate(familyId, jti, System.currentTimeMillis(), UUID.randomUUID(), System.currentTimeMillis() + TTL));
+    }
+
+    @Test
+    void concurrentReferenceRefreshesSucceedOnce() throws Exception {
+        referenceConfig.setEnabled(true);
+        String handle = referenceTokenStore.issue(ReferenceTokenStore.TokenType.REFRESH,
+            user.getUsername(), user.getId(), null, null, "issuer", null, TTL);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<TokenRefreshService.TokenPair>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return service.refreshUserTokens(handle);
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            for (Future<TokenRefreshService.TokenPair> result : results) {
+                try {
+                    result.get(5, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (java.util.concurrent.ExecutionException e) {
+                    // 句柄已被另一个请求取出
+                }
+            }
+            assertEquals(1, succeeded);
+            assertNull(referenceTokenStore.lookup(handle));
+            // 失败的请求签发的引用令牌已撤销：只剩下成功请求的一对
+            assertEquals(2, referenceTokenStore.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
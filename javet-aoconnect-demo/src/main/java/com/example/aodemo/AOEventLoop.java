@@ -0,0 +1,308 @@
+package com.example.aodemo;
+
+import com.caoccao.javet.enums.V8AwaitMode;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.engine.IJavetEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单运行时事件循环
+ *
+ * 一个专用线程独占一个预热好的 Node 运行时，在其上并发执行多个 aoconnect Promise：
+ * - 调用方线程只负责入队，立即拿到 CompletableFuture，不占用引擎
+ * - 事件循环线程依次启动排队的调用，然后以 RunNoWait 驱动 Node 事件循环，让所有在途 Promise 同时推进
+ * - Promise 通过 {@link JsPromiseBridge} 回调完成，结果在回调线程池上交付，避免调用方的后续逻辑阻塞事件循环
+ * - 每个调用有独立超时；超时或取消后丢弃其结果（底层网络请求无法中止，但不再占用调用方）
+ * 任务分两类：固定任务（{@link #submit}，如钱包分片的消息）只在本循环上按提交顺序启动；
+ * 可窃取任务（由 {@link AOEventLoopGroup} 分配）在本循环被长时间占住时，可由同组的空闲循环从队尾取走，在自己的运行时上启动。
+ */
+public class AOEventLoop implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AOEventLoop.class);
+
+    // 有在途 Promise 时，两次驱动事件循环之间等待新任务的最长时间
+    private static final long BUSY_POLL_MICROS = 500;
+    // 空闲时等待新任务的最长时间，到期后检查同组循环有没有可窃取的任务
+    private static final long IDLE_POLL_MILLIS = 10;
+
+    /**
+     * 在事件循环线程上启动一次 JS 调用，脚本需要把 Promise 交给 `__javetSettle(callId, promise)`。
+     */
+    @FunctionalInterface
+    public interface JsCall {
+        void start(V8Runtime runtime, int callId) throws JavetException;
+    }
+
+    private final WarmEnginePool enginePool;
+    private final JsPromiseBridge promiseBridge;
+    private final Executor callbackExecutor;
+    private final AOEventLoopGroup group;
+    private final Thread thread;
+    // 固定任务：只能在本循环上启动
+    private final Queue<Task> pinned = new ConcurrentLinkedQueue<>();
+    // 可窃取任务：本循环从队头取，其他循环从队尾窃取
+    private final ConcurrentLinkedDeque<Task> stealable = new ConcurrentLinkedDeque<>();
+    // 有新任务时唤醒事件循环线程
+    private final Semaphore signal = new Semaphore(0);
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder stolen = new LongAdder();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private volatile boolean idle;
+    private volatile boolean running = true;
+
+    public AOEventLoop(WarmEnginePool enginePool, JsPromiseBridge promiseBridge, String name) {
+        this(enginePool, promiseBridge, name, null);
+    }
+
+    AOEventLoop(WarmEnginePool enginePool, JsPromiseBridge promiseBridge, String name, AOEventLoopGroup group) {
+        this.enginePool = enginePool;
+        this.promiseBridge = promiseBridge;
+        this.group = group;
+        this.callbackExecutor = ForkJoinPool.commonPool();
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * 启动事件循环线程，等待其借到并准备好运行时。
+     */
+    public void start() throws JavetException {
+        thread.start();
+        try {
+            ready.join();
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JavetException) {
+                throw (JavetException) cause;
+            }
+            throw new RuntimeException("Failed to start AO event loop", cause != null ? cause : e);
+        }
+    }
+
+    /**
+     * 提交一次固定在本循环运行时上的 JS 调用，同一循环的固定调用按提交顺序启动。
+     *
+     * @param timeoutMs 单次调用的超时时间，超时后 Future 以 TimeoutException 失败
+     */
+    public CompletableFuture<String> submit(JsCall call, long timeoutMs) {
+        return enqueue(call, timeoutMs, false);
+    }
+
+    /**
+     * 提交一次可由同组其他循环窃取的 JS 调用，调用不能依赖特定运行时的状态。
+     */
+    CompletableFuture<String> submitStealable(JsCall call, long timeoutMs) {
+        return enqueue(call, timeoutMs, true);
+    }
+
+    private CompletableFuture<String> enqueue(JsCall call, long timeoutMs, boolean canSteal) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        if (!running) {
+            result.completeExceptionally(new IllegalStateException("AO event loop is closed"));
+            return result;
+        }
+        queued.incrementAndGet();
+        (canSteal ? stealable : pinned).add(new Task(call, result));
+        signal.release();
+        if (!running) {
+            // 循环在入队期间停止，它已清空过队列，这里补上刚加入的任务
+            failQueued();
+        }
+        return result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 由同组空闲循环调用：本循环最早排队的可窃取任务已等待超过 minWaitNanos（说明线程被占住）时，从队尾取走一个
+     */
+    Task steal(long minWaitNanos) {
+        Task oldest = stealable.peekFirst();
+        if (oldest == null || System.nanoTime() - oldest.enqueuedNanos < minWaitNanos) {
+            return null;
+        }
+        Task task = stealable.pollLast();
+        if (task != null) {
+            queued.decrementAndGet();
+        }
+        return task;
+    }
+
+    /**
+     * 唤醒事件循环线程（同组循环有任务可窃取时）
+     */
+    void wake() {
+        signal.release();
+    }
+
+    public String getName() {
+        return thread.getName();
+    }
+
+    /**
+     * 当前在途（已启动、尚未 settle）的调用数
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * 排队等待启动的调用数（固定和可窃取）
+     */
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * 从同组其他循环窃取并启动的调用数
+     */
+    public long getStolenCount() {
+        return stolen.sum();
+    }
+
+    /**
+     * 事件循环线程仍在运行（已关闭或因异常退出时为 false，之后提交的调用立即失败）
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 没有在途调用、正在等待新任务
+     */
+    boolean isIdle() {
+        return idle;
+    }
+
+    private void run() {
+        try (IJavetEngine<V8Runtime> engine = enginePool.getEngine()) {
+            V8Runtime runtime = engine.getV8Runtime();
+            ready.complete(null);
+            logger.info("🔁 AO event loop {} started", thread.getName());
+
+            while (running) {
+                boolean started = drain(runtime);
+                if (!started && group != null) {
+                    Task task = group.steal(this);
+                    if (task != null) {
+                        stolen.increment();
+                        startTask(runtime, task);
+                        started = true;
+                    }
+                }
+                if (inFlight.get() > 0) {
+                    runtime.await(V8AwaitMode.RunNoWait);
+                }
+                if (!started) {
+                    if (inFlight.get() > 0) {
+                        signal.tryAcquire(BUSY_POLL_MICROS, TimeUnit.MICROSECONDS);
+                    } else {
+                        idle = true;
+                        signal.tryAcquire(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                        idle = false;
+                    }
+                    signal.drainPermits();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            if (!ready.isDone()) {
+                ready.completeExceptionally(e);
+                return;
+            }
+            logger.error("AO event loop {} terminated unexpectedly", thread.getName(), e);
+        } finally {
+            running = false;
+            failQueued();
+            logger.info("AO event loop {} stopped", thread.getName());
+        }
+    }
+
+    /**
+     * 启动所有排队的任务：固定任务优先，保证其提交顺序；返回是否启动了任务
+     */
+    private boolean drain(V8Runtime runtime) {
+        boolean started = false;
+        Task task;
+        while ((task = pinned.poll()) != null || (task = stealable.pollFirst()) != null) {
+            queued.decrementAndGet();
+            startTask(runtime, task);
+            started = true;
+        }
+        return started;
+    }
+
+    private void startTask(V8Runtime runtime, Task task) {
+        if (task.result.isDone()) {
+            // 排队期间已被取消或超时
+            return;
+        }
+        JsPromiseBridge.PendingCall call = promiseBridge.newCall();
+        inFlight.incrementAndGet();
+        call.getFuture().whenComplete((value, error) -> inFlight.decrementAndGet());
+        call.getFuture().whenCompleteAsync((value, error) -> {
+            if (error != null) {
+                task.result.completeExceptionally(error);
+            } else {
+                task.result.complete(value);
+            }
+        }, callbackExecutor);
+        // 调用方取消或超时：不再等待 JS 结果
+        task.result.whenComplete((value, error) -> {
+            if (!call.getFuture().isDone()) {
+                promiseBridge.forget(call.getId());
+                call.getFuture().cancel(false);
+            }
+        });
+
+        try {
+            task.call.start(runtime, call.getId());
+        } catch (Exception e) {
+            promiseBridge.forget(call.getId());
+            call.getFuture().completeExceptionally(e);
+        }
+    }
+
+    private void failQueued() {
+        Task task;
+        while ((task = pinned.poll()) != null || (task = stealable.pollFirst()) != null) {
+            queued.decrementAndGet();
+            task.result.completeExceptionally(new IllegalStateException("AO event loop is closed"));
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        signal.release();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failQueued();
+    }
+
+    static final class Task {
+        private final JsCall call;
+        private final CompletableFuture<String> result;
+        private final long enqueuedNanos = System.nanoTime();
+
+        private Task(JsCall call, CompletableFuture<String> result) {
+            this.call = call;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.aodemo;
+
+import com.caoccao.javet.exceptions.JavetException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 事件循环组
+ *
+ * 持有所有 {@link AOEventLoop}，每个循环一个专用线程、独占一个运行时。所有运行时引导方式相同（注册了全部钱包），
+ * 不依赖特定运行时状态的调用（读操作、spawn、JS 签名校验）由组分配：
+ * - 提交时选择排队加在途最少的循环，负载相同时轮流；已停止的循环（关闭或线程异常退出）不参与分配，全部停止时调用失败
+ * - 某个循环被长时间占住（同步 JS 执行、大数据转换）时，其排队最久的任务等待超过 stealAfter 后，空闲循环从队尾窃取，在自己的运行时上启动
+ * 钱包分片的消息和读取某个运行时的堆统计是固定任务，直接提交给对应循环，不会被窃取，保持单个钱包的发送顺序。
+ */
+public class AOEventLoopGroup implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AOEventLoopGroup.class);
+
+    // 可窃取任务在原循环排队超过这个时间才允许窃取，避免正常的事件循环轮转也在循环之间搬任务
+    private static final long STEAL_AFTER_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final List<AOEventLoop> loops = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * @param size 循环数（至少 1），第一个循环名为 ao-event-loop，其余为 ao-event-loop-N
+     */
+    public AOEventLoopGroup(WarmEnginePool enginePool, JsPromiseBridge promiseBridge, int size) {
+        for (int i = 0; i < Math.max(1, size); i++) {
+            loops.add(new AOEventLoop(enginePool, promiseBridge, i == 0 ? "ao-event-loop" : "ao-event-loop-" + i, this));
+        }
+    }
+
+    /**
+     * 依次启动所有循环，每个循环借到并准备好运行时后返回
+     */
+    public void start() throws JavetException {
+        for (AOEventLoop loop : loops) {
+            loop.start();
+        }
+        if (loops.size() > 1) {
+            logger.info("🔁 {} AO event loops started", loops.size());
+        }
+    }
+
+    /**
+     * 提交一次不依赖特定运行时的 JS 调用，分配到当前最空闲的运行中循环，可被其他循环窃取。
+     */
+    public CompletableFuture<String> submit(AOEventLoop.JsCall call, long timeoutMs) {
+        AOEventLoop target;
+        CompletableFuture<String> result;
+        do {
+            target = leastLoaded();
+            if (target == null) {
+                return CompletableFuture.failedFuture(new IllegalStateException("No AO event loop is running"));
+            }
+            result = target.submitStealable(call, timeoutMs);
+            // 选中后循环恰好停止：调用已被拒绝，换一个循环重新提交
+        } while (result.isCompletedExceptionally() && !target.isRunning());
+        if (!target.isIdle() && target.getInFlightCount() > 0) {
+            // 目标正忙，唤醒一个空闲循环，等待超过窃取阈值后由它接手
+            for (AOEventLoop loop : loops) {
+                if (loop != target && loop.isRunning() && loop.isIdle()) {
+                    loop.wake();
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 排队加在途最少的运行中循环，没有运行中的循环时返回 null
+     */
+    private AOEventLoop leastLoaded() {
+        int size = loops.size();
+        if (size == 1) {
+            AOEventLoop only = loops.get(0);
+            return only.isRunning() ? only : null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        AOEventLoop best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            AOEventLoop loop = loops.get((start + i) % size);
+            if (!loop.isRunning()) {
+                // 已停止的循环没有负载，不跳过会一直被选中
+                continue;
+            }
+            int load = loop.getQueuedCount() + loop.getInFlightCount();
+            if (load < bestLoad) {
+                best = loop;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 由没有任务可启动的循环调用：从排队最多的其他循环窃取一个可窃取任务
+     */
+    AOEventLoop.Task steal(AOEventLoop thief) {
+        AOEventLoop victim = null;
+        int most = 0;
+        for (AOEventLoop loop : loops) {
+            int queued = loop.getQueuedCount();
+            if (loop != thief && loop.isRunning() && queued > most) {
+                victim = loop;
+                most = queued;
+            }
+        }
+        return victim == null ? null : victim.steal(STEAL_AFTER_NANOS);
+    }
+
+    public AOEventLoop getLoop(int index) {
+        return loops.get(index);
+    }
+
+    public List<AOEventLoop> getLoops() {
+        return Collections.unmodifiableList(loops);
+    }
+
+    public int size() {
+        return loops.size();
+    }
+
+    /**
+     * 所有循环的在途调用总数
+     */
+    public int getInFlightCount() {
+        int total = 0;
+        for (AOEventLoop loop : loops) {
+            total += loop.getInFlightCount();
+        }
+        return total;
+    }
+
+    /**
+     * 所有循环的排队调用总数
+     */
+    public int getQueuedCount() {
+        int total = 0;
+        for (AOEventLoop loop : loops) {
+            total += loop.getQueuedCount();
+        }
+        return total;
+    }
+
+    /**
+     * 被空闲循环窃取的调用总数
+     */
+    public long getStolenCount() {
+        long total = 0;
+        for (AOEventLoop loop : loops) {
+            total += loop.getStolenCount();
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        for (AOEventLoop loop : loops) {
+            loop.close();
+        }
+        if (loops.size() > 1) {
+            logger.info("AO event loops closed ({} calls stolen)", getStolenCount());
+        }
+    }
+}
@@ -1,21 +1,41 @@
 package com.example.aodemo;
 
-import com.caoccao.javet.enums.JSRuntimeType;
 import com.caoccao.javet.exceptions.JavetException;
 import com.caoccao.javet.interop.V8Runtime;
 import com.caoccao.javet.interop.engine.IJavetEngine;
-import com.caoccao.javet.interop.engine.IJavetEnginePool;
-import com.caoccao.javet.interop.engine.JavetEnginePool;
+import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.reference.V8ValueArrayBuffer;
+import com.caoccao.javet.values.reference.V8ValueObject;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * AO Java Bridge
@@ -27,8 +47,38 @@ public class AOJavaBridge implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(AOJavaBridge.class);
 
     private static final long ASYNC_TIMEOUT_MS = 60_000;
+    private static final String DEFAULT_WALLET_HANDLE = "default";
+    private static final String PROCESS_AUTHORITY = "fcoN_xJeisVsPXA-trzVAuIiqO3ydLQxM-L4XbrQKzY";
+
+    // 引导时编译一次的 helper 函数对象，调用时以 V8 参数传值
+    private static final String BRIDGE_OBJECT = "__aoBridge";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final long HEAP_STATS_TIMEOUT_MS = 2_000;
+    private static final String HEAP_STATS_SCRIPT =
+        "(() => {\n" +
+        "  const h = require('v8').getHeapStatistics();\n" +
+        "  const m = process.memoryUsage();\n" +
+        "  return JSON.stringify({ used_heap_size: h.used_heap_size, total_heap_size: h.total_heap_size,\n" +
+        "    heap_size_limit: h.heap_size_limit, external_memory: m.external, rss: m.rss });\n" +
+        "})()";
 
-    private final IJavetEnginePool<V8Runtime> enginePool;
+    private final WarmEnginePool enginePool;
+    private final JsPromiseBridge promiseBridge = new JsPromiseBridge();
+    private final JsLogBridge jsLog;
+    private final CompileCache compileCache;
+    private final BridgeMetrics metrics;
+    private ObjectName mbeanName;
+    private volatile long lastModuleLoadMillis = -1;
+    private AOEventLoopGroup eventLoops;
+    private MessageBatchSender batchSender;
+    private BulkSpawner bulkSpawner;
+    private IdempotencyIndex idempotency;
+    private ProcessSubscriptions subscriptions;
+    private MessageOutbox outbox;
+    private ReadCache readCache;
+    private NativeMessageSender nativeSender;
+    private WalletShards walletShards;
     private volatile boolean initialized = false;
 
     // AO 网络配置
@@ -38,213 +88,276 @@ public class AOJavaBridge implements AutoCloseable {
     private String aoUrl;
     private String schedulerId;
     private String moduleId;
+    private String proxyUrl;
+
+    // 引擎池配置
+    private int poolSize = 5;
+    private int poolMinWarm = 2;
+    private boolean poolHealthCheck = true;
+    private int batchMaxInFlight = 16;
+    // 事件循环数，0 表示与钱包数相同；不少于钱包数
+    private int eventLoopCount = 0;
+    // 消息流的在途窗口，0 表示 ao.batch.max-in-flight × 钱包数
+    private int streamMaxInFlight = 0;
+
+    // 幂等：带 Idempotency-Key 标签的消息按键去重；auto-key 时没有标签的消息以内容哈希为键
+    private boolean idempotencyAutoKey = false;
+    private long idempotencyTtlMs = 3_600_000;
+    private int idempotencyMaxEntries = 10_000;
+
+    // 进程结果订阅
+    private int subscriptionPageSize = 25;
+    private long subscriptionMinIntervalMs = 500;
+    private long subscriptionMaxIntervalMs = 30_000;
+    private String subscriptionCursorFile = System.getProperty("user.home") + "/.ao-subscriptions/cursors.properties";
+    private String subscriptionStart = "latest";
+
+    // 批量 spawn 配置
+    private int spawnMaxInFlight = 8;
+    private int spawnMaxAttempts = 4;
+    private long spawnRetryBaseMs = 500;
+    private long spawnRetryMaxMs = 10_000;
+    private long spawnTimeoutMs = ASYNC_TIMEOUT_MS;
+
+    // 发件箱配置
+    private boolean outboxEnabled = false;
+    private String outboxDir = System.getProperty("user.home") + "/.ao-outbox";
+    private long outboxSegmentBytes = 16L * 1024 * 1024;
+    private long outboxRetryBaseMs = 1000;
+    private long outboxRetryMaxMs = 60_000;
+
+    // 读缓存配置（result / dry-run）
+    private long readCacheTtlMs = 5_000;
+    private int readCacheMaxEntries = 1024;
+
+    // 消息签名：js（aoconnect createDataItemSigner）或 native（Java 签名后直接发往 MU）
+    private String messageSigning = "js";
+    private int signingThreads = 0;
+
+    // 指标
+    private boolean jmxEnabled = true;
 
-    // 钱包管理
+    // 启动加速：Node 模块编译缓存
+    private boolean compileCacheEnabled = true;
+    private String compileCacheDir = System.getProperty("user.home") + "/.ao-javet/compile-cache";
+
+    // JS 日志配置（默认关闭，热路径不写 stdout）
+    private String jsLogLevel = "off";
+    private double jsLogSampleRate = 1.0;
+
+    // 钱包管理：第一个钱包为默认钱包（spawn、读操作），消息按分片策略分配到所有钱包
     private String walletPath;
+    private List<String> walletPaths;
+    private String walletSharding = "round-robin";
     private String walletJson;
+    private final List<String> walletJsons = new ArrayList<>();
 
     /**
-     * 构造函数 - 初始化 Node.js 运行时的 Javet 引擎池，并加载网络配置与 AOS 钱包。
+     * 构造函数 - 加载网络配置与 AOS 钱包，并创建预热的 Node.js 运行时引擎池。
      */
     public AOJavaBridge() throws JavetException {
+        this(new Properties());
+    }
+
+    /**
+     * 构造函数 - overrides 中的配置项覆盖 application.properties（例如把端点指向本地 stub）。
+     */
+    public AOJavaBridge(Properties overrides) throws JavetException {
+        this(overrides, MetricsRegistry.NOOP);
+    }
+
+    /**
+     * 构造函数 - 额外接入外部指标系统，所有操作延迟和仪表同时转发到 registry。
+     */
+    public AOJavaBridge(Properties overrides, MetricsRegistry registry) throws JavetException {
+        loadConfiguration(overrides);
+        this.metrics = new BridgeMetrics(registry);
+
         // 与纯 JS 测试保持完全一致的代理设置
-        System.setProperty("HTTPS_PROXY", "http://127.0.0.1:1235");
-        System.setProperty("HTTP_PROXY", "http://127.0.0.1:1235");
-        System.setProperty("ALL_PROXY", "http://127.0.0.1:1235");
+        if (!proxyUrl.isEmpty()) {
+            System.setProperty("HTTPS_PROXY", proxyUrl);
+            System.setProperty("HTTP_PROXY", proxyUrl);
+            System.setProperty("ALL_PROXY", proxyUrl);
+        }
         System.setProperty("NODE_TLS_REJECT_UNAUTHORIZED", "0");
 
-        this.enginePool = new JavetEnginePool<>();
-        this.enginePool.getConfig().setJSRuntimeType(JSRuntimeType.Node);
-
-        loadConfiguration();
         initializeWallet();
 
+        // 每个事件循环独占一个运行时（每个钱包至少一个），池中还要留出给其他借用方的引擎
+        eventLoopCount = Math.max(eventLoopCount, walletPaths.size());
+        if (poolSize < eventLoopCount + 1) {
+            logger.warn("⚠️ javet.engine.pool.size {} is too small for {} event loops, using {}",
+                    poolSize, eventLoopCount, eventLoopCount + 1);
+            poolSize = eventLoopCount + 1;
+        }
+        poolMinWarm = Math.max(poolMinWarm, eventLoopCount);
+
+        this.jsLog = new JsLogBridge(jsLogLevel, jsLogSampleRate);
+        this.compileCache = new CompileCache(Paths.get(compileCacheDir), compileCacheEnabled);
+        this.enginePool = new WarmEnginePool(poolSize, poolMinWarm, poolHealthCheck, this::bootstrapRuntime,
+                this::releaseRuntime, metrics);
+
         logger.info("AO Java Bridge initialized with Node.js runtime pool");
         logger.info("AO Network Config - Gateway: {}, MU: {}, CU: {}, Scheduler: {}",
                    gatewayUrl, muUrl, cuUrl, schedulerId);
-        logger.info("Wallet Path: {}", walletPath);
+        logger.info("Wallet Paths: {} (sharding: {})", walletPaths, walletSharding);
+        logger.info("Engine Pool - size: {}, pre-warmed: {}, health check: {}", poolSize, poolMinWarm, poolHealthCheck);
+        logger.info("JS Log - level: {}, sample rate: {}", jsLog.getLevel(), jsLog.getSampleRate());
+        logger.info("Compile Cache - enabled: {}, warm: {}, dir: {}",
+                compileCache.isEnabled(), compileCache.isWarmAtStartup(), compileCache.getDirectory());
     }
 
     /**
-     * 加载 AO 网络配置
+     * 加载 AO 网络配置：application.properties（缺失时使用默认值），再应用 overrides
      */
-    private void loadConfiguration() {
+    private void loadConfiguration(Properties overrides) {
         Properties props = new Properties();
 
         try (InputStream input = getClass().getClassLoader().getResourceAsStream("application.properties")) {
             if (input != null) {
                 props.load(input);
-
-                // 加载 AO 网络配置
-                this.gatewayUrl = props.getProperty("ao.gateway.url", "https://arweave.net");
-                this.muUrl = props.getProperty("ao.mu.url", "https://mu.ao-testnet.xyz");
-                this.cuUrl = props.getProperty("ao.cu.url", "https://cu.ao-testnet.xyz");
-                this.aoUrl = props.getProperty("ao.url", "https://forward.computer");
-                this.schedulerId = props.getProperty("ao.scheduler.id", "_GQ33BkPtZrqxA84vM8Zk-N2aO0toNNu_C-l-rawrBA");
-                this.moduleId = props.getProperty("ao.module.id", "ISShJH1ij-hPPt9St5UFFr_8Ys3Kj5cyg7zrMGt7H9s");
-
                 logger.debug("Loaded AO network configuration successfully");
             } else {
                 logger.warn("application.properties not found, using default configuration");
-                // 使用默认配置
-                this.gatewayUrl = "https://arweave.net";
-                this.muUrl = "https://mu.ao-testnet.xyz";
-                this.cuUrl = "https://cu.ao-testnet.xyz";
-                this.aoUrl = "https://forward.computer";
-                this.schedulerId = "_GQ33BkPtZrqxA84vM8Zk-N2aO0toNNu_C-l-rawrBA";
-                this.moduleId = "ISShJH1ij-hPPt9St5UFFr_8Ys3Kj5cyg7zrMGt7H9s";
             }
         } catch (IOException e) {
             logger.error("Failed to load configuration", e);
-            // 使用默认配置
-            this.gatewayUrl = "https://arweave.net";
-            this.muUrl = "https://mu.ao-testnet.xyz";
-            this.cuUrl = "https://cu.ao-testnet.xyz";
-            this.aoUrl = "https://forward.computer";
-            this.schedulerId = "_GQ33BkPtZrqxA84vM8Zk-N2aO0toNNu_C-l-rawrBA";
-            this.moduleId = "ISShJH1ij-hPPt9St5UFFr_8Ys3Kj5cyg7zrMGt7H9s";
         }
+        props.putAll(overrides);
+
+        // 加载 AO 网络配置
+        this.gatewayUrl = props.getProperty("ao.gateway.url", "https://arweave.net");
+        this.muUrl = props.getProperty("ao.mu.url", "https://mu.ao-testnet.xyz");
+        this.cuUrl = props.getProperty("ao.cu.url", "https://cu.ao-testnet.xyz");
+        this.aoUrl = props.getProperty("ao.url", "https://forward.computer");
+        this.schedulerId = props.getProperty("ao.scheduler.id", "_GQ33BkPtZrqxA84vM8Zk-N2aO0toNNu_C-l-rawrBA");
+        this.moduleId = props.getProperty("ao.module.id", "ISShJH1ij-hPPt9St5UFFr_8Ys3Kj5cyg7zrMGt7H9s");
+        this.proxyUrl = props.getProperty("ao.proxy.url", "http://127.0.0.1:1235").trim();
+        this.walletPath = props.getProperty("ao.wallet.path", System.getProperty("user.home") + "/.aos.json");
+        String paths = props.getProperty("ao.wallet.paths", "").trim();
+        this.walletPaths = new ArrayList<>();
+        if (paths.isEmpty()) {
+            walletPaths.add(walletPath);
+        } else {
+            for (String path : paths.split(",")) {
+                if (!path.trim().isEmpty()) {
+                    walletPaths.add(path.trim());
+                }
+            }
+            this.walletPath = walletPaths.get(0);
+        }
+        this.walletSharding = props.getProperty("ao.wallet.sharding", walletSharding);
+
+        // 加载引擎池配置
+        this.poolSize = Integer.parseInt(props.getProperty("javet.engine.pool.size", "5"));
+        this.poolMinWarm = Integer.parseInt(props.getProperty("javet.engine.pool.min-warm", "2"));
+        this.poolHealthCheck = Boolean.parseBoolean(props.getProperty("javet.engine.pool.health-check", "true"));
+        this.batchMaxInFlight = Integer.parseInt(props.getProperty("ao.batch.max-in-flight", "16"));
+        this.eventLoopCount = Integer.parseInt(props.getProperty("ao.event-loop.count", String.valueOf(eventLoopCount)));
+        this.streamMaxInFlight = Integer.parseInt(props.getProperty("ao.stream.max-in-flight", String.valueOf(streamMaxInFlight)));
+        this.idempotencyAutoKey = Boolean.parseBoolean(props.getProperty("ao.idempotency.auto-key", String.valueOf(idempotencyAutoKey)));
+        this.idempotencyTtlMs = Long.parseLong(props.getProperty("ao.idempotency.ttl-ms", String.valueOf(idempotencyTtlMs)));
+        this.idempotencyMaxEntries = Integer.parseInt(props.getProperty("ao.idempotency.max-entries", String.valueOf(idempotencyMaxEntries)));
+        this.subscriptionPageSize = Integer.parseInt(props.getProperty("ao.subscription.page-size", String.valueOf(subscriptionPageSize)));
+        this.subscriptionMinIntervalMs = Long.parseLong(props.getProperty("ao.subscription.min-interval-ms", String.valueOf(subscriptionMinIntervalMs)));
+        this.subscriptionMaxIntervalMs = Long.parseLong(props.getProperty("ao.subscription.max-interval-ms", String.valueOf(subscriptionMaxIntervalMs)));
+        this.subscriptionCursorFile = props.getProperty("ao.subscription.cursor-file", subscriptionCursorFile).trim();
+        this.subscriptionStart = props.getProperty("ao.subscription.start", subscriptionStart).trim();
+        this.spawnMaxInFlight = Integer.parseInt(props.getProperty("ao.spawn.max-in-flight", String.valueOf(spawnMaxInFlight)));
+        this.spawnMaxAttempts = Integer.parseInt(props.getProperty("ao.spawn.max-attempts", String.valueOf(spawnMaxAttempts)));
+        this.spawnRetryBaseMs = Long.parseLong(props.getProperty("ao.spawn.retry-base-ms", String.valueOf(spawnRetryBaseMs)));
+        this.spawnRetryMaxMs = Long.parseLong(props.getProperty("ao.spawn.retry-max-ms", String.valueOf(spawnRetryMaxMs)));
+        this.spawnTimeoutMs = Long.parseLong(props.getProperty("ao.spawn.timeout-ms", String.valueOf(spawnTimeoutMs)));
+        this.outboxEnabled = Boolean.parseBoolean(props.getProperty("ao.outbox.enabled", "false"));
+        this.outboxDir = props.getProperty("ao.outbox.dir", outboxDir);
+        this.outboxSegmentBytes = Long.parseLong(props.getProperty("ao.outbox.segment-bytes", String.valueOf(outboxSegmentBytes)));
+        this.outboxRetryBaseMs = Long.parseLong(props.getProperty("ao.outbox.retry-base-ms", String.valueOf(outboxRetryBaseMs)));
+        this.outboxRetryMaxMs = Long.parseLong(props.getProperty("ao.outbox.retry-max-ms", String.valueOf(outboxRetryMaxMs)));
+        this.readCacheTtlMs = Long.parseLong(props.getProperty("ao.read.cache-ttl-ms", String.valueOf(readCacheTtlMs)));
+        this.readCacheMaxEntries = Integer.parseInt(props.getProperty("ao.read.cache-max-entries", String.valueOf(readCacheMaxEntries)));
+        this.messageSigning = props.getProperty("ao.message.signing", messageSigning).trim();
+        this.signingThreads = Integer.parseInt(props.getProperty("ao.message.signing-threads", String.valueOf(signingThreads)));
+        this.jmxEnabled = Boolean.parseBoolean(props.getProperty("ao.metrics.jmx.enabled", String.valueOf(jmxEnabled)));
+        this.compileCacheEnabled = Boolean.parseBoolean(props.getProperty("ao.startup.compile-cache.enabled", String.valueOf(compileCacheEnabled)));
+        this.compileCacheDir = props.getProperty("ao.startup.compile-cache.dir", compileCacheDir);
+        this.jsLogLevel = props.getProperty("ao.js.log.level", jsLogLevel);
+        this.jsLogSampleRate = Double.parseDouble(props.getProperty("ao.js.log.sample-rate", String.valueOf(jsLogSampleRate)));
     }
 
     /**
-     * 初始化钱包 - 检查是否存在钱包文件，如果不存在则创建
+     * 初始化钱包 - 读取所有钱包文件，缺少任何一个都直接失败
      */
     private void initializeWallet() {
-        String userHome = System.getProperty("user.home");
-        this.walletPath = userHome + "/.aos.json";
-        Path walletFile = Paths.get(walletPath);
-        if (!Files.exists(walletFile)) {
-            throw new RuntimeException("Wallet not found. Please run AOS CLI once to create ~/.aos.json");
-        }
-        try {
-            walletJson = Files.readString(walletFile);
-            logger.info("✅ Wallet loaded from {}", walletPath);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read wallet file", e);
+        for (String path : walletPaths) {
+            Path walletFile = Paths.get(path);
+            if (!Files.exists(walletFile)) {
+                throw new RuntimeException("Wallet not found at " + path + ". Please run AOS CLI once to create ~/.aos.json");
+            }
+            try {
+                walletJsons.add(Files.readString(walletFile));
+                logger.info("✅ Wallet loaded from {}", path);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read wallet file", e);
+            }
         }
+        walletJson = walletJsons.get(0);
     }
 
     /**
-     * 初始化桥接：配置 Node 运行时环境、加载 `@permaweb/aoconnect`，并完全复刻 AOS CLI 的 Legacy 流程。
+     * 钱包在运行时中的签名器句柄，第一个钱包沿用默认句柄
+     */
+    private static String walletHandle(int index) {
+        return index == 0 ? DEFAULT_WALLET_HANDLE : "wallet-" + index;
+    }
+
+    /**
+     * 初始化桥接：预热引擎池（每个运行时执行一次 {@link #bootstrapRuntime}），并检查 AO Legacy 网络连接。
      */
     public synchronized void initialize() throws JavetException {
         if (initialized) {
             return;
         }
 
-        try (IJavetEngine<V8Runtime> engine = enginePool.getEngine()) {
-            V8Runtime runtime = engine.getV8Runtime();
+        logger.info("=== AO Legacy Network Connection (AOS Style) ===");
+        logger.info("Connecting to AO Legacy network using AOS configuration...");
 
-            logger.info("Node runtime info: version={}, napi={}",
-                    runtime.getExecutor("process.version").executeString(),
-                    runtime.getExecutor("process.versions.napi").executeString());
+        try {
+            enginePool.warmUp();
 
-            logger.info("=== AO Legacy Network Connection (AOS Style) ===");
-            logger.info("Connecting to AO Legacy network using AOS configuration...");
+            try (IJavetEngine<V8Runtime> engine = enginePool.getEngine()) {
+                V8Runtime runtime = engine.getV8Runtime();
 
-            String httpsProxy = System.getenv("HTTPS_PROXY");
-            if (httpsProxy == null || httpsProxy.isEmpty()) {
-                httpsProxy = System.getProperty("HTTPS_PROXY", "http://127.0.0.1:1235");
-            }
-            String httpProxy = System.getenv("HTTP_PROXY");
-            if (httpProxy == null || httpProxy.isEmpty()) {
-                httpProxy = System.getProperty("HTTP_PROXY", "http://127.0.0.1:1235");
-            }
-            String allProxy = System.getenv("ALL_PROXY");
-            if (allProxy == null || allProxy.isEmpty()) {
-                allProxy = System.getProperty("ALL_PROXY", httpProxy);
+                logger.info("Node runtime info: version={}, napi={}",
+                        runtime.getExecutor("process.version").executeString(),
+                        runtime.getExecutor("process.versions.napi").executeString());
+
+                logger.info("Testing AO Legacy network connection...");
+                testAONetworkConnection(runtime);
             }
 
-            String envScript = String.format(
-                "process.env.HTTPS_PROXY = `%s`;\n" +
-                "process.env.HTTP_PROXY = `%s`;\n" +
-                "process.env.ALL_PROXY = `%s`;\n" +
-                "process.env.GATEWAY_URL = `%s`;\n" +
-                "process.env.CU_URL = `%s`;\n" +
-                "process.env.MU_URL = `%s`;\n" +
-                "process.env.SCHEDULER = `%s`;\n" +
-                "process.env.AO_URL = `%s`;\n" +
-                "process.env.ARWEAVE_GRAPHQL = 'https://arweave.net/graphql';\n" +
-                "process.env.NODE_TLS_REJECT_UNAUTHORIZED = '0';\n" +
-                "const { ProxyAgent } = require('undici');\n" +
-                "const proxyUrl = process.env.HTTPS_PROXY || process.env.HTTP_PROXY || process.env.ALL_PROXY;\n" +
-                "const proxyAgent = proxyUrl ? new ProxyAgent(proxyUrl) : null;\n" +
-                "const originalFetch = globalThis.fetch;\n" +
-                "globalThis.fetch = function(url, options = {}) {\n" +
-                "  const finalOptions = { ...options };\n" +
-                "  if (proxyAgent && typeof url === 'string' && url.startsWith('http')) {\n" +
-                "    finalOptions.dispatcher = proxyAgent;\n" +
-                "  }\n" +
-                "  console.log('🌐 FETCH via ProxyAgent:', url);\n" +
-                "  return originalFetch(url, finalOptions)\n" +
-                "    .then(res => {\n" +
-                "      console.log('✅ FETCH response:', url, res.status, res.statusText);\n" +
-                "      return res;\n" +
-                "    })\n" +
-                "    .catch(err => {\n" +
-                "      console.log('❌ FETCH error:', url, err.message);\n" +
-                "      throw err;\n" +
-                "    });\n" +
-                "};\n" +
-                "console.log('🔧 Node.js proxy environment configured (AOS style)');",
-                escapeForTemplate(httpsProxy),
-                escapeForTemplate(httpProxy),
-                escapeForTemplate(allProxy),
-                escapeForTemplate(gatewayUrl),
-                escapeForTemplate(cuUrl),
-                escapeForTemplate(muUrl),
-                escapeForTemplate(schedulerId),
-                escapeForTemplate(aoUrl)
-            );
-
-            logger.info("1. Setting Node.js environment and proxy (AOS style)...");
-            runtime.getExecutor(envScript).executeVoid();
-
-            logger.info("2. Loading aoconnect SDK...");
-            runtime.getExecutor("globalThis.aoconnectModule = require('@permaweb/aoconnect');").executeVoid();
-
-            logger.info("3. Preparing spawn/message helpers...");
-            String setupScript =
-                "const { spawn, createDataItemSigner } = globalThis.aoconnectModule;\n" +
-                "globalThis.spawnProcess = async function({ wallet, src, tags, data }) {\n" +
-                "  console.log('🚀 Using AOS-style spawn process (Javet version)...');\n" +
-                "  const signer = createDataItemSigner(wallet);\n" +
-                "  const aosTags = tags.concat([{ name: 'aos-Version', value: '2.0.7' }]);\n" +
-                "  const spawnParams = {\n" +
-                "    module: src,\n" +
-                "    scheduler: globalThis.SCHEDULER,\n" +
-                "    signer: signer,\n" +
-                "    tags: aosTags,\n" +
-                "    data: data || ''\n" +
-                "  };\n" +
-                "  console.log('📦 Module:', spawnParams.module);\n" +
-                "  console.log('🎯 Scheduler:', spawnParams.scheduler);\n" +
-                "  console.log('🏷️ Tags:', spawnParams.tags.map(t => `${t.name}=${t.value}`).join(', '));\n" +
-                "  try {\n" +
-                "    const result = await spawn(spawnParams);\n" +
-                "    console.log('📥 Spawn result:', result);\n" +
-                "    if (typeof result === 'object' && result.id) { return result.id; }\n" +
-                "    if (typeof result === 'string') { return result; }\n" +
-                "    return result;\n" +
-                "  } catch (error) {\n" +
-                "    console.error('❌ Spawn error in Node.js runtime:', error.message);\n" +
-                "    throw error;\n" +
-                "  }\n" +
-                "};\n" +
-                "globalThis.aoconnect = globalThis.aoconnectModule;\n";
-            runtime.getExecutor(setupScript).executeVoid();
-
-            logger.info("4. Configuring AO Legacy network connection (AOS style)...");
-            configureAONetworkConnection(runtime);
-
-            logger.info("5. Verifying aoconnect SDK...");
-            runtime.getExecutor("if (typeof aoconnect === 'undefined') { throw new Error('aoconnect SDK not loaded'); }").executeVoid();
-
-            logger.info("6. Testing AO Legacy network connection...");
-            testAONetworkConnection(runtime);
+            startWalletShards();
+            readCache = new ReadCache(readCacheTtlMs, readCacheMaxEntries);
+            idempotency = new IdempotencyIndex(idempotencyTtlMs, idempotencyMaxEntries);
+            batchSender = new MessageBatchSender(message -> dispatchMessage(message, Duration.ofMillis(ASYNC_TIMEOUT_MS)), batchMaxInFlight);
+            // 每个运行时都注册了全部钱包，批量 spawn 由事件循环组分散到所有循环上，仍以默认钱包签名
+            bulkSpawner = new BulkSpawner(spec -> dispatchSpawn(spec, Duration.ofMillis(spawnTimeoutMs)),
+                    spawnMaxInFlight, spawnMaxAttempts, spawnRetryBaseMs, spawnRetryMaxMs);
+
+            if (outboxEnabled) {
+                outbox = new MessageOutbox(Paths.get(outboxDir), outboxSegmentBytes,
+                        message -> dispatchMessage(message, Duration.ofMillis(ASYNC_TIMEOUT_MS)),
+                        outboxRetryBaseMs, outboxRetryMaxMs);
+                outbox.open();
+            }
+            subscriptions = new ProcessSubscriptions(
+                    (processId, from, sort, limit) -> resultsAsync(processId, from, null, sort, limit),
+                    subscriptionCursorFile.isEmpty() ? null : Paths.get(subscriptionCursorFile),
+                    subscriptionPageSize, subscriptionMinIntervalMs, subscriptionMaxIntervalMs);
+            subscriptions.open();
+            registerMetrics();
 
             logger.info("✅ AO Legacy network connection established successfully!");
-            logger.info("@permaweb/aoconnect ready inside Node runtime (AOS style)");
+            logger.info("@permaweb/aoconnect ready inside every pooled Node runtime (AOS style)");
             initialized = true;
 
         } catch (Exception e) {
@@ -255,6 +368,243 @@ public class AOJavaBridge implements AutoCloseable {
         }
     }
 
+    /**
+     * 启动事件循环组（ao.event-loop.count 个循环，每个独占一个运行时），第 i 个钱包的消息固定在第 i 个循环上
+     * （native 签名时另建签名器）；spawn 和读操作由组分配到任意循环。
+     */
+    private void startWalletShards() throws JavetException {
+        boolean nativeSigning = "native".equalsIgnoreCase(messageSigning);
+        int totalSigningThreads = signingThreads > 0 ? signingThreads : Runtime.getRuntime().availableProcessors();
+        int threadsPerWallet = Math.max(1, totalSigningThreads / walletJsons.size());
+
+        eventLoops = new AOEventLoopGroup(enginePool, promiseBridge, eventLoopCount);
+        eventLoops.start();
+        walletShards = new WalletShards(WalletShards.Policy.parse(walletSharding));
+        for (int i = 0; i < walletJsons.size(); i++) {
+            DataItemSigner signer = DataItemSigner.fromJwk(walletJsons.get(i));
+            NativeMessageSender sender = nativeSigning
+                    ? new NativeMessageSender(signer, muUrl, proxyUrl, threadsPerWallet)
+                    : null;
+            // JS 签名时带幂等键的消息也在 Java 中签名：JS 侧超时的那次发送仍可能到达 MU，重发必须是同一个 DataItem
+            NativeMessageSender idempotentSender = sender != null
+                    ? sender
+                    : new NativeMessageSender(signer, muUrl, proxyUrl, 1);
+            walletShards.add(walletHandle(i), eventLoops.getLoop(i), sender, idempotentSender);
+        }
+        nativeSender = walletShards.getShards().get(0).getNativeSender();
+        if (walletJsons.size() > 1) {
+            logger.info("👛 {} wallet shards started ({})", walletJsons.size(), walletShards.getPolicy());
+        }
+    }
+
+    /**
+     * 运行时关闭前解除引导时绑定的 Java 回调，由 {@link WarmEnginePool} 调用。
+     */
+    private void releaseRuntime(V8Runtime runtime) throws JavetException {
+        promiseBridge.uninstall(runtime);
+        jsLog.uninstall(runtime);
+    }
+
+    /**
+     * 运行时引导：配置 Node 运行时环境、加载 `@permaweb/aoconnect`，并完全复刻 AOS CLI 的 Legacy 流程。
+     * 由 {@link WarmEnginePool} 在每个运行时上执行一次。
+     */
+    private void bootstrapRuntime(V8Runtime runtime) throws JavetException {
+        String httpsProxy = System.getenv("HTTPS_PROXY");
+        if (httpsProxy == null || httpsProxy.isEmpty()) {
+            httpsProxy = proxyUrl;
+        }
+        String httpProxy = System.getenv("HTTP_PROXY");
+        if (httpProxy == null || httpProxy.isEmpty()) {
+            httpProxy = proxyUrl;
+        }
+        String allProxy = System.getenv("ALL_PROXY");
+        if (allProxy == null || allProxy.isEmpty()) {
+            allProxy = httpProxy;
+        }
+
+        // 脚本包在块作用域中，健康检查失败后重新引导时不会因重复声明 const 而报错
+        String envScript = String.format(
+            "{\n" +
+            "process.env.HTTPS_PROXY = `%s`;\n" +
+            "process.env.HTTP_PROXY = `%s`;\n" +
+            "process.env.ALL_PROXY = `%s`;\n" +
+            "process.env.GATEWAY_URL = `%s`;\n" +
+            "process.env.CU_URL = `%s`;\n" +
+            "process.env.MU_URL = `%s`;\n" +
+            "process.env.SCHEDULER = `%s`;\n" +
+            "process.env.AO_URL = `%s`;\n" +
+            "process.env.ARWEAVE_GRAPHQL = 'https://arweave.net/graphql';\n" +
+            "process.env.NODE_TLS_REJECT_UNAUTHORIZED = '0';\n" +
+            "const { ProxyAgent } = require('undici');\n" +
+            "const proxyUrl = process.env.HTTPS_PROXY || process.env.HTTP_PROXY || process.env.ALL_PROXY;\n" +
+            "const proxyAgent = proxyUrl ? new ProxyAgent(proxyUrl) : null;\n" +
+            "globalThis.__aoOriginalFetch = globalThis.__aoOriginalFetch || globalThis.fetch;\n" +
+            "const originalFetch = globalThis.__aoOriginalFetch;\n" +
+            "globalThis.fetch = function(url, options = {}) {\n" +
+            "  const finalOptions = { ...options };\n" +
+            "  if (proxyAgent && typeof url === 'string' && url.startsWith('http') && !/^https?:\\/\\/(127\\.0\\.0\\.1|localhost)[:\\/]/.test(url)) {\n" +
+            "    finalOptions.dispatcher = proxyAgent;\n" +
+            "  }\n" +
+            "  if (!__aoLog.enabled('debug')) {\n" +
+            "    return originalFetch(url, finalOptions).catch(err => {\n" +
+            "      __aoLog('warn', 'fetch.error', { url: String(url), error: err.message });\n" +
+            "      throw err;\n" +
+            "    });\n" +
+            "  }\n" +
+            "  const started = Date.now();\n" +
+            "  __aoLog('debug', 'fetch.request', { url: String(url), proxied: !!finalOptions.dispatcher });\n" +
+            "  return originalFetch(url, finalOptions)\n" +
+            "    .then(res => {\n" +
+            "      __aoLog('debug', 'fetch.response', { url: String(url), status: res.status, ms: Date.now() - started });\n" +
+            "      return res;\n" +
+            "    })\n" +
+            "    .catch(err => {\n" +
+            "      __aoLog('warn', 'fetch.error', { url: String(url), error: err.message, ms: Date.now() - started });\n" +
+            "      throw err;\n" +
+            "    });\n" +
+            "};\n" +
+            "__aoLog('info', 'env.configured', { proxy: proxyUrl || null });\n" +
+            "}",
+            escapeForTemplate(httpsProxy),
+            escapeForTemplate(httpProxy),
+            escapeForTemplate(allProxy),
+            escapeForTemplate(gatewayUrl),
+            escapeForTemplate(cuUrl),
+            escapeForTemplate(muUrl),
+            escapeForTemplate(schedulerId),
+            escapeForTemplate(aoUrl)
+        );
+
+        logger.debug("0. Installing JS log bridge...");
+        jsLog.install(runtime);
+
+        // 必须在 envScript 的 require('undici') 之前启用
+        logger.debug("0.1 Enabling Node compile cache: {}", compileCache.enable(runtime));
+
+        logger.debug("1. Setting Node.js environment and proxy (AOS style)...");
+        runtime.getExecutor(envScript).executeVoid();
+
+        logger.debug("2. Loading aoconnect SDK...");
+        long loadStart = System.nanoTime();
+        runtime.getExecutor("globalThis.aoconnectModule = require('@permaweb/aoconnect');").executeVoid();
+        compileCache.flush(runtime);
+        lastModuleLoadMillis = (System.nanoTime() - loadStart) / 1_000_000;
+        logger.debug("2.1 aoconnect loaded in {} ms", lastModuleLoadMillis);
+
+        logger.debug("3. Preparing spawn/message helpers...");
+        String setupScript =
+            "{\n" +
+            "const { spawn, createDataItemSigner } = globalThis.aoconnectModule;\n" +
+            "const signers = globalThis.__aoSigners = globalThis.__aoSigners || new Map();\n" +
+            "globalThis.__aoRegisterWallet = function(handle, walletJson) {\n" +
+            "  signers.set(handle, createDataItemSigner(JSON.parse(walletJson)));\n" +
+            "};\n" +
+            "globalThis.__aoSigner = function(handle) {\n" +
+            "  const signer = signers.get(handle);\n" +
+            "  if (!signer) { throw new Error('Unknown wallet handle: ' + handle); }\n" +
+            "  return signer;\n" +
+            "};\n" +
+            "globalThis.spawnProcess = async function({ signer, src, tags, data }) {\n" +
+            "  const aosTags = tags.concat([{ name: 'aos-Version', value: '2.0.7' }]);\n" +
+            "  const spawnParams = {\n" +
+            "    module: src,\n" +
+            "    scheduler: globalThis.SCHEDULER,\n" +
+            "    signer: signer,\n" +
+            "    tags: aosTags,\n" +
+            "    data: data || ''\n" +
+            "  };\n" +
+            "  if (__aoLog.enabled('debug')) {\n" +
+            "    __aoLog('debug', 'spawn.request', {\n" +
+            "      module: spawnParams.module,\n" +
+            "      scheduler: spawnParams.scheduler,\n" +
+            "      tags: spawnParams.tags.map(t => `${t.name}=${t.value}`)\n" +
+            "    });\n" +
+            "  }\n" +
+            "  try {\n" +
+            "    const result = await spawn(spawnParams);\n" +
+            "    __aoLog('info', 'spawn.result', { id: result && result.id ? result.id : result });\n" +
+            "    if (typeof result === 'object' && result.id) { return result.id; }\n" +
+            "    if (typeof result === 'string') { return result; }\n" +
+            "    return result;\n" +
+            "  } catch (error) {\n" +
+            "    __aoLog('error', 'spawn.error', { module: src, error: error.message });\n" +
+            "    throw error;\n" +
+            "  }\n" +
+            "};\n" +
+            "globalThis.aoconnect = globalThis.aoconnectModule;\n" +
+            "globalThis.__aoClient = undefined;\n" +
+            "const client = () => globalThis.__aoClient || (globalThis.__aoClient = globalThis.aoconnect.connect({\n" +
+            "  MODE: 'legacy',\n" +
+            "  GATEWAY_URL: globalThis.GATEWAY_URL,\n" +
+            "  MU_URL: globalThis.MU_URL,\n" +
+            "  CU_URL: globalThis.CU_URL\n" +
+            "}));\n" +
+            "// 二进制消息数据以 ArrayBuffer 传入，包装成 Uint8Array 视图（不复制）交给 aoconnect\n" +
+            "const messageData = (data) => data instanceof ArrayBuffer ? new Uint8Array(data) : data;\n" +
+            "globalThis.__aoBridge = {\n" +
+            "  spawn(callId, signerHandle, moduleId, tags, data) {\n" +
+            "    __javetSettle(callId, (async () => globalThis.spawnProcess({\n" +
+            "      signer: __aoSigner(signerHandle),\n" +
+            "      src: moduleId,\n" +
+            "      tags,\n" +
+            "      data\n" +
+            "    }))());\n" +
+            "  },\n" +
+            "  message(callId, signerHandle, processId, tags, data) {\n" +
+            "    __javetSettle(callId, (async () => client().message({\n" +
+            "      process: processId,\n" +
+            "      signer: __aoSigner(signerHandle),\n" +
+            "      tags,\n" +
+            "      data: messageData(data)\n" +
+            "    }))());\n" +
+            "  },\n" +
+            "  result(callId, processId, messageId) {\n" +
+            "    __javetSettle(callId, (async () => client().result({ process: processId, message: messageId }))());\n" +
+            "  },\n" +
+            "  results(callId, processId, from, to, sort, limit) {\n" +
+            "    __javetSettle(callId, (async () => client().results({\n" +
+            "      process: processId,\n" +
+            "      from: from || undefined,\n" +
+            "      to: to || undefined,\n" +
+            "      sort: sort || undefined,\n" +
+            "      limit: limit || undefined\n" +
+            "    }))());\n" +
+            "  },\n" +
+            "  dryrun(callId, processId, tags, data) {\n" +
+            "    __javetSettle(callId, (async () => client().dryrun({ process: processId, tags, data }))());\n" +
+            "  },\n" +
+            "  sign(callId, signerHandle, target, tags, data) {\n" +
+            "    __javetSettle(callId, (async () => {\n" +
+            "      const item = await __aoSigner(signerHandle)({ data: messageData(data), tags, target });\n" +
+            "      return { id: item.id, raw: Buffer.from(item.raw).toString('base64') };\n" +
+            "    })());\n" +
+            "  }\n" +
+            "};\n" +
+            "}\n";
+        runtime.getExecutor(setupScript).executeVoid();
+        promiseBridge.install(runtime);
+
+        logger.debug("3.1 Registering wallet signer...");
+        for (int i = 0; i < walletJsons.size(); i++) {
+            registerWallet(runtime, walletHandle(i), walletJsons.get(i));
+        }
+
+        logger.debug("4. Configuring AO Legacy network connection (AOS style)...");
+        configureAONetworkConnection(runtime);
+
+        logger.debug("5. Verifying aoconnect SDK...");
+        runtime.getExecutor("if (typeof aoconnect === 'undefined') { throw new Error('aoconnect SDK not loaded'); }").executeVoid();
+    }
+
+    /**
+     * 在运行时中解析钱包并缓存 DataItem 签名器，之后的调用只通过句柄引用签名器。
+     * 钱包 JSON 作为 V8 字符串参数传入，不拼接进脚本源码。
+     */
+    private void registerWallet(V8Runtime runtime, String handle, String wallet) throws JavetException {
+        runtime.getGlobalObject().invokeVoid("__aoRegisterWallet", handle, wallet);
+    }
+
     /**
      * 配置 AO Legacy 网络的全局变量，供 JS 侧使用。
      */
@@ -267,7 +617,7 @@ public class AOJavaBridge implements AutoCloseable {
             "globalThis.CU_URL = '%s';\n" +
             "globalThis.SCHEDULER = '%s';\n" +
             "globalThis.MODULE_ID = '%s';\n" +
-            "console.log('✅ AO Environment configured (V8 mode):', {GATEWAY_URL, MU_URL, CU_URL, SCHEDULER, MODULE_ID});",
+            "__aoLog('info', 'network.configured', {GATEWAY_URL, MU_URL, CU_URL, SCHEDULER, MODULE_ID});",
             gatewayUrl, muUrl, cuUrl, schedulerId, moduleId
         );
 
@@ -284,7 +634,7 @@ public class AOJavaBridge implements AutoCloseable {
                 "try {\n" +
                 "  return typeof globalThis.aoconnect !== 'undefined' && typeof globalThis.aoconnect.connect === 'function';\n" +
                 "} catch (e) {\n" +
-                "  console.log('Connection test error:', e.message);\n" +
+                "  __aoLog('warn', 'connection.test.error', { error: e.message });\n" +
                 "  return false;\n" +
                 "}"
             ).executeBoolean();
@@ -303,125 +653,371 @@ public class AOJavaBridge implements AutoCloseable {
      * 创建真实 AO 进程，返回 43 字符的 Arweave/AO 交易 ID。
      */
     public String spawnProcess() throws JavetException {
-        ensureInitialized();
-
         logger.info("=== Real AO Process Creation (AOS Style) ===");
         logger.info("Creating real AO process using aoconnect.connect().spawn()...");
+        return awaitResult(spawnProcessAsync());
+    }
 
-        try (IJavetEngine<V8Runtime> engine = enginePool.getEngine()) {
-            V8Runtime runtime = engine.getV8Runtime();
-
-            runtime.getExecutor("globalThis.__javetSpawnResult=undefined;globalThis.__javetSpawnError=undefined;").executeVoid();
-
-            String asyncScript = String.format(
-                "(async () => {\n" +
-                "  try {\n" +
-                "    const wallet = JSON.parse(`%s`);\n" +
-                "    const processName = 'javet-demo-' + Date.now();\n" +
-                "    const result = await globalThis.spawnProcess({\n" +
-                "      wallet,\n" +
-                "      src: '%s',\n" +
-                "      tags: [\n" +
-                "        { name: 'App-Name', value: 'javet-aoconnect-demo' },\n" +
-                "        { name: 'Name', value: processName },\n" +
-                "        { name: 'Authority', value: 'fcoN_xJeisVsPXA-trzVAuIiqO3ydLQxM-L4XbrQKzY' }\n" +
-                "      ],\n" +
-                "      data: ''\n" +
-                "    });\n" +
-                "    globalThis.__javetSpawnResult = result;\n" +
-                "  } catch (error) {\n" +
-                "    globalThis.__javetSpawnError = error ? (error.message || String(error)) : 'Unknown error';\n" +
-                "  }\n" +
-                "})();",
-                escapeForTemplate(walletJson),
-                moduleId
-            );
-
-            runtime.getExecutor(asyncScript).executeVoid();
-            String result = awaitJsResult(runtime, "__javetSpawnResult", "__javetSpawnError");
-
-            logger.info("🔄 Executed spawn script, result: {}", result);
-            if (result == null || result.length() != 43 || !result.matches("^[A-Za-z0-9_-]+$")) {
-                throw new RuntimeException("Invalid process ID format returned: " + result);
-            }
-            logger.info("✅ Real AO Process created: {}", result);
-            return result;
-        }
+    /**
+     * 异步创建 AO 进程，使用默认超时。
+     */
+    public CompletableFuture<String> spawnProcessAsync() {
+        return spawnProcessAsync(Duration.ofMillis(ASYNC_TIMEOUT_MS));
     }
 
     /**
-     * 给刚创建的 AO 进程发送消息，返回真实消息 ID。
+     * 异步创建 AO 进程：调用在事件循环运行时上发起，不占用调用方线程和池中引擎。
+     *
+     * @param timeout 单次调用超时，超时后 Future 以 TimeoutException 失败
      */
-    public String sendMessage(String processId, String action, String data) throws JavetException {
+    public CompletableFuture<String> spawnProcessAsync(Duration timeout) {
         ensureInitialized();
 
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Name", "javet-demo-" + System.currentTimeMillis());
+        return dispatchSpawn(SpawnSpec.of(tags), timeout)
+            .thenApply(result -> {
+                logger.info("✅ Real AO Process created: {}", result);
+                return result;
+            });
+    }
+
+    /**
+     * 批量创建进程并等待全部完成，progress 在每个进程得到最终结果时回调（可为 null）。
+     */
+    public BulkSpawnResult spawnProcesses(List<SpawnSpec> specs, Consumer<BulkSpawnResult.Entry> progress) {
+        BulkSpawnResult result = spawnProcessesAsync(specs, progress).join();
+        logger.info("🏭 Bulk spawn completed: {}", result);
+        return result;
+    }
+
+    /**
+     * 异步批量创建进程：最多 ao.spawn.max-in-flight 个同时在途，由事件循环组分配到最空闲的循环（签名钱包始终是默认钱包），
+     * 暂时性网关错误带抖动重试最多 ao.spawn.max-attempts 次。单个失败记录在对应结果中，不会让整批失败。
+     */
+    public CompletableFuture<BulkSpawnResult> spawnProcessesAsync(List<SpawnSpec> specs, Consumer<BulkSpawnResult.Entry> progress) {
+        ensureInitialized();
+        return bulkSpawner.spawn(specs, progress);
+    }
+
+    /**
+     * 在事件循环组上以默认钱包创建进程，校验返回的 43 字符进程 ID。
+     * 未指定 App-Name / Authority 标签时使用默认值。
+     */
+    private CompletableFuture<String> dispatchSpawn(SpawnSpec spec, Duration timeout) {
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("App-Name", "javet-aoconnect-demo");
+        tags.putAll(spec.getTags());
+        tags.putIfAbsent("Authority", PROCESS_AUTHORITY);
+        List<Map<String, String>> tagList = new ArrayList<>(tags.size());
+        tags.forEach((name, value) -> tagList.add(Map.of("name", name, "value", value)));
+        String module = spec.getModuleId() != null ? spec.getModuleId() : moduleId;
+
+        return metrics.time("spawn", eventLoops.submit((runtime, callId) -> invokeBridge(runtime, "spawn",
+                callId, DEFAULT_WALLET_HANDLE, module, tagList, spec.getData()), timeout.toMillis()))
+            .thenApply(result -> {
+                logger.debug("🔄 Executed spawn script, result: {}", result);
+                if (result == null || result.length() != 43 || !result.matches("^[A-Za-z0-9_-]+$")) {
+                    throw new RuntimeException("Invalid process ID format returned: " + result);
+                }
+                return result;
+            });
+    }
+
+    /**
+     * 给刚创建的 AO 进程发送消息，返回真实消息 ID。
+     */
+    public String sendMessage(String processId, String action, String data) throws JavetException {
         logger.info("=== AO Message Sending Demo ===");
         logger.info("Demonstrating message sending to AO process...");
+        return awaitResult(sendMessageAsync(processId, action, data));
+    }
 
-        try (IJavetEngine<V8Runtime> engine = enginePool.getEngine()) {
-            V8Runtime runtime = engine.getV8Runtime();
-
-            runtime.getExecutor("globalThis.__javetMessageResult=undefined;globalThis.__javetMessageError=undefined;").executeVoid();
-            runtime.getExecutor(String.format(
-                    "(async () => {\n" +
-                    "  try {\n" +
-                    "    const wallet = JSON.parse(`%s`);\n" +
-                    "    const signer = aoconnect.createDataItemSigner(wallet);\n" +
-                    "    const messageResult = await aoconnect.connect({\n" +
-                    "      MODE: 'legacy',\n" +
-                    "      GATEWAY_URL: globalThis.GATEWAY_URL,\n" +
-                    "      MU_URL: globalThis.MU_URL,\n" +
-                    "      CU_URL: globalThis.CU_URL\n" +
-                    "    }).message({\n" +
-                    "      process: '%s',\n" +
-                    "      signer,\n" +
-                    "      tags: [{ name: 'Action', value: '%s' }],\n" +
-                    "      data: '%s'\n" +
-                    "    });\n" +
-                    "    globalThis.__javetMessageResult = messageResult;\n" +
-                    "  } catch (error) {\n" +
-                    "    globalThis.__javetMessageError = error ? (error.message || String(error)) : 'Unknown error';\n" +
-                    "  }\n" +
-                    "})();",
-                    escapeForTemplate(walletJson),
-                    processId,
-                    action,
-                    escapeForTemplate(data)
-            )).executeVoid();
-
-            String result = awaitJsResult(runtime, "__javetMessageResult", "__javetMessageError");
-            logger.info("🎯 Message dispatch completed!");
-            logger.info("📨 Message Details:");
-            logger.info("   - Message ID: {}", result);
-            logger.info("   - Target Process: {}", processId);
-            logger.info("   - Action: {}", action);
-            logger.info("   - Data Length: {} characters", data.length());
-            return result;
-        }
-    }
-
-    /**
-     * 检查 Node 运行时中是否存在 `aoconnect.connect`。
+    /**
+     * 发送二进制数据，不需要先转成 base64 字符串
      */
-    public boolean testConnection() throws JavetException {
+    public String sendMessage(String processId, String action, byte[] data) throws JavetException {
+        return sendMessage(processId, action, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * 发送二进制数据（position 到 limit）。direct ByteBuffer 与 V8 共享内存，整个发送过程不复制数据。
+     */
+    public String sendMessage(String processId, String action, ByteBuffer data) throws JavetException {
+        logger.info("=== AO Message Sending Demo ===");
+        logger.info("Demonstrating binary message sending to AO process...");
+        return awaitResult(sendMessageAsync(AOMessage.of(processId, action, data), Duration.ofMillis(ASYNC_TIMEOUT_MS)));
+    }
+
+    /**
+     * 异步发送消息，使用默认超时。
+     */
+    public CompletableFuture<String> sendMessageAsync(String processId, String action, String data) {
+        return sendMessageAsync(processId, action, data, Duration.ofMillis(ASYNC_TIMEOUT_MS));
+    }
+
+    /**
+     * 异步发送二进制消息，使用默认超时。发送完成前不能修改 data 的内容。
+     */
+    public CompletableFuture<String> sendMessageAsync(String processId, String action, ByteBuffer data) {
+        return sendMessageAsync(AOMessage.of(processId, action, data), Duration.ofMillis(ASYNC_TIMEOUT_MS));
+    }
+
+    /**
+     * 异步发送消息：多个消息可以在同一个事件循环运行时上同时在途。
+     *
+     * @param timeout 单次调用超时，超时后 Future 以 TimeoutException 失败
+     */
+    public CompletableFuture<String> sendMessageAsync(String processId, String action, String data, Duration timeout) {
+        return sendMessageAsync(AOMessage.of(processId, action, data), timeout);
+    }
+
+    /**
+     * 带幂等键发送：同一个键的重试（包括超时后结果未知的重试）在成功后返回同一个消息 ID，成功前不会并发重复发送。
+     */
+    public CompletableFuture<String> sendMessageAsync(AOMessage message, String idempotencyKey, Duration timeout) {
+        return sendMessageAsync(IdempotencyIndex.withKey(message, idempotencyKey), timeout);
+    }
+
+    /**
+     * 异步发送一条文本或二进制消息
+     *
+     * @param timeout 单次调用超时，超时后 Future 以 TimeoutException 失败
+     */
+    public CompletableFuture<String> sendMessageAsync(AOMessage message, Duration timeout) {
         ensureInitialized();
 
-        try (IJavetEngine<V8Runtime> engine = enginePool.getEngine()) {
-            V8Runtime runtime = engine.getV8Runtime();
+        return dispatchMessage(message, timeout)
+            .thenApply(result -> {
+                logger.info("🎯 Message dispatch completed!");
+                logger.info("📨 Message Details:");
+                logger.info("   - Message ID: {}", result);
+                logger.info("   - Target Process: {}", message.getProcessId());
+                logger.info("   - Action: {}", message.getAction());
+                if (message.isBinary()) {
+                    logger.info("   - Data Length: {} bytes (binary)", message.getBinaryData().remaining());
+                } else {
+                    logger.info("   - Data Length: {} characters", message.getData().length());
+                }
+                return result;
+            });
+    }
 
-            // 测试AO网络连接 - 检查SDK是否可用
-            Boolean connected = runtime.getExecutor(
-                "try {\n" +
-                "  return typeof aoconnect !== 'undefined' && typeof aoconnect.connect === 'function';\n" +
-                "} catch (e) {\n" +
-                "  console.log('Connection test error:', e.message);\n" +
-                "  return false;\n" +
-                "}"
-            ).executeBoolean();
+    /**
+     * 批量发送消息，最多 ao.batch.max-in-flight 条同时在途，结果按提交顺序返回。
+     */
+    public MessageBatchResult sendBatch(List<AOMessage> messages) {
+        MessageBatchResult result = sendBatchAsync(messages).join();
+        logger.info("📦 Batch dispatch completed: {}", result);
+        return result;
+    }
+
+    /**
+     * 异步批量发送消息。单条失败记录在对应的结果中，不会让整批失败。
+     */
+    public CompletableFuture<MessageBatchResult> sendBatchAsync(List<AOMessage> messages) {
+        ensureInitialized();
+        return batchSender.send(messages);
+    }
+
+    /**
+     * 创建一个带背压的消息流：上游发布 {@link AOMessage}，下游按自己的 request 收到逐条发送结果。
+     * 在途窗口为 ao.stream.max-in-flight（未设置时为 ao.batch.max-in-flight × 钱包数），与事件循环的处理能力对齐。
+     */
+    public MessageStreamProcessor messageStream() {
+        ensureInitialized();
+        int maxInFlight = streamMaxInFlight > 0
+                ? streamMaxInFlight
+                : batchMaxInFlight * walletShards.getShards().size();
+        return messageStream(maxInFlight);
+    }
 
-            logger.info("AO connection test result: {}", connected);
-            return connected;
+    /**
+     * 创建指定在途窗口的消息流
+     */
+    public MessageStreamProcessor messageStream(int maxInFlight) {
+        ensureInitialized();
+        return new MessageStreamProcessor(message -> dispatchMessage(message, Duration.ofMillis(ASYNC_TIMEOUT_MS)), maxInFlight);
+    }
+
+    /**
+     * 读取某条消息的计算结果（CU `/result`），返回 aoconnect 结果的 JSON。
+     */
+    public String result(String processId, String messageId) throws JavetException {
+        return awaitResult(resultAsync(processId, messageId));
+    }
+
+    /**
+     * 异步读取消息结果。结果不可变，相同 (进程, 消息) 的读取在 TTL 内命中缓存，并发读取合并为一次请求。
+     */
+    public CompletableFuture<String> resultAsync(String processId, String messageId) {
+        ensureInitialized();
+        return readCache.get(ReadCache.resultKey(processId, messageId),
+                () -> metrics.time("result", eventLoops.submit((runtime, callId) -> invokeBridge(runtime, "result",
+                        callId, processId, messageId), ASYNC_TIMEOUT_MS)));
+    }
+
+    /**
+     * 分页读取进程的结果列表（CU `/results`），参数可为 null。返回 `{ edges: [...] }` 的 JSON。
+     */
+    public String results(String processId, String from, String to, String sort, Integer limit) throws JavetException {
+        return awaitResult(resultsAsync(processId, from, to, sort, limit));
+    }
+
+    /**
+     * 异步分页读取进程结果。结果随时间变化，不缓存。
+     */
+    public CompletableFuture<String> resultsAsync(String processId, String from, String to, String sort, Integer limit) {
+        ensureInitialized();
+        return metrics.time("results", eventLoops.submit((runtime, callId) -> invokeBridge(runtime, "results",
+                callId, processId, from, to, sort, limit), ASYNC_TIMEOUT_MS));
+    }
+
+    /**
+     * dry-run：在 CU 上模拟执行消息而不写入网络，返回结果 JSON。
+     */
+    public String dryrun(AOMessage message) throws JavetException {
+        return awaitResult(dryrunAsync(message));
+    }
+
+    /**
+     * 异步 dry-run。以 (进程, Action, 标签, 数据哈希) 为键缓存 ao.read.cache-ttl-ms，并发的相同查询合并为一次请求。
+     */
+    public CompletableFuture<String> dryrunAsync(AOMessage message) {
+        ensureInitialized();
+        if (message.isBinary()) {
+            // CU 的 dry-run 接口以 JSON 字符串携带 Data
+            throw new IllegalArgumentException("Dry-run only supports text data");
         }
+        return readCache.get(ReadCache.dryRunKey(message),
+                () -> metrics.time("dryrun", eventLoops.submit((runtime, callId) -> invokeBridge(runtime, "dryrun",
+                        callId, message.getProcessId(), message.toTagList(), message.getData()), ASYNC_TIMEOUT_MS)));
+    }
+
+    /**
+     * 订阅进程的结果和发件箱消息：按 ao.subscription.* 分页轮询 CU `/results`，新结果依次交给 listener，
+     * 游标保存在 ao.subscription.cursor-file，重启后从上次的位置继续；没有保存的游标时按 ao.subscription.start 决定起点。
+     */
+    public ProcessSubscriptions.Subscription subscribe(String processId, ProcessSubscriptions.Listener listener) {
+        return subscribe(processId, listener, ProcessSubscriptions.Start.valueOf(subscriptionStart.toUpperCase(Locale.ROOT)));
+    }
+
+    public ProcessSubscriptions.Subscription subscribe(String processId, ProcessSubscriptions.Listener listener,
+                                                       ProcessSubscriptions.Start start) {
+        ensureInitialized();
+        return subscriptions.subscribe(processId, listener, start);
+    }
+
+    /**
+     * 把消息追加到本地发件箱后立即返回，网络发送由发件箱异步完成；进程崩溃后未完成的消息在下次启动时重放。
+     * 需要 ao.outbox.enabled=true。
+     */
+    public MessageOutbox.Ticket enqueueMessage(AOMessage message) {
+        ensureInitialized();
+        if (outbox == null) {
+            throw new IllegalStateException("Message outbox is disabled. Set ao.outbox.enabled=true to use it.");
+        }
+        return outbox.enqueue(message);
+    }
+
+    /**
+     * 用 JS 侧的 aoconnect `createDataItemSigner` 签名但不发送，返回 `{ id, raw }` JSON（raw 为 base64），
+     * 用于与 {@link DataItemSigner} 交叉校验。
+     */
+    CompletableFuture<String> signWithJsAsync(AOMessage message, List<Map<String, String>> tags) {
+        ensureInitialized();
+        return eventLoops.submit((runtime, callId) -> invokeBridge(runtime, "sign",
+                callId, DEFAULT_WALLET_HANDLE, message.getProcessId(), tags, messageData(runtime, message)), ASYNC_TIMEOUT_MS);
+    }
+
+    /**
+     * 发送单条消息（不打印逐条日志，批量路径直接使用）。按 ao.wallet.sharding 选择钱包分片，在该钱包的事件循环上签名发送；
+     * ao.message.signing=native 时用该钱包的 Java 签名器签名并直接发往 MU。
+     */
+    private CompletableFuture<String> dispatchMessage(AOMessage message, Duration timeout) {
+        String key = IdempotencyIndex.keyOf(message, idempotencyAutoKey);
+        if (key == null) {
+            return dispatchMessage(message, timeout, null);
+        }
+        AOMessage keyed = IdempotencyIndex.withKey(message, key);
+        return idempotency.send(key, entry -> dispatchMessage(keyed, timeout, entry));
+    }
+
+    /**
+     * 发送一次。带幂等记录时，无论 ao.message.signing 是什么，都在 Java 中签名一次并把 DataItem 保存在记录上，
+     * 重发时直接再次 POST 同一个 DataItem（消息 ID 不变，MU 按 ID 去重）。
+     * ao.wallet.sharding=process 时同一进程的消息逐条发送（见 {@link WalletShards#sequence}）。
+     */
+    private CompletableFuture<String> dispatchMessage(AOMessage message, Duration timeout, IdempotencyIndex.Entry idempotent) {
+        WalletShards.Shard shard = walletShards.select(message.getProcessId());
+        return walletShards.sequence(message.getProcessId(), () -> dispatchMessage(shard, message, timeout, idempotent));
+    }
+
+    private CompletableFuture<String> dispatchMessage(WalletShards.Shard shard, AOMessage message, Duration timeout,
+                                                      IdempotencyIndex.Entry idempotent) {
+        shard.markDispatched();
+        if (idempotent != null) {
+            NativeMessageSender sender = shard.getIdempotentSender();
+            DataItem signed = idempotent.getSignedItem();
+            CompletableFuture<DataItem> item = signed != null
+                    ? CompletableFuture.completedFuture(signed)
+                    : sender.sign(message).thenApply(created -> {
+                        idempotent.setSignedItem(created);
+                        return created;
+                    });
+            return metrics.time("message", item.thenCompose(created -> sender.send(created, timeout)));
+        }
+        NativeMessageSender nativeSender = shard.getNativeSender();
+        if (nativeSender != null) {
+            return metrics.time("message", nativeSender.send(message, timeout));
+        }
+        CompletableFuture<String> future = shard.getLoop().submit((runtime, callId) -> invokeBridge(runtime, "message",
+                callId, shard.getWalletHandle(), message.getProcessId(), message.toTagList(), messageData(runtime, message)),
+                timeout.toMillis());
+        if (message.isBinary()) {
+            // 与 V8 共享内存的 direct 缓冲区必须在 JS 用完之前保持可达
+            future.whenComplete((id, error) -> Reference.reachabilityFence(message));
+        }
+        return metrics.time("message", future);
+    }
+
+    /**
+     * 消息数据对应的 V8 参数：文本为字符串；二进制为 ArrayBuffer，direct 缓冲区直接作为 backing store（不复制），
+     * 堆缓冲区一次复制进 V8 内存。两种情况都不经过 base64 和字符串编码。
+     */
+    private static Object messageData(V8Runtime runtime, AOMessage message) throws JavetException {
+        if (!message.isBinary()) {
+            return message.getData();
+        }
+        ByteBuffer data = message.getBinaryData();
+        if (data.isDirect()) {
+            return runtime.createV8ValueArrayBuffer(data);
+        }
+        V8ValueArrayBuffer arrayBuffer = runtime.createV8ValueArrayBuffer(data.remaining());
+        arrayBuffer.getByteBuffer().put(data);
+        return arrayBuffer;
+    }
+
+    /**
+     * 检查 Node 运行时中是否存在 `aoconnect.connect`。在事件循环组的运行时上执行，不占用调用方线程借引擎。
+     */
+    public boolean testConnection() throws JavetException {
+        ensureInitialized();
+
+        // 测试AO网络连接 - 检查SDK是否可用
+        boolean connected = Boolean.parseBoolean(awaitResult(eventLoops.submit((runtime, callId) -> runtime.getExecutor(
+            JsPromiseBridge.SETTLE_FUNCTION + "(" + callId + ", (() => {\n" +
+            "  try {\n" +
+            "    return String(typeof aoconnect !== 'undefined' && typeof aoconnect.connect === 'function');\n" +
+            "  } catch (e) {\n" +
+            "    __aoLog('warn', 'connection.test.error', { error: e.message });\n" +
+            "    return 'false';\n" +
+            "  }\n" +
+            "})())"
+        ).executeVoid(), ASYNC_TIMEOUT_MS)));
+
+        logger.info("AO connection test result: {}", connected);
+        return connected;
     }
 
     /**
@@ -437,7 +1033,173 @@ public class AOJavaBridge implements AutoCloseable {
      * 获取引擎池信息
      */
     public String getPoolInfo() {
-        return "V8Runtime pool initialized";
+        LatencyHistogram borrow = metrics.getLatency("pool.borrow");
+        return String.format("Warm V8Runtime pool: max=%d, pre-warmed=%d, active=%d, idle=%d, bootstrapped=%d, health check failures=%d, in flight=%d, borrow p99=%.2f ms",
+                enginePool.getMaxSize(), enginePool.getMinWarmEngines(),
+                enginePool.getActiveEngineCount(), enginePool.getIdleEngineCount(),
+                enginePool.getBootstrapCount(), enginePool.getHealthCheckFailures(),
+                eventLoops == null ? 0 : eventLoops.getInFlightCount(),
+                borrow == null ? 0 : borrow.getPercentileMillis(99));
+    }
+
+    /**
+     * 桥接指标（仪表、各操作的延迟直方图和错误数、V8 堆统计），同时注册为 JMX MBean
+     */
+    public BridgeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 读取各运行时的 V8 堆统计：事件循环运行时在其自己的线程上读取；有空闲引擎时再借一个读取池运行时。
+     * 键为 `运行时.字段`。
+     */
+    public Map<String, Long> getHeapStatistics() {
+        Map<String, Long> statistics = new TreeMap<>();
+        if (eventLoops != null) {
+            for (AOEventLoop loop : eventLoops.getLoops()) {
+                try {
+                    String json = loop.submit((runtime, callId) -> runtime.getExecutor(
+                            JsPromiseBridge.SETTLE_FUNCTION + "(" + callId + ", " + HEAP_STATS_SCRIPT + ")").executeVoid(),
+                            HEAP_STATS_TIMEOUT_MS).join();
+                    putHeapStatistics(statistics, loop.getName(), json);
+                } catch (RuntimeException e) {
+                    logger.debug("Failed to read {} heap statistics: {}", loop.getName(), e.getMessage());
+                }
+            }
+        }
+        if (enginePool.getIdleEngineCount() > 0) {
+            try (IJavetEngine<V8Runtime> engine = enginePool.getEngine()) {
+                putHeapStatistics(statistics, "pool-idle", engine.getV8Runtime().getExecutor(HEAP_STATS_SCRIPT).executeString());
+            } catch (Exception e) {
+                logger.debug("Failed to read pool heap statistics: {}", e.getMessage());
+            }
+        }
+        return statistics;
+    }
+
+    private void putHeapStatistics(Map<String, Long> statistics, String runtimeName, String json) {
+        try {
+            Map<String, Long> values = JSON.readValue(json, new TypeReference<Map<String, Long>>() { });
+            values.forEach((field, value) -> statistics.put(runtimeName + "." + field, value));
+        } catch (IOException e) {
+            logger.debug("Unexpected heap statistics payload: {}", json);
+        }
+    }
+
+    /**
+     * 注册仪表和 JMX MBean（ao.metrics.jmx.enabled）
+     */
+    private void registerMetrics() {
+        metrics.gauge("pool.active", enginePool::getActiveEngineCount);
+        metrics.gauge("pool.idle", enginePool::getIdleEngineCount);
+        metrics.gauge("pool.max", enginePool::getMaxSize);
+        metrics.gauge("pool.bootstrapped", enginePool::getBootstrapCount);
+        metrics.gauge("pool.health-check-failures", enginePool::getHealthCheckFailures);
+        metrics.gauge("loop.in-flight", eventLoops::getInFlightCount);
+        metrics.gauge("loop.queued", eventLoops::getQueuedCount);
+        metrics.gauge("loop.stolen", eventLoops::getStolenCount);
+        if (walletShards.getShards().size() > 1) {
+            for (WalletShards.Shard shard : walletShards.getShards()) {
+                metrics.gauge("wallet." + shard.getWalletHandle() + ".dispatched", shard::getDispatchedCount);
+                metrics.gauge("wallet." + shard.getWalletHandle() + ".in-flight", shard.getLoop()::getInFlightCount);
+            }
+        }
+        metrics.gauge("promise.pending", promiseBridge::getPendingCount);
+        metrics.gauge("read-cache.size", readCache::size);
+        metrics.gauge("subscription.count", subscriptions::getSubscriptionCount);
+        metrics.gauge("subscription.delivered", subscriptions::getDeliveredCount);
+        metrics.gauge("idempotency.size", idempotency::size);
+        metrics.gauge("idempotency.hits", idempotency::getHitCount);
+        metrics.gauge("idempotency.resent", idempotency::getResentCount);
+        if (outbox != null) {
+            metrics.gauge("outbox.outstanding", outbox::getOutstandingCount);
+            metrics.gauge("outbox.stranded", outbox::getStrandedCount);
+            metrics.gauge("outbox.retried", outbox::getRetriedCount);
+        }
+        metrics.setHeapStatisticsSupplier(this::getHeapStatistics);
+
+        if (!jmxEnabled) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.example.aodemo:type=AOJavaBridge,name=bridge-" + System.identityHashCode(this));
+            server.registerMBean(metrics, name);
+            mbeanName = name;
+            logger.info("📈 Bridge metrics registered as JMX MBean {}", name);
+        } catch (JMException e) {
+            logger.warn("⚠️ Failed to register bridge metrics MBean: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 批量 spawn（累计成功、失败和重试次数）
+     */
+    public BulkSpawner getBulkSpawner() {
+        return bulkSpawner;
+    }
+
+    /**
+     * 批量发送器（累计发送数、失败数和平均延迟）
+     */
+    public MessageBatchSender getBatchSender() {
+        return batchSender;
+    }
+
+    /**
+     * 进程结果订阅（游标、轮询次数、投递数）
+     */
+    public ProcessSubscriptions getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * 幂等索引（命中、合并、重发次数）
+     */
+    public IdempotencyIndex getIdempotencyIndex() {
+        return idempotency;
+    }
+
+    /**
+     * 读缓存（命中、合并、未命中次数）
+     */
+    public ReadCache getReadCache() {
+        return readCache;
+    }
+
+    /**
+     * Java 签名发送器（ao.message.signing=js 时为 null）
+     */
+    public NativeMessageSender getNativeSender() {
+        return nativeSender;
+    }
+
+    /**
+     * Node 模块编译缓存
+     */
+    public CompileCache getCompileCache() {
+        return compileCache;
+    }
+
+    /**
+     * 最近一次引导中 `require('@permaweb/aoconnect')`（含写入编译缓存）的耗时，尚未引导时为 -1
+     */
+    public long getLastModuleLoadMillis() {
+        return lastModuleLoadMillis;
+    }
+
+    /**
+     * JS 日志桥接（级别、采样率、已写入条数）
+     */
+    public JsLogBridge getJsLog() {
+        return jsLog;
+    }
+
+    /**
+     * 发件箱（未启用时为 null）
+     */
+    public MessageOutbox getOutbox() {
+        return outbox;
     }
 
     /**
@@ -490,12 +1252,26 @@ public class AOJavaBridge implements AutoCloseable {
     }
 
     /**
-     * 获取钱包路径
+     * 获取钱包路径（默认钱包）
      */
     public String getWalletPath() {
         return walletPath;
     }
 
+    /**
+     * 钱包分片（每个钱包的事件循环和已分配的消息数）
+     */
+    public WalletShards getWalletShards() {
+        return walletShards;
+    }
+
+    /**
+     * 事件循环组（各循环的在途、排队和窃取数）
+     */
+    public AOEventLoopGroup getEventLoops() {
+        return eventLoops;
+    }
+
     private String escapeForTemplate(String input) {
         return input
                 .replace("\\", "\\\\")
@@ -504,35 +1280,66 @@ public class AOJavaBridge implements AutoCloseable {
     }
 
     /**
-     * 轮询 JS 全局变量获取异步结果，并驱动 Node 事件循环。
+     * 调用引导时编译好的 `__aoBridge` 函数，参数由 Javet 转换为 V8 值，不生成新的脚本源码。
      */
-    private String awaitJsResult(V8Runtime runtime, String resultVar, String errorVar) throws JavetException {
-        long startTime = System.currentTimeMillis();
-        long timeout = ASYNC_TIMEOUT_MS;
-        while (System.currentTimeMillis() - startTime < timeout) {
-            runtime.await();
-            String error = runtime.getExecutor("globalThis." + errorVar).executeString();
-            if (error != null && !error.isEmpty() && !"undefined".equals(error)) {
-                throw new RuntimeException("JavaScript error: " + error);
+    private void invokeBridge(V8Runtime runtime, String function, Object... args) throws JavetException {
+        try (V8ValueObject bridge = runtime.getGlobalObject().get(BRIDGE_OBJECT)) {
+            bridge.invokeVoid(function, args);
+        } finally {
+            // 释放调用方创建的 V8 值句柄（如 ArrayBuffer），JS 侧仍持有的引用不受影响
+            for (Object arg : args) {
+                if (arg instanceof V8Value) {
+                    ((V8Value) arg).close();
+                }
             }
-            String result = runtime.getExecutor("globalThis." + resultVar).executeString();
-            if (result != null && !result.isEmpty() && !"undefined".equals(result)) {
-                return result;
+        }
+    }
+
+    /**
+     * 同步等待异步调用的结果，还原 JavetException / RuntimeException。
+     */
+    private String awaitResult(CompletableFuture<String> future) throws JavetException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw new RuntimeException("Timeout waiting for JavaScript operation to complete", cause);
             }
-            try {
-                Thread.sleep(50);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException("Interrupted while waiting for JS result", e);
+            if (cause instanceof JavetException) {
+                throw (JavetException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
+            throw e;
         }
-        throw new RuntimeException("Timeout waiting for JavaScript operation to complete");
     }
 
     @Override
     public void close() {
         logger.info("Closing AO Java Bridge");
+        if (mbeanName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+            } catch (JMException e) {
+                logger.debug("Failed to unregister bridge metrics MBean: {}", e.getMessage());
+            }
+            mbeanName = null;
+        }
         try {
+            if (subscriptions != null) {
+                subscriptions.close();
+            }
+            if (outbox != null) {
+                outbox.close();
+            }
+            if (eventLoops != null) {
+                eventLoops.close();
+            }
+            if (walletShards != null) {
+                walletShards.close();
+            }
             if (enginePool != null) {
                 enginePool.close();
             }
@@ -0,0 +1,162 @@
+package com.example.aodemo;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 待发送的 AO 消息：目标进程、Action、附加标签和数据。
+ *
+ * 数据可以是文本，也可以是二进制（{@link ByteBuffer} / byte[]）。二进制数据不复制、不转成字符串，
+ * 以 ArrayBuffer 交给 JS（native 签名时直接写入 DataItem）；发送完成前调用方不能修改缓冲区内容。
+ */
+public final class AOMessage {
+    private final String processId;
+    private final String action;
+    private final Map<String, String> tags;
+    private final String data;
+    private final ByteBuffer binaryData;
+
+    public AOMessage(String processId, String action, Map<String, String> tags, String data) {
+        this.processId = Objects.requireNonNull(processId, "processId");
+        this.action = Objects.requireNonNull(action, "action");
+        this.tags = tags == null || tags.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        this.data = data == null ? "" : data;
+        this.binaryData = null;
+    }
+
+    /**
+     * 二进制消息，数据为 data 的 position 到 limit 之间的内容（共享内容，不复制）
+     */
+    public AOMessage(String processId, String action, Map<String, String> tags, ByteBuffer data) {
+        this.processId = Objects.requireNonNull(processId, "processId");
+        this.action = Objects.requireNonNull(action, "action");
+        this.tags = tags == null || tags.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        this.data = null;
+        this.binaryData = Objects.requireNonNull(data, "data").slice();
+    }
+
+    public static AOMessage of(String processId, String action, String data) {
+        return new AOMessage(processId, action, null, data);
+    }
+
+    public static AOMessage of(String processId, String action, byte[] data) {
+        return new AOMessage(processId, action, null, ByteBuffer.wrap(data));
+    }
+
+    public static AOMessage of(String processId, String action, ByteBuffer data) {
+        return new AOMessage(processId, action, null, data);
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    /**
+     * 文本数据；二进制消息请使用 {@link #getBinaryData()}
+     */
+    public String getData() {
+        if (binaryData != null) {
+            throw new IllegalStateException("Binary message has no text data, use getBinaryData()");
+        }
+        return data;
+    }
+
+    public boolean isBinary() {
+        return binaryData != null;
+    }
+
+    /**
+     * 二进制数据的只读视图（position 为 0，共享内容），文本消息返回 null
+     */
+    public ByteBuffer getBinaryData() {
+        return binaryData == null ? null : binaryData.asReadOnlyBuffer();
+    }
+
+    /**
+     * 数据的字节形式：文本按 UTF-8 编码，二进制数据复制一份
+     */
+    public byte[] getDataBytes() {
+        if (binaryData == null) {
+            return data.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[binaryData.remaining()];
+        binaryData.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 内容哈希：进程、Action、标签和数据的 SHA-256（base64url），每个字段带长度前缀，字段之间不会混淆
+     */
+    String contentHash() {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            update(sha256, processId);
+            update(sha256, action);
+            for (Map.Entry<String, String> entry : tags.entrySet()) {
+                update(sha256, entry.getKey());
+                update(sha256, entry.getValue());
+            }
+            if (binaryData != null) {
+                sha256.update(ByteBuffer.allocate(5).put((byte) 1).putInt(binaryData.remaining()).array());
+                sha256.update(binaryData.duplicate());
+            } else {
+                update(sha256, data);
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(5).put((byte) 0).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    /**
+     * 转换为 aoconnect 的标签数组 `[{ name, value }]`，Action 标签在最前面。
+     */
+    List<Map<String, String>> toTagList() {
+        List<Map<String, String>> list = new ArrayList<>(tags.size() + 1);
+        list.add(tag("Action", action));
+        for (Map.Entry<String, String> entry : tags.entrySet()) {
+            list.add(tag(entry.getKey(), entry.getValue()));
+        }
+        return list;
+    }
+
+    private static Map<String, String> tag(String name, String value) {
+        Map<String, String> tag = new LinkedHashMap<>(4);
+        tag.put("name", name);
+        tag.put("value", value);
+        return tag;
+    }
+
+    @Override
+    public String toString() {
+        return "AOMessage{processId='" + processId + "', action='" + action + "', tags=" + tags
+                + (binaryData == null ? ", dataLength=" + data.length() : ", binaryLength=" + binaryData.remaining()) + "}";
+    }
+}
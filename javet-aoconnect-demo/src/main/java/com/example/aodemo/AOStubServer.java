@@ -0,0 +1,272 @@
+package com.example.aodemo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 本地 AO 网络替身（MU / CU / Gateway stub）
+ *
+ * 在没有外网的环境（CI、压测）中代替 mu/cu.ao-testnet.xyz 与 arweave.net，单独测量桥接本身的开销：
+ * - MU：`POST /` 接收签名的 DataItem，按 ANS-104 规则以 SHA-256(签名) 作为确定性 ID 返回
+ * - CU：`GET /result/{id}`、`POST /dry-run` 返回固定结构的空结果；`GET /results/{processId}` 按 from / sort / limit
+ *   分页返回发往该进程的每条消息对应的结果（游标为序号，Output.data 为消息 ID）
+ * - Gateway：`POST /graphql` 为模块 / 调度器校验返回满足 aoconnect 要求的交易标签
+ * - 可配置固定延迟和失败率（固定随机种子，结果可复现）
+ */
+public class AOStubServer implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AOStubServer.class);
+
+    private static final String EMPTY_RESULT =
+        "{\"Messages\":[],\"Spawns\":[],\"Assignments\":[],\"Output\":{\"data\":\"\"},\"GasUsed\":0}";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final double failureRate;
+    private final Random random;
+    private final String schedulerId;
+
+    private final Map<String, List<String>> processMessages = new ConcurrentHashMap<>();
+    private final LongAdder dataItems = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder graphqlQueries = new LongAdder();
+    private final LongAdder injectedFailures = new LongAdder();
+
+    /**
+     * @param port          监听端口，0 表示随机端口
+     * @param latencyMillis 每个请求的固定延迟
+     * @param failureRate   注入失败（HTTP 503）的比例，0~1
+     * @param seed          失败注入的随机种子
+     * @param schedulerId   调度器钱包地址，用于回答调度器位置查询
+     */
+    public AOStubServer(int port, long latencyMillis, double failureRate, long seed, String schedulerId) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+        this.random = new Random(seed);
+        this.schedulerId = schedulerId;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "ao-stub-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    public AOStubServer start() {
+        server.start();
+        logger.info("🧪 AO stub network listening on {} (latency={} ms, failure rate={})", getUrl(), latencyMillis, failureRate);
+        return this;
+    }
+
+    /**
+     * stub 的基础 URL，同时作为 MU / CU / Gateway 地址
+     */
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = readBody(exchange);
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (failureRate > 0 && random.nextDouble() < failureRate) {
+                injectedFailures.increment();
+                respond(exchange, 503, "{\"error\":\"injected failure\"}");
+                return;
+            }
+
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if ("POST".equals(method) && "/graphql".equals(path)) {
+                graphqlQueries.increment();
+                respond(exchange, 200, graphqlResponse(new String(body, StandardCharsets.UTF_8)));
+            } else if ("POST".equals(method) && ("/".equals(path) || path.isEmpty())) {
+                dataItems.increment();
+                String id = dataItemId(body);
+                recordMessage(body, id);
+                respond(exchange, 202, "{\"id\":\"" + id + "\",\"message\":\"Processing DataItem\"}");
+            } else if ("GET".equals(method) && path.startsWith("/result/")) {
+                reads.increment();
+                respond(exchange, 200, EMPTY_RESULT);
+            } else if ("GET".equals(method) && path.startsWith("/results/")) {
+                reads.increment();
+                respond(exchange, 200, resultsPage(path.substring("/results/".length()), exchange.getRequestURI().getRawQuery()));
+            } else if ("POST".equals(method) && path.startsWith("/dry-run")) {
+                reads.increment();
+                respond(exchange, 200, EMPTY_RESULT);
+            } else {
+                respond(exchange, 404, "{\"error\":\"not found\"}");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "{\"error\":\"interrupted\"}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 查询中包含调度器地址时按 Scheduler-Location 回答，否则按 Module 回答
+     */
+    private String graphqlResponse(String query) {
+        if (query.contains(schedulerId)) {
+            return "{\"data\":{\"transactions\":{\"pageInfo\":{\"hasNextPage\":false},\"edges\":[{\"cursor\":\"stub\",\"node\":{" +
+                "\"id\":\"" + schedulerId + "\",\"owner\":{\"address\":\"" + schedulerId + "\"},\"tags\":[" +
+                "{\"name\":\"Data-Protocol\",\"value\":\"ao\"},{\"name\":\"Variant\",\"value\":\"ao.TN.1\"}," +
+                "{\"name\":\"Type\",\"value\":\"Scheduler-Location\"},{\"name\":\"Url\",\"value\":\"" + getUrl() + "\"}," +
+                "{\"name\":\"Time-To-Live\",\"value\":\"3600000\"}]}}]}}}";
+        }
+        return "{\"data\":{\"transactions\":{\"pageInfo\":{\"hasNextPage\":false},\"edges\":[{\"cursor\":\"stub\",\"node\":{" +
+            "\"id\":\"stub-module\",\"owner\":{\"address\":\"stub\"},\"tags\":[" +
+            "{\"name\":\"Data-Protocol\",\"value\":\"ao\"},{\"name\":\"Variant\",\"value\":\"ao.TN.1\"}," +
+            "{\"name\":\"Type\",\"value\":\"Module\"},{\"name\":\"Module-Format\",\"value\":\"wasm64-unknown-emscripten-draft_2024_02_15\"}," +
+            "{\"name\":\"Input-Encoding\",\"value\":\"JSON-1\"},{\"name\":\"Output-Encoding\",\"value\":\"JSON-1\"}]}}]}}}";
+    }
+
+    /**
+     * ANS-104：DataItem ID = base64url(SHA-256(签名))；无法解析时退化为整个请求体的哈希
+     */
+    static String dataItemId(byte[] item) {
+        int signatureLength = -1;
+        if (item.length >= 2) {
+            int signatureType = (item[0] & 0xff) | (item[1] & 0xff) << 8;
+            switch (signatureType) {
+                case 1:
+                    signatureLength = 512;
+                    break;
+                case 2:
+                case 4:
+                    signatureLength = 64;
+                    break;
+                case 3:
+                    signatureLength = 65;
+                    break;
+                default:
+                    break;
+            }
+        }
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            if (signatureLength > 0 && item.length >= 2 + signatureLength) {
+                sha256.update(item, 2, signatureLength);
+            } else {
+                sha256.update(item);
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 记录发往进程的消息（有 target 的 DataItem），供 /results 分页返回
+     */
+    private void recordMessage(byte[] body, String id) {
+        try {
+            String target = DataItem.parse(body).getTarget();
+            if (!target.isEmpty()) {
+                processMessages.computeIfAbsent(target, k -> Collections.synchronizedList(new ArrayList<>())).add(id);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("Stub could not parse data item: {}", e.getMessage());
+        }
+    }
+
+    private String resultsPage(String processId, String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    query.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        List<String> messages = processMessages.getOrDefault(processId, Collections.emptyList());
+        List<String> snapshot;
+        synchronized (messages) {
+            snapshot = new ArrayList<>(messages);
+        }
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : 25;
+        boolean descending = "DESC".equalsIgnoreCase(query.get("sort"));
+        String from = query.get("from");
+
+        StringBuilder json = new StringBuilder("{\"edges\":[");
+        int index = descending
+                ? (from == null || from.isEmpty() ? snapshot.size() - 1 : Integer.parseInt(from) - 1)
+                : (from == null || from.isEmpty() ? 0 : Integer.parseInt(from) + 1);
+        for (int count = 0; count < limit && index >= 0 && index < snapshot.size(); count++) {
+            if (count > 0) {
+                json.append(',');
+            }
+            json.append("{\"cursor\":\"").append(index).append("\",\"node\":")
+                    .append("{\"Messages\":[],\"Spawns\":[],\"Assignments\":[],\"Output\":{\"data\":\"")
+                    .append(snapshot.get(index)).append("\"},\"GasUsed\":0}}");
+            index += descending ? -1 : 1;
+        }
+        return json.append("]}").toString();
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream input = exchange.getRequestBody()) {
+            return input.readAllBytes();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    public long getDataItemCount() {
+        return dataItems.sum();
+    }
+
+    public long getReadCount() {
+        return reads.sum();
+    }
+
+    public long getGraphqlQueryCount() {
+        return graphqlQueries.sum();
+    }
+
+    public long getInjectedFailureCount() {
+        return injectedFailures.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
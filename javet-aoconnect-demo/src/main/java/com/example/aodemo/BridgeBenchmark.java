@@ -0,0 +1,356 @@
+package com.example.aodemo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.spec.RSAKeyGenParameterSpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 桥接基准测试：通过本地 {@link AOStubServer} 驱动 spawn / message / batch，不依赖外网和代理。
+ *
+ * 运行：
+ * <pre>
+ * mvn -q exec:java -Dexec.mainClass=com.example.aodemo.BridgeBenchmark \
+ *     -Dexec.args="--spawns 5 --messages 100 --batch 500 --latency 20 --failure-rate 0"
+ * </pre>
+ * 未指定 --wallet 时生成临时的 RSA-4096 JWK 钱包；{@code --wallets 4} 生成多个临时钱包，按 ao.wallet.sharding 分片发送。{@code --js-log off,debug} 依次以各个 JS 日志级别完整运行一轮，
+ * 对比日志开 / 关时的消息吞吐量。{@code --payloads 20 --payload-kb 1024} 分别以 base64 字符串、byte[] 和 direct ByteBuffer
+ * 发送大消息，对比吞吐量和 Java 侧的内存分配量。{@code --bulk-spawns 50} 通过 spawnProcesses 并发创建进程（0 跳过）。
+ */
+public class BridgeBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(BridgeBenchmark.class);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int spawns = Integer.parseInt(options.getOrDefault("spawns", "5"));
+        int messages = Integer.parseInt(options.getOrDefault("messages", "100"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "500"));
+        int bulkSpawns = Integer.parseInt(options.getOrDefault("bulk-spawns", "50"));
+        int payloads = Integer.parseInt(options.getOrDefault("payloads", "20"));
+        int payloadBytes = Integer.parseInt(options.getOrDefault("payload-kb", "1024")) * 1024;
+        long latency = Long.parseLong(options.getOrDefault("latency", "0"));
+        double failureRate = Double.parseDouble(options.getOrDefault("failure-rate", "0"));
+        String[] jsLogLevels = options.getOrDefault("js-log", options.getOrDefault("ao.js.log.level", "off")).split(",");
+        int walletCount = Integer.parseInt(options.getOrDefault("wallets", "1"));
+        String walletPath = options.get("wallet");
+        if (walletPath == null) {
+            walletPath = writeTemporaryWallet().toString();
+        }
+        List<String> walletPaths = new ArrayList<>();
+        walletPaths.add(walletPath);
+        for (int i = 1; i < walletCount; i++) {
+            walletPaths.add(writeTemporaryWallet().toString());
+        }
+
+        String schedulerId = "_GQ33BkPtZrqxA84vM8Zk-N2aO0toNNu_C-l-rawrBA";
+        try (AOStubServer stub = new AOStubServer(0, latency, failureRate, 42L, schedulerId).start()) {
+            Properties overrides = new Properties();
+            overrides.setProperty("ao.gateway.url", stub.getUrl());
+            overrides.setProperty("ao.mu.url", stub.getUrl());
+            overrides.setProperty("ao.cu.url", stub.getUrl());
+            overrides.setProperty("ao.scheduler.id", schedulerId);
+            overrides.setProperty("ao.proxy.url", "");
+            overrides.setProperty("ao.wallet.path", walletPath);
+            overrides.setProperty("ao.wallet.paths", String.join(",", walletPaths));
+            overrides.setProperty("ao.outbox.enabled", "false");
+            overrides.setProperty("ao.subscription.cursor-file", "");
+            overrides.putAll(filterProperties(options));
+
+            for (String jsLogLevel : jsLogLevels) {
+                overrides.setProperty("ao.js.log.level", jsLogLevel.trim());
+                run(overrides, "js-log=" + jsLogLevel.trim(), spawns, bulkSpawns, messages, batch, payloads, payloadBytes);
+            }
+
+            logger.info("🧪 Stub totals: data items={}, reads={}, graphql={}, injected failures={}",
+                    stub.getDataItemCount(), stub.getReadCount(), stub.getGraphqlQueryCount(), stub.getInjectedFailureCount());
+        }
+    }
+
+    private static void run(Properties overrides, String label, int spawns, int bulkSpawns, int messages, int batch,
+                            int payloads, int payloadBytes) throws Exception {
+        try (AOJavaBridge bridge = new AOJavaBridge(overrides)) {
+            long initStart = System.nanoTime();
+            bridge.initialize();
+            logger.info("⏱️ [{}] initialize: {} ms", label, (System.nanoTime() - initStart) / 1_000_000);
+
+            String processId = null;
+            long[] spawnLatencies = new long[spawns];
+            for (int i = 0; i < spawns; i++) {
+                long start = System.nanoTime();
+                processId = bridge.spawnProcess();
+                spawnLatencies[i] = System.nanoTime() - start;
+            }
+            report(label + " spawnProcess (sequential)", spawnLatencies, sum(spawnLatencies));
+
+            if (bulkSpawns > 0) {
+                List<SpawnSpec> specs = new ArrayList<>(bulkSpawns);
+                for (int i = 0; i < bulkSpawns; i++) {
+                    specs.add(SpawnSpec.of(Map.of("Name", "bulk-" + i)));
+                }
+                AtomicInteger finished = new AtomicInteger();
+                BulkSpawnResult bulk = bridge.spawnProcesses(specs, entry -> {
+                    int done = finished.incrementAndGet();
+                    if (done % Math.max(1, bulkSpawns / 10) == 0 || !entry.isSuccess()) {
+                        logger.info("🏭 {} bulk spawn progress {}/{} (last: #{} {} after {} attempt(s))", label, done, bulkSpawns,
+                                entry.getIndex(), entry.isSuccess() ? entry.getProcessId() : entry.getError().getMessage(), entry.getAttempts());
+                    }
+                });
+                logger.info("📊 {} spawnProcesses (max in flight {}): {}", label, bridge.getBulkSpawner().getMaxInFlight(), bulk);
+            }
+            if (processId == null) {
+                processId = "stub-process-0000000000000000000000000000000";
+            }
+
+            // 订阅这个进程的结果，最后核对投递数（stub 为每条发往进程的消息生成一条结果）
+            ProcessSubscriptions.Subscription subscription = bridge.subscribe(processId, result -> {
+            }, ProcessSubscriptions.Start.EARLIEST);
+
+            long[] messageLatencies = new long[messages];
+            long messagesStart = System.nanoTime();
+            for (int i = 0; i < messages; i++) {
+                long start = System.nanoTime();
+                bridge.sendMessage(processId, "Benchmark", "payload-" + i);
+                messageLatencies[i] = System.nanoTime() - start;
+            }
+            report(label + " sendMessage (sequential)", messageLatencies, System.nanoTime() - messagesStart);
+
+            List<AOMessage> batchMessages = new ArrayList<>(batch);
+            for (int i = 0; i < batch; i++) {
+                batchMessages.add(AOMessage.of(processId, "Benchmark", "batch-payload-" + i));
+            }
+            MessageBatchResult result = bridge.sendBatch(batchMessages);
+            logger.info("📊 {} sendBatch (max in flight {}): {}", label, bridge.getBatchSender().getMaxInFlight(), result);
+
+            streamMessages(bridge, processId, label, batch);
+            sendPayloads(bridge, processId, label, payloads, payloadBytes);
+
+            long expected = messages + batch + batch + (payloads > 0 && payloadBytes > 0 ? payloads * 3L : 0);
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (subscription.getDeliveredCount() < expected && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            logger.info("📬 {} subscription delivered {}/{} results ({} polls, cursor {})", label,
+                    subscription.getDeliveredCount(), expected, bridge.getSubscriptions().getPollCount(), subscription.getCursor());
+            logger.info("📊 {} JS log lines emitted: {}", label, bridge.getJsLog().getEmittedCount());
+            logger.info("📈 {} bridge metrics: {}", label, bridge.getMetrics());
+            logger.info("📈 {} V8 heap: {}", label, bridge.getHeapStatistics());
+        }
+    }
+
+    /**
+     * 通过 messageStream 发送，下游每次只 request 一条，验证在途数不超过窗口
+     */
+    private static void streamMessages(AOJavaBridge bridge, String processId, String label, int count) {
+        MessageStreamProcessor stream = bridge.messageStream();
+        long[] latencies = new long[count];
+        AtomicInteger received = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger peakOutstanding = new AtomicInteger();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+
+        stream.subscribe(new Flow.Subscriber<MessageBatchResult.Entry>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(MessageBatchResult.Entry entry) {
+                peakOutstanding.accumulateAndGet(stream.getOutstandingCount() + 1, Math::max);
+                int index = received.getAndIncrement();
+                if (index < latencies.length) {
+                    latencies[index] = entry.getLatencyNanos();
+                }
+                if (!entry.isSuccess()) {
+                    failed.incrementAndGet();
+                }
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+
+        long start = System.nanoTime();
+        try (SubmissionPublisher<AOMessage> publisher = new SubmissionPublisher<>()) {
+            publisher.subscribe(stream);
+            for (int i = 0; i < count; i++) {
+                publisher.submit(AOMessage.of(processId, "Benchmark", "stream-payload-" + i));
+            }
+        }
+        done.join();
+        report(label + " messageStream (max in flight " + stream.getMaxInFlight() + ")",
+                Arrays.copyOf(latencies, received.get()), System.nanoTime() - start);
+        logger.info("📊 {} messageStream: failed={}, peak outstanding={}", label, failed.get(), peakOutstanding.get());
+    }
+
+    /**
+     * 大消息：同一份随机数据分别以 base64 字符串（旧做法）、byte[] 和 direct ByteBuffer 顺序发送
+     */
+    private static void sendPayloads(AOJavaBridge bridge, String processId, String label, int count, int size) throws Exception {
+        if (count <= 0 || size <= 0) {
+            return;
+        }
+        byte[] payload = new byte[size];
+        new SecureRandom().nextBytes(payload);
+        ByteBuffer direct = ByteBuffer.allocateDirect(size);
+        direct.put(payload).flip();
+
+        for (String mode : new String[]{"base64", "byte[]", "direct"}) {
+            long[] latencies = new long[count];
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                long messageStart = System.nanoTime();
+                switch (mode) {
+                    case "base64":
+                        bridge.sendMessageAsync(processId, "Payload", Base64.getEncoder().encodeToString(payload)).join();
+                        break;
+                    case "byte[]":
+                        bridge.sendMessageAsync(processId, "Payload", ByteBuffer.wrap(payload)).join();
+                        break;
+                    default:
+                        bridge.sendMessageAsync(processId, "Payload", direct.duplicate()).join();
+                        break;
+                }
+                latencies[i] = System.nanoTime() - messageStart;
+            }
+            long elapsed = System.nanoTime() - start;
+            report(label + " payload " + size / 1024 + " KB as " + mode, latencies, elapsed);
+            logger.info("📊 {} payload {} KB as {}: {} MB/s, Java allocated {} KB per message",
+                    label, size / 1024, mode,
+                    String.format("%.1f", (double) size * count / (1024 * 1024) * 1_000_000_000d / elapsed),
+                    (allocatedBytes() - allocatedBefore) / count / 1024);
+        }
+        logger.info("📈 {} V8 heap after payloads: {}", label, bridge.getHeapStatistics());
+    }
+
+    /**
+     * 当前所有线程累计分配的堆内存（包括事件循环线程和 HTTP 线程）
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+        long total = 0;
+        for (long allocated : ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            total += Math.max(0, allocated);
+        }
+        return total;
+    }
+
+    private static void report(String name, long[] latencies, long elapsedNanos) {
+        if (latencies.length == 0) {
+            return;
+        }
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        logger.info("📊 {}: n={}, throughput={} ops/s, p50={} ms, p99={} ms, max={} ms",
+                name, sorted.length,
+                String.format("%.1f", sorted.length * 1_000_000_000d / elapsedNanos),
+                String.format("%.2f", percentile(sorted, 50) / 1_000_000d),
+                String.format("%.2f", percentile(sorted, 99) / 1_000_000d),
+                String.format("%.2f", sorted[sorted.length - 1] / 1_000_000d));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100d * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * 生成临时 RSA-4096 JWK 钱包（与 ~/.aos.json 格式相同）
+     */
+    static Path writeTemporaryWallet() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(new RSAKeyGenParameterSpec(4096, RSAKeyGenParameterSpec.F4));
+        RSAPrivateCrtKey key = (RSAPrivateCrtKey) generator.generateKeyPair().getPrivate();
+
+        Map<String, String> jwk = new LinkedHashMap<>();
+        jwk.put("kty", "RSA");
+        jwk.put("n", base64Url(key.getModulus()));
+        jwk.put("e", base64Url(key.getPublicExponent()));
+        jwk.put("d", base64Url(key.getPrivateExponent()));
+        jwk.put("p", base64Url(key.getPrimeP()));
+        jwk.put("q", base64Url(key.getPrimeQ()));
+        jwk.put("dp", base64Url(key.getPrimeExponentP()));
+        jwk.put("dq", base64Url(key.getPrimeExponentQ()));
+        jwk.put("qi", base64Url(key.getCrtCoefficient()));
+
+        Path file = Files.createTempFile("ao-benchmark-wallet", ".json");
+        file.toFile().deleteOnExit();
+        new ObjectMapper().writeValue(file.toFile(), jwk);
+        logger.info("🔑 Generated temporary benchmark wallet {}", file);
+        return file;
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * 形如 --ao.batch.max-in-flight 32 的参数直接作为桥接配置项
+     */
+    private static Properties filterProperties(Map<String, String> options) {
+        Properties properties = new Properties();
+        options.forEach((key, value) -> {
+            if (key.startsWith("ao.") || key.startsWith("javet.")) {
+                properties.setProperty(key, value);
+            }
+        });
+        return properties;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.aodemo;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 桥接指标
+ *
+ * - 仪表：引擎池活跃 / 空闲数、事件循环在途 / 排队数、未完成的 Promise 数，读取时才计算
+ * - 操作：借出引擎、spawn、message、result 等的延迟直方图和成功 / 失败次数
+ * - V8 堆：各运行时的 `v8.getHeapStatistics()`，按需从运行时所在线程读取
+ * 每次记录同时转发给可插拔的 {@link MetricsRegistry}，并通过 {@link BridgeMetricsMXBean} 暴露给 JMX。
+ */
+public class BridgeMetrics implements BridgeMetricsMXBean {
+    private final MetricsRegistry registry;
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+    private volatile Supplier<Map<String, Long>> heapStatistics = Map::of;
+
+    public BridgeMetrics(MetricsRegistry registry) {
+        this.registry = registry == null ? MetricsRegistry.NOOP : registry;
+    }
+
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+        registry.gauge("ao." + name, supplier);
+    }
+
+    void setHeapStatisticsSupplier(Supplier<Map<String, Long>> supplier) {
+        this.heapStatistics = supplier;
+    }
+
+    public void record(String operation, long nanos, boolean success) {
+        Operation op = operations.computeIfAbsent(operation, k -> new Operation());
+        op.latency.record(nanos);
+        (success ? op.successes : op.errors).increment();
+        registry.recordLatency("ao.op.latency", operation, nanos, success);
+    }
+
+    /**
+     * 在 future 完成时记录从现在开始的耗时，返回同一个 future（取消等语义不变）
+     */
+    public <T> CompletableFuture<T> time(String operation, CompletableFuture<T> future) {
+        long start = System.nanoTime();
+        future.whenComplete((value, error) -> record(operation, System.nanoTime() - start, error == null));
+        return future;
+    }
+
+    /**
+     * 某个操作的延迟直方图，尚无记录时为 null
+     */
+    public LatencyHistogram getLatency(String operation) {
+        Operation op = operations.get(operation);
+        return op == null ? null : op.latency;
+    }
+
+    @Override
+    public Map<String, Long> getGauges() {
+        Map<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, supplier) -> values.put(name, supplier.getAsLong()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> values = new TreeMap<>();
+        operations.forEach((name, op) -> values.put(name, op.successes.sum()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getOperationErrors() {
+        Map<String, Long> values = new TreeMap<>();
+        operations.forEach((name, op) -> values.put(name, op.errors.sum()));
+        return values;
+    }
+
+    @Override
+    public Map<String, Double> getOperationMeanMillis() {
+        return latencyView(LatencyHistogram::getMeanMillis);
+    }
+
+    @Override
+    public Map<String, Double> getOperationP50Millis() {
+        return latencyView(h -> h.getPercentileMillis(50));
+    }
+
+    @Override
+    public Map<String, Double> getOperationP99Millis() {
+        return latencyView(h -> h.getPercentileMillis(99));
+    }
+
+    @Override
+    public Map<String, Double> getOperationMaxMillis() {
+        return latencyView(LatencyHistogram::getMaxMillis);
+    }
+
+    @Override
+    public Map<String, Long> getHeapStatistics() {
+        return new TreeMap<>(heapStatistics.get());
+    }
+
+    @Override
+    public void resetLatencies() {
+        operations.values().forEach(op -> {
+            op.latency.reset();
+            op.successes.reset();
+            op.errors.reset();
+        });
+    }
+
+    private Map<String, Double> latencyView(ToDoubleFunction<LatencyHistogram> view) {
+        Map<String, Double> values = new TreeMap<>();
+        operations.forEach((name, op) -> values.put(name, view.applyAsDouble(op.latency)));
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("gauges=").append(getGauges());
+        new TreeMap<>(operations).forEach((name, op) -> builder.append("\n  ").append(name)
+                .append(": ok=").append(op.successes.sum())
+                .append(", errors=").append(op.errors.sum())
+                .append(", ").append(op.latency));
+        return builder.toString();
+    }
+
+    private static final class Operation {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.aodemo;
+
+import java.util.Map;
+
+/**
+ * AOJavaBridge 的 JMX 视图，注册为 `com.example.aodemo:type=AOJavaBridge,name=...`（jconsole / VisualVM 可直接查看）
+ */
+public interface BridgeMetricsMXBean {
+
+    /**
+     * 仪表：pool.active、pool.idle、pool.max、pool.bootstrapped、loop.in-flight、loop.queued、promise.pending 等
+     */
+    Map<String, Long> getGauges();
+
+    /**
+     * 按操作（pool.borrow、spawn、message、result、dryrun ……）统计的成功次数
+     */
+    Map<String, Long> getOperationCounts();
+
+    Map<String, Long> getOperationErrors();
+
+    Map<String, Double> getOperationMeanMillis();
+
+    Map<String, Double> getOperationP50Millis();
+
+    Map<String, Double> getOperationP99Millis();
+
+    Map<String, Double> getOperationMaxMillis();
+
+    /**
+     * 各运行时的 V8 堆统计，键为 `运行时.字段`（used_heap_size、total_heap_size、heap_size_limit、external_memory、rss）
+     */
+    Map<String, Long> getHeapStatistics();
+
+    /**
+     * 清空延迟直方图和计数（例如调整池大小后重新观察）
+     */
+    void resetLatencies();
+}
@@ -0,0 +1,174 @@
+package com.example.aodemo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量创建进程的结果：按提交顺序排列的逐个结果，以及总耗时和重试次数。
+ */
+public final class BulkSpawnResult {
+    private final List<Entry> entries;
+    private final long elapsedNanos;
+    private final int failedCount;
+    private final int unknownCount;
+    private final int retryCount;
+
+    BulkSpawnResult(List<Entry> entries, long elapsedNanos) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.elapsedNanos = elapsedNanos;
+        int failed = 0;
+        int unknown = 0;
+        int retries = 0;
+        for (Entry entry : entries) {
+            if (!entry.isSuccess()) {
+                failed++;
+            }
+            if (entry.outcomeUnknown) {
+                unknown++;
+            }
+            retries += entry.attempts - 1;
+        }
+        this.failedCount = failed;
+        this.unknownCount = unknown;
+        this.retryCount = retries;
+    }
+
+    /**
+     * 逐个结果，顺序与提交的 spec 列表一致
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * 成功创建的进程 ID，按提交顺序
+     */
+    public List<String> getProcessIds() {
+        List<String> ids = new ArrayList<>(entries.size() - failedCount);
+        for (Entry entry : entries) {
+            if (entry.isSuccess()) {
+                ids.add(entry.processId);
+            }
+        }
+        return ids;
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public int getSpawnedCount() {
+        return entries.size() - failedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * 失败但请求可能已到达 MU 的进程数（已计入 getFailedCount），这些进程可能已经存在
+     */
+    public int getUnknownCount() {
+        return unknownCount;
+    }
+
+    /**
+     * 所有进程累计的重试次数（不含首次尝试）
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * 每秒创建的进程数
+     */
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : entries.size() * 1_000_000_000d / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkSpawnResult{size=%d, spawned=%d, failed=%d, unknown=%d, retries=%d, elapsed=%d ms, throughput=%.1f spawn/s}",
+                entries.size(), getSpawnedCount(), failedCount, unknownCount, retryCount, getElapsedMillis(), getThroughput());
+    }
+
+    /**
+     * 单个进程的创建结果
+     */
+    public static final class Entry {
+        private final int index;
+        private final SpawnSpec spec;
+        private final String processId;
+        private final Throwable error;
+        private final boolean outcomeUnknown;
+        private final int attempts;
+        private final long latencyNanos;
+
+        Entry(int index, SpawnSpec spec, String processId, Throwable error, boolean outcomeUnknown, int attempts,
+              long latencyNanos) {
+            this.index = index;
+            this.spec = spec;
+            this.processId = processId;
+            this.error = error;
+            this.outcomeUnknown = outcomeUnknown;
+            this.attempts = attempts;
+            this.latencyNanos = latencyNanos;
+        }
+
+        /**
+         * 在提交列表中的位置
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public SpawnSpec getSpec() {
+            return spec;
+        }
+
+        /**
+         * 进程 ID，失败时为 null
+         */
+        public String getProcessId() {
+            return processId;
+        }
+
+        /**
+         * 最后一次尝试的失败原因，成功时为 null
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * 失败时请求可能已经到达 MU（超时等），进程可能已经创建，需要调用方核对后再决定是否重新创建
+         */
+        public boolean isOutcomeUnknown() {
+            return outcomeUnknown;
+        }
+
+        /**
+         * 尝试次数（含首次）
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * 从首次尝试到最终结果的耗时，包括重试等待
+         */
+        public double getLatencyMillis() {
+            return latencyNanos / 1_000_000d;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.aodemo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * 批量创建进程
+ *
+ * 保持最多 maxInFlight 个 spawn 同时在途，每完成一个就启动下一个，不阻塞调用方线程。
+ * 只有确定请求没有被 MU 接收的错误（连接被拒绝、DNS 暂时失败、HTTP 408/425/429/503）才按指数退避加全抖动重试，
+ * 最多 maxAttempts 次。超时、连接中途断开和 HTTP 500/502/504 时请求可能已经到达 MU：事件循环的超时只是放弃等待，
+ * JS 侧的 spawn 仍可能完成，重试会多创建一个真实的进程，所以这类结果不重试，标记为"结果未知"交给调用方核对。
+ * 其他错误（包括返回的进程 ID 格式不对）同样不重试。每个进程得到最终结果时立即回调 progress，全部完成后返回按提交顺序排列的结果。
+ */
+public class BulkSpawner {
+    private static final Logger logger = LoggerFactory.getLogger(BulkSpawner.class);
+
+    // aoconnect 把 HTTP 状态码和 Node 的网络错误码写进错误消息
+    // 请求确定没有被处理：连接没有建立，或者服务端明确拒绝
+    private static final Pattern NOT_DELIVERED_ERROR = Pattern.compile(
+            "\\b(408|425|429|503)\\b|ECONNREFUSED|EAI_AGAIN");
+    // 请求可能已经被处理：发出之后才失败
+    private static final Pattern MAYBE_DELIVERED_ERROR = Pattern.compile(
+            "\\b(500|502|504)\\b|fetch failed|socket hang up|ECONNRESET|ETIMEDOUT|UND_ERR");
+
+    private final Function<SpawnSpec, CompletableFuture<String>> spawner;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final long retryMaxMillis;
+
+    // 累计指标（跨批次）
+    private final LongAdder spawnedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder unknownCount = new LongAdder();
+
+    /**
+     * @param spawner         创建单个进程，返回已校验的进程 ID
+     * @param retryBaseMillis 第一次重试的退避上限，之后每次翻倍
+     * @param retryMaxMillis  退避上限的最大值
+     */
+    public BulkSpawner(Function<SpawnSpec, CompletableFuture<String>> spawner, int maxInFlight, int maxAttempts,
+                       long retryBaseMillis, long retryMaxMillis) {
+        this.spawner = spawner;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseMillis = Math.max(1, retryBaseMillis);
+        this.retryMaxMillis = Math.max(this.retryBaseMillis, retryMaxMillis);
+    }
+
+    /**
+     * 创建一批进程。progress 在公共 ForkJoinPool 上调用，不要在里面阻塞；单个失败不会让整批失败。
+     */
+    public CompletableFuture<BulkSpawnResult> spawn(List<SpawnSpec> specs, Consumer<BulkSpawnResult.Entry> progress) {
+        return new Bulk(specs, progress).start();
+    }
+
+    /**
+     * 是否可以安全重试：请求确定没有到达 MU。可能已经到达的错误优先，不重试
+     */
+    static boolean isRetryable(Throwable error) {
+        return !isOutcomeUnknown(error) && matches(error, NOT_DELIVERED_ERROR);
+    }
+
+    /**
+     * 请求是否可能已经到达 MU（超时、发出后连接断开、网关错误），此时无法确定进程是否已创建
+     */
+    static boolean isOutcomeUnknown(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return matches(error, MAYBE_DELIVERED_ERROR);
+    }
+
+    private static boolean matches(Throwable error, Pattern pattern) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            String message = t.getMessage();
+            if (message != null && pattern.matcher(message).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 第 attempt 次失败后的等待时间：[0, min(max, base × 2^(attempt-1))] 内均匀分布，
+     * 避免大量进程在同一时刻一起重试
+     */
+    long backoffMillis(int attempt) {
+        long cap = retryBaseMillis << Math.min(attempt - 1, 20);
+        return ThreadLocalRandom.current().nextLong(Math.min(retryMaxMillis, cap) + 1);
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getSpawnedCount() {
+        return spawnedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * 结果未知（请求可能已到达 MU）的进程数，已计入 getFailedCount
+     */
+    public long getUnknownCount() {
+        return unknownCount.sum();
+    }
+
+    private final class Bulk {
+        private final List<SpawnSpec> specs;
+        private final Consumer<BulkSpawnResult.Entry> progress;
+        private final BulkSpawnResult.Entry[] entries;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<BulkSpawnResult> done = new CompletableFuture<>();
+        private long startNanos;
+
+        private Bulk(List<SpawnSpec> specs, Consumer<BulkSpawnResult.Entry> progress) {
+            this.specs = specs;
+            this.progress = progress;
+            this.entries = new BulkSpawnResult.Entry[specs.size()];
+            this.remaining = new AtomicInteger(specs.size());
+        }
+
+        private CompletableFuture<BulkSpawnResult> start() {
+            startNanos = System.nanoTime();
+            if (specs.isEmpty()) {
+                done.complete(new BulkSpawnResult(List.of(), 0));
+                return done;
+            }
+            int initial = Math.min(maxInFlight, specs.size());
+            for (int i = 0; i < initial; i++) {
+                launchNext();
+            }
+            return done;
+        }
+
+        private void launchNext() {
+            int index = next.getAndIncrement();
+            if (index < specs.size()) {
+                attempt(index, 1, System.nanoTime());
+            }
+        }
+
+        private void attempt(int index, int attempt, long firstAttemptNanos) {
+            SpawnSpec spec = specs.get(index);
+            CompletableFuture<String> future;
+            try {
+                future = spawner.apply(spec);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+
+            // 同步失败时也异步回调，避免连续失败造成深度递归
+            future.whenCompleteAsync((processId, error) -> {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause != null && attempt < maxAttempts && isRetryable(cause)) {
+                    long delay = backoffMillis(attempt);
+                    retryCount.increment();
+                    logger.debug("Spawn #{} attempt {} failed ({}), retrying in {} ms", index, attempt, cause.getMessage(), delay);
+                    CompletableFuture.runAsync(() -> attempt(index, attempt + 1, firstAttemptNanos),
+                            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+                    return;
+                }
+                boolean unknown = cause != null && isOutcomeUnknown(cause);
+                if (unknown) {
+                    logger.warn("Spawn #{} failed after the request may have reached the MU, not retrying: {}", index, cause.getMessage());
+                }
+                finish(new BulkSpawnResult.Entry(index, spec, processId, cause, unknown, attempt,
+                        System.nanoTime() - firstAttemptNanos));
+            });
+        }
+
+        private void finish(BulkSpawnResult.Entry entry) {
+            entries[entry.getIndex()] = entry;
+            (entry.isSuccess() ? spawnedCount : failedCount).increment();
+            if (entry.isOutcomeUnknown()) {
+                unknownCount.increment();
+            }
+            if (progress != null) {
+                try {
+                    progress.accept(entry);
+                } catch (RuntimeException e) {
+                    logger.warn("Bulk spawn progress listener failed: {}", e.getMessage());
+                }
+            }
+
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(new BulkSpawnResult(Arrays.asList(entries), System.nanoTime() - startNanos));
+            } else {
+                launchNext();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.aodemo;
+
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Node 模块编译缓存（V8 code cache）持久化
+ *
+ * 引导时 `require('@permaweb/aoconnect')` 和 undici 的耗时主要在模块解析与编译上。Node 22 的
+ * `module.enableCompileCache(dir)` 把每个模块编译后的 V8 code cache 写到磁盘，之后的 JVM 启动和新建的池运行时
+ * 直接反序列化，跳过编译。必须在第一次 `require` 之前启用；缓存按模块内容校验，模块升级后自动失效。
+ *
+ * Node 模式下的 Javet 不支持自定义堆快照，因此只缓存编译结果，引导脚本本身仍然执行。
+ */
+public class CompileCache {
+    private static final Logger logger = LoggerFactory.getLogger(CompileCache.class);
+
+    private final Path directory;
+    private final boolean enabled;
+    private final boolean warmAtStartup;
+
+    public CompileCache(Path directory, boolean enabled) {
+        this.directory = directory;
+        this.enabled = enabled;
+        this.warmAtStartup = enabled && countFiles(directory) > 0;
+    }
+
+    /**
+     * 在运行时中启用编译缓存，返回 Node 报告的状态（ENABLED / ALREADY_ENABLED / FAILED / DISABLED / UNSUPPORTED）
+     */
+    public String enable(V8Runtime runtime) throws JavetException {
+        if (!enabled) {
+            return "DISABLED";
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            logger.warn("⚠️ Cannot create compile cache directory {}: {}", directory, e.getMessage());
+            return "FAILED";
+        }
+        String status = runtime.getExecutor(
+            "(() => {\n" +
+            "  const mod = require('node:module');\n" +
+            "  if (typeof mod.enableCompileCache !== 'function') { return 'UNSUPPORTED'; }\n" +
+            "  const result = mod.enableCompileCache(" + jsString(directory.toString()) + ");\n" +
+            "  const name = Object.keys(mod.constants.compileCacheStatus).find(k => mod.constants.compileCacheStatus[k] === result.status);\n" +
+            "  return name || String(result.status);\n" +
+            "})()"
+        ).executeString();
+        logger.debug("Node compile cache {} ({})", status, directory);
+        return status;
+    }
+
+    /**
+     * 立即把新编译的模块写入磁盘。Node 默认在进程退出时写入，而 Javet 关闭运行时不会触发，因此引导后主动刷新。
+     */
+    public void flush(V8Runtime runtime) throws JavetException {
+        if (!enabled) {
+            return;
+        }
+        runtime.getExecutor(
+            "{ const mod = require('node:module'); if (typeof mod.flushCompileCache === 'function') { mod.flushCompileCache(); } }"
+        ).executeVoid();
+    }
+
+    /**
+     * 删除磁盘上的缓存（冷启动基准测试使用）
+     */
+    public void clear() throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 创建时磁盘上是否已有缓存（即本次是否为热启动）
+     */
+    public boolean isWarmAtStartup() {
+        return warmAtStartup;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 当前缓存文件数
+     */
+    public long getFileCount() {
+        return countFiles(directory);
+    }
+
+    private static long countFiles(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile).count();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String jsString(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.aodemo;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ANS-104 DataItem（Arweave 签名类型）
+ *
+ * 二进制布局（整数均为小端）：
+ * <pre>
+ * 签名类型 u16 | 签名 512B | owner 512B | target 标志 + 32B | anchor 标志 + 32B |
+ * 标签数 u64 | 标签字节数 u64 | Avro 编码的标签 | 数据
+ * </pre>
+ * 签名内容为 deep-hash(["dataitem", "1", "1", owner, target, anchor, tags, data])，ID 为 base64url(SHA-256(签名))，
+ * 与 arbundles / aoconnect 的 `createDataItemSigner` 输出逐字节一致。
+ */
+public final class DataItem {
+    static final int SIGNATURE_TYPE_ARWEAVE = 1;
+    static final int SIGNATURE_LENGTH = 512;
+    static final int OWNER_LENGTH = 512;
+
+    private static final int HEADER_LENGTH = 2 + SIGNATURE_LENGTH + OWNER_LENGTH;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final byte[] raw;
+    private final int tagsOffset;
+    private final int tagsLength;
+    private final int tagCount;
+    private final byte[] target;
+    private final byte[] anchor;
+
+    private DataItem(byte[] raw, byte[] target, byte[] anchor, int tagCount, int tagsOffset, int tagsLength) {
+        this.raw = raw;
+        this.target = target;
+        this.anchor = anchor;
+        this.tagCount = tagCount;
+        this.tagsOffset = tagsOffset;
+        this.tagsLength = tagsLength;
+    }
+
+    /**
+     * 构造未签名的 DataItem（签名区为 0），由 {@link DataItemSigner} 填入签名。
+     *
+     * @param owner  RSA 公钥模数，512 字节
+     * @param target 目标进程 ID（base64url），可为 null
+     * @param anchor 32 字节锚点（原始字符串），可为 null
+     */
+    static DataItem unsigned(byte[] owner, String target, String anchor, List<Map.Entry<String, String>> tags, byte[] data) {
+        return unsigned(owner, target, anchor, tags, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * 同上，数据为 data 剩余的字节，直接写入 DataItem，不产生中间副本
+     */
+    static DataItem unsigned(byte[] owner, String target, String anchor, List<Map.Entry<String, String>> tags, ByteBuffer data) {
+        if (owner.length != OWNER_LENGTH) {
+            throw new IllegalArgumentException("Owner must be " + OWNER_LENGTH + " bytes, got " + owner.length);
+        }
+        byte[] targetBytes = target == null || target.isEmpty() ? EMPTY : Base64.getUrlDecoder().decode(target);
+        byte[] anchorBytes = anchor == null || anchor.isEmpty() ? EMPTY : anchor.getBytes(StandardCharsets.UTF_8);
+        if (targetBytes.length != 0 && targetBytes.length != 32) {
+            throw new IllegalArgumentException("Target must be 32 bytes, got " + targetBytes.length);
+        }
+        if (anchorBytes.length != 0 && anchorBytes.length != 32) {
+            throw new IllegalArgumentException("Anchor must be 32 bytes, got " + anchorBytes.length);
+        }
+        byte[] tagBytes = encodeTags(tags);
+
+        int length = HEADER_LENGTH + 1 + targetBytes.length + 1 + anchorBytes.length + 16 + tagBytes.length + data.remaining();
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putShort((short) SIGNATURE_TYPE_ARWEAVE);
+        buffer.position(2 + SIGNATURE_LENGTH);
+        buffer.put(owner);
+        putOptional(buffer, targetBytes);
+        putOptional(buffer, anchorBytes);
+        buffer.putLong(tags.size());
+        buffer.putLong(tagBytes.length);
+        int tagsOffset = buffer.position();
+        buffer.put(tagBytes);
+        buffer.put(data.duplicate());
+        return new DataItem(buffer.array(), targetBytes, anchorBytes, tags.size(), tagsOffset, tagBytes.length);
+    }
+
+    /**
+     * 解析二进制 DataItem（例如 JS 侧 `createDataItemSigner` 生成的 raw），只支持 Arweave 签名类型。
+     */
+    public static DataItem parse(byte[] raw) {
+        ByteBuffer buffer = ByteBuffer.wrap(raw).order(ByteOrder.LITTLE_ENDIAN);
+        int signatureType = buffer.getShort() & 0xffff;
+        if (signatureType != SIGNATURE_TYPE_ARWEAVE) {
+            throw new IllegalArgumentException("Unsupported signature type: " + signatureType);
+        }
+        buffer.position(HEADER_LENGTH);
+        byte[] target = readOptional(buffer);
+        byte[] anchor = readOptional(buffer);
+        long tagCount = buffer.getLong();
+        long tagsLength = buffer.getLong();
+        if (tagCount < 0 || tagCount > Integer.MAX_VALUE || tagsLength < 0 || tagsLength > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed data item tag header");
+        }
+        return new DataItem(raw, target, anchor, (int) tagCount, buffer.position(), (int) tagsLength);
+    }
+
+    /**
+     * 待签名的消息：deep-hash 结果（SHA-384，48 字节）
+     */
+    public byte[] getSignatureData() {
+        return deepHash(List.of(
+                utf8("dataitem"),
+                utf8("1"),
+                utf8(String.valueOf(SIGNATURE_TYPE_ARWEAVE)),
+                getOwner(),
+                target,
+                anchor,
+                Arrays.copyOfRange(raw, tagsOffset, tagsOffset + tagsLength),
+                getData()));
+    }
+
+    void setSignature(byte[] signature) {
+        if (signature.length != SIGNATURE_LENGTH) {
+            throw new IllegalArgumentException("Signature must be " + SIGNATURE_LENGTH + " bytes, got " + signature.length);
+        }
+        System.arraycopy(signature, 0, raw, 2, SIGNATURE_LENGTH);
+    }
+
+    /**
+     * DataItem ID：base64url(SHA-256(签名))
+     */
+    public String getId() {
+        MessageDigest sha256 = digest("SHA-256");
+        sha256.update(raw, 2, SIGNATURE_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256.digest());
+    }
+
+    public byte[] getSignature() {
+        return Arrays.copyOfRange(raw, 2, 2 + SIGNATURE_LENGTH);
+    }
+
+    public byte[] getOwner() {
+        return Arrays.copyOfRange(raw, 2 + SIGNATURE_LENGTH, HEADER_LENGTH);
+    }
+
+    /**
+     * 目标进程 ID，无目标时为空字符串
+     */
+    public String getTarget() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(target);
+    }
+
+    public String getAnchor() {
+        return new String(anchor, StandardCharsets.UTF_8);
+    }
+
+    public List<Map.Entry<String, String>> getTags() {
+        return decodeTags(raw, tagsOffset, tagsLength, tagCount);
+    }
+
+    public byte[] getData() {
+        return Arrays.copyOfRange(raw, tagsOffset + tagsLength, raw.length);
+    }
+
+    /**
+     * 完整的二进制 DataItem（MU `POST /` 的请求体）
+     */
+    public byte[] getRaw() {
+        return raw.clone();
+    }
+
+    // ---- Avro 标签编码：array<record { name: bytes, value: bytes }> ----
+
+    static byte[] encodeTags(List<Map.Entry<String, String>> tags) {
+        if (tags.isEmpty()) {
+            return EMPTY;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * tags.size());
+        writeLong(out, tags.size());
+        for (Map.Entry<String, String> tag : tags) {
+            writeBytes(out, utf8(tag.getKey()));
+            writeBytes(out, utf8(tag.getValue()));
+        }
+        writeLong(out, 0);
+        return out.toByteArray();
+    }
+
+    private static List<Map.Entry<String, String>> decodeTags(byte[] raw, int offset, int length, int expected) {
+        if (length == 0) {
+            return Collections.emptyList();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(raw, offset, length);
+        List<Map.Entry<String, String>> tags = new ArrayList<>(expected);
+        long count;
+        while ((count = readLong(buffer)) != 0) {
+            if (count < 0) {
+                // 负数块计数后跟块字节数（Avro 规范）
+                count = -count;
+                readLong(buffer);
+            }
+            for (long i = 0; i < count; i++) {
+                String name = new String(readBytes(buffer), StandardCharsets.UTF_8);
+                String value = new String(readBytes(buffer), StandardCharsets.UTF_8);
+                tags.add(Map.entry(name, value));
+            }
+        }
+        if (tags.size() != expected) {
+            throw new IllegalArgumentException("Tag count mismatch: header " + expected + ", decoded " + tags.size());
+        }
+        return tags;
+    }
+
+    private static void writeBytes(ByteArrayOutputStream out, byte[] bytes) {
+        writeLong(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        long length = readLong(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed Avro tag bytes");
+        }
+        byte[] bytes = new byte[(int) length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static long readLong(ByteBuffer buffer) {
+        long zigzag = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IllegalArgumentException("Malformed Avro varint");
+            }
+            b = buffer.get() & 0xff;
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    // ---- deep-hash（arweave-js / arbundles 算法，SHA-384） ----
+
+    static byte[] deepHash(List<byte[]> chunks) {
+        MessageDigest sha384 = digest("SHA-384");
+        byte[] accumulator = sha384.digest(utf8("list" + chunks.size()));
+        for (byte[] chunk : chunks) {
+            sha384.update(accumulator);
+            sha384.update(deepHashBlob(chunk));
+            accumulator = sha384.digest();
+        }
+        return accumulator;
+    }
+
+    private static byte[] deepHashBlob(byte[] blob) {
+        MessageDigest sha384 = digest("SHA-384");
+        byte[] tagHash = sha384.digest(utf8("blob" + blob.length));
+        byte[] dataHash = sha384.digest(blob);
+        sha384.update(tagHash);
+        sha384.update(dataHash);
+        return sha384.digest();
+    }
+
+    private static void putOptional(ByteBuffer buffer, byte[] value) {
+        buffer.put((byte) (value.length == 0 ? 0 : 1));
+        buffer.put(value);
+    }
+
+    private static byte[] readOptional(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return EMPTY;
+        }
+        byte[] value = new byte[32];
+        buffer.get(value);
+        return value;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static MessageDigest digest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algorithm + " not available", e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.aodemo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+import java.security.spec.RSAPrivateCrtKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 纯 Java 的 ANS-104 DataItem 签名器
+ *
+ * 从 `~/.aos.json` 的 JWK 读取 RSA 密钥，以 RSA-PSS（SHA-256、MGF1-SHA-256、盐长 32）对 deep-hash 签名，
+ * 与 aoconnect `createDataItemSigner` 的结果格式一致。签名不经过 V8，实例无状态、线程安全，
+ * 可以在多个线程上并行签名。
+ */
+public class DataItemSigner {
+    private static final PSSParameterSpec PSS_SHA256 =
+        new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1);
+
+    private final PrivateKey privateKey;
+    private final PublicKey publicKey;
+    private final byte[] owner;
+
+    private DataItemSigner(PrivateKey privateKey, PublicKey publicKey, byte[] owner) {
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+        this.owner = owner;
+    }
+
+    /**
+     * 从 JWK JSON（与 AOS CLI 钱包格式相同）创建签名器
+     */
+    public static DataItemSigner fromJwk(String walletJson) {
+        try {
+            JsonNode jwk = new ObjectMapper().readTree(walletJson);
+            if (!"RSA".equals(jwk.path("kty").asText())) {
+                throw new IllegalArgumentException("Wallet is not an RSA JWK");
+            }
+            BigInteger n = jwkInteger(jwk, "n");
+            BigInteger e = jwkInteger(jwk, "e");
+            KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+            PrivateKey privateKey = keyFactory.generatePrivate(new RSAPrivateCrtKeySpec(n, e,
+                    jwkInteger(jwk, "d"), jwkInteger(jwk, "p"), jwkInteger(jwk, "q"),
+                    jwkInteger(jwk, "dp"), jwkInteger(jwk, "dq"), jwkInteger(jwk, "qi")));
+            PublicKey publicKey = keyFactory.generatePublic(new RSAPublicKeySpec(n, e));
+            return new DataItemSigner(privateKey, publicKey, unsigned(n, DataItem.OWNER_LENGTH));
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalArgumentException("Failed to load RSA wallet: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 构造并签名一个 AO 消息 DataItem：target 为进程 ID，标签按 aoconnect `message` 的顺序
+     * （调用方标签在前，协议标签在后）。
+     */
+    public DataItem signMessage(AOMessage message, String anchor) {
+        if (message.isBinary()) {
+            return sign(message.getProcessId(), anchor, messageTags(message), message.getBinaryData());
+        }
+        return sign(message.getProcessId(), anchor, messageTags(message),
+                message.getData().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public DataItem sign(String target, String anchor, List<Map.Entry<String, String>> tags, byte[] data) {
+        return sign(target, anchor, tags, ByteBuffer.wrap(data));
+    }
+
+    /**
+     * 数据为 data 剩余的字节，只在写入 DataItem 时复制一次
+     */
+    public DataItem sign(String target, String anchor, List<Map.Entry<String, String>> tags, ByteBuffer data) {
+        DataItem item = DataItem.unsigned(owner, target, anchor, tags, data);
+        try {
+            Signature signature = Signature.getInstance("RSASSA-PSS");
+            signature.setParameter(PSS_SHA256);
+            signature.initSign(privateKey);
+            signature.update(item.getSignatureData());
+            item.setSignature(signature.sign());
+            return item;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign data item", e);
+        }
+    }
+
+    /**
+     * 校验签名：owner 必须是本钱包，且签名能通过 RSA-PSS 验证
+     */
+    public boolean verify(DataItem item) {
+        if (!Arrays.equals(owner, item.getOwner())) {
+            return false;
+        }
+        return verify(publicKey, item);
+    }
+
+    /**
+     * 只用 DataItem 自带的 owner 校验签名（不要求是本钱包签发），公钥指数按 Arweave 钱包固定为 65537
+     */
+    public static boolean verifyWithOwner(DataItem item) {
+        try {
+            PublicKey key = KeyFactory.getInstance("RSA").generatePublic(
+                    new RSAPublicKeySpec(new BigInteger(1, item.getOwner()), BigInteger.valueOf(65537)));
+            return verify(key, item);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    private static boolean verify(PublicKey key, DataItem item) {
+        try {
+            Signature signature = Signature.getInstance("RSASSA-PSS");
+            signature.setParameter(PSS_SHA256);
+            signature.initVerify(key);
+            signature.update(item.getSignatureData());
+            return signature.verify(item.getSignature());
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 钱包公钥模数（DataItem owner 字段）
+     */
+    public byte[] getOwner() {
+        return owner.clone();
+    }
+
+    static List<Map.Entry<String, String>> messageTags(AOMessage message) {
+        List<Map<String, String>> userTags = message.toTagList();
+        List<Map.Entry<String, String>> tags = new ArrayList<>(userTags.size() + 4);
+        for (Map<String, String> tag : userTags) {
+            tags.add(Map.entry(tag.get("name"), tag.get("value")));
+        }
+        tags.add(Map.entry("Data-Protocol", "ao"));
+        tags.add(Map.entry("Variant", "ao.TN.1"));
+        tags.add(Map.entry("Type", "Message"));
+        tags.add(Map.entry("SDK", "aoconnect"));
+        return tags;
+    }
+
+    private static BigInteger jwkInteger(JsonNode jwk, String field) {
+        String value = jwk.path(field).asText(null);
+        if (value == null) {
+            throw new IllegalArgumentException("JWK field missing: " + field);
+        }
+        return new BigInteger(1, Base64.getUrlDecoder().decode(value));
+    }
+
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length == length) {
+            return bytes;
+        }
+        byte[] result = new byte[length];
+        if (bytes.length > length) {
+            // 去掉符号位补的前导 0
+            System.arraycopy(bytes, bytes.length - length, result, 0, length);
+        } else {
+            System.arraycopy(bytes, 0, result, length - bytes.length, bytes.length);
+        }
+        return result;
+    }
+}
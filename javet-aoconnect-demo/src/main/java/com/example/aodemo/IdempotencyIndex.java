@@ -0,0 +1,204 @@
+package com.example.aodemo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 消息幂等索引
+ *
+ * 带 `Idempotency-Key` 标签的消息按键去重：
+ * - 已成功：TTL 内重复发送直接返回记录的消息 ID，不再签名和发送
+ * - 在途：共享同一个在途 Future
+ * - 已失败（包括超时，不知道 MU 是否收到）：重新发送第一次签好的 DataItem，消息 ID 不变，MU 端按 ID 去重。
+ *   带键的消息在两种签名模式下都由 Java 签名一次，第一次发送即使在超时后才到达 MU，也与重发的是同一条消息
+ * 索引按最近使用淘汰，最多保留 maxEntries 个键。
+ */
+public class IdempotencyIndex {
+    public static final String TAG = "Idempotency-Key";
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    // 访问顺序：最久未使用的键在最前面
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder resent = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public IdempotencyIndex(long ttlMillis, int maxEntries) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * 消息的幂等键：优先使用调用方的 `Idempotency-Key` 标签；没有时 autoKey 为 true 则用内容哈希，否则返回 null（不去重）。
+     * 内容哈希意味着 TTL 内完全相同的两条消息只发送一次，需要重复发送时请显式指定不同的键。
+     */
+    public static String keyOf(AOMessage message, boolean autoKey) {
+        String key = message.getTags().get(TAG);
+        if (key != null && !key.isEmpty()) {
+            return key;
+        }
+        return autoKey ? message.contentHash() : null;
+    }
+
+    /**
+     * 带上幂等键标签的消息（已有相同标签时原样返回），使重发的消息在网络上也可以识别
+     */
+    public static AOMessage withKey(AOMessage message, String key) {
+        if (key.equals(message.getTags().get(TAG))) {
+            return message;
+        }
+        Map<String, String> tags = new LinkedHashMap<>(message.getTags());
+        tags.put(TAG, key);
+        return message.isBinary()
+                ? new AOMessage(message.getProcessId(), message.getAction(), tags, message.getBinaryData())
+                : new AOMessage(message.getProcessId(), message.getAction(), tags, message.getData());
+    }
+
+    /**
+     * 按键发送：命中成功或在途的记录时直接返回，否则调用 sender 发送一次。sender 可以在条目上保存签好的 DataItem 供重发时复用。
+     */
+    public CompletableFuture<String> send(String key, Function<Entry, CompletableFuture<String>> sender) {
+        Entry entry;
+        CompletableFuture<String> attempt;
+        long now = System.nanoTime();
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.isExpired(now)) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry != null && !entry.future.isCompletedExceptionally()) {
+                (entry.future.isDone() ? hits : coalesced).increment();
+                return entry.future.copy();
+            }
+            if (entry == null) {
+                misses.increment();
+                entry = new Entry();
+                entries.put(key, entry);
+                evict();
+            } else {
+                resent.increment();
+            }
+            attempt = new CompletableFuture<>();
+            entry.future = attempt;
+            entry.expiresAt = Long.MAX_VALUE;
+        }
+
+        Entry current = entry;
+        CompletableFuture<String> source;
+        try {
+            source = sender.apply(current);
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        source.whenComplete((messageId, error) -> {
+            if (error != null) {
+                attempt.completeExceptionally(error);
+            } else {
+                current.expiresAt = System.nanoTime() + ttlNanos;
+                attempt.complete(messageId);
+            }
+        });
+        // 返回副本：某个调用方取消不会影响共享同一记录的其他调用方
+        return attempt.copy();
+    }
+
+    /**
+     * 超出容量时淘汰最久未使用的键，优先淘汰已完成的；调用方持有 entries 锁
+     */
+    private void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            if (iterator.next().future.isDone()) {
+                iterator.remove();
+            }
+        }
+        iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * 键对应的消息 ID，未记录、未完成或已过期时为 null
+     */
+    public String getMessageId(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.isExpired(System.nanoTime()) || !entry.future.isDone()
+                    || entry.future.isCompletedExceptionally()) {
+                return null;
+            }
+            return entry.future.join();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * 直接返回已记录消息 ID 的次数
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * 合并到在途发送的次数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 上次失败后重新发送的次数
+     */
+    public long getResentCount() {
+        return resent.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 一个幂等键的发送记录
+     */
+    public static final class Entry {
+        private volatile CompletableFuture<String> future;
+        private volatile long expiresAt = Long.MAX_VALUE;
+        private volatile DataItem signedItem;
+
+        private boolean isExpired(long now) {
+            return future != null && future.isDone() && !future.isCompletedExceptionally() && now > expiresAt;
+        }
+
+        /**
+         * 第一次发送时签好的 DataItem，签名完成前为 null
+         */
+        DataItem getSignedItem() {
+            return signedItem;
+        }
+
+        void setSignedItem(DataItem signedItem) {
+            this.signedItem = signedItem;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.aodemo;
+
+import com.caoccao.javet.annotations.V8Function;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.callback.JavetCallbackContext;
+import com.caoccao.javet.values.reference.V8ValueGlobalObject;
+import com.caoccao.javet.values.reference.V8ValueObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JS 侧结构化日志到 SLF4J 的桥接
+ *
+ * 替代运行时中的 `console.log`（同步写 stdout，热路径上每次 HTTP 调用都要跨一次 JNI）：
+ * - JS 调用 `__aoLog(level, event, fields)`，级别过滤和采样都在 JS 侧完成，被过滤的日志不会序列化、不会跨 JNI
+ * - 通过的日志以 (级别, 事件名, 字段 JSON) 回调 Java，写入 logger `com.example.aodemo.js`
+ * - error / warn 不采样；info / debug 按 sampleRate 采样
+ * - 热路径可先检查 `__aoLog.enabled('debug')`，关闭时连字段对象都不创建
+ */
+public class JsLogBridge {
+    static final String CALLBACK_OBJECT = "__javetLog";
+    static final String LOG_FUNCTION = "__aoLog";
+
+    private static final Logger jsLogger = LoggerFactory.getLogger("com.example.aodemo.js");
+
+    private static final String LOG_SCRIPT =
+        "{\n" +
+        "const LEVELS = { error: 1, warn: 2, info: 3, debug: 4 };\n" +
+        "const log = function(level, event, fields) {\n" +
+        "  const severity = LEVELS[level];\n" +
+        "  const config = globalThis.__aoLogConfig;\n" +
+        "  if (!severity || severity > config.level) { return; }\n" +
+        "  if (severity > 2 && config.sampleRate < 1 && Math.random() >= config.sampleRate) { return; }\n" +
+        "  let json = '';\n" +
+        "  if (fields !== undefined) {\n" +
+        "    try { json = JSON.stringify(fields); } catch (e) { json = String(fields); }\n" +
+        "  }\n" +
+        "  __javetLog.log(level, String(event), json);\n" +
+        "};\n" +
+        "log.enabled = level => (LEVELS[level] || 99) <= globalThis.__aoLogConfig.level;\n" +
+        "globalThis.__aoLog = log;\n" +
+        "}";
+
+    private static final String[] LEVEL_NAMES = { "off", "error", "warn", "info", "debug" };
+
+    private final int level;
+    private final double sampleRate;
+    private final LongAdder emitted = new LongAdder();
+    // 每个运行时上 bind 返回的回调上下文，运行时关闭前由 uninstall 释放
+    private final Map<V8Runtime, List<JavetCallbackContext>> callbackContexts =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * @param level      off / error / warn / info / debug
+     * @param sampleRate info / debug 日志的采样比例，0~1
+     */
+    public JsLogBridge(String level, double sampleRate) {
+        this.level = parseLevel(level);
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+    }
+
+    private static int parseLevel(String name) {
+        String normalized = name == null ? "off" : name.trim().toLowerCase(Locale.ROOT);
+        for (int i = 0; i < LEVEL_NAMES.length; i++) {
+            if (LEVEL_NAMES[i].equals(normalized)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown JS log level: " + name);
+    }
+
+    /**
+     * 在运行时中安装回调对象和 `__aoLog`，需要在其他引导脚本之前执行。重新引导时只刷新级别配置。
+     */
+    public void install(V8Runtime runtime) throws JavetException {
+        V8ValueGlobalObject global = runtime.getGlobalObject();
+        runtime.getExecutor("globalThis.__aoLogConfig = { level: " + level + ", sampleRate: " + sampleRate + " };")
+                .executeVoid();
+        if (global.has(CALLBACK_OBJECT)) {
+            return;
+        }
+        try (V8ValueObject callbacks = runtime.createV8ValueObject()) {
+            callbackContexts.put(runtime, callbacks.bind(this));
+            global.set(CALLBACK_OBJECT, callbacks);
+        }
+        runtime.getExecutor(LOG_SCRIPT).executeVoid();
+    }
+
+    /**
+     * 删除回调对象并释放绑定的回调上下文，在运行时关闭之前调用（否则关闭时 Javet 报告回调上下文未回收）。
+     */
+    public void uninstall(V8Runtime runtime) throws JavetException {
+        List<JavetCallbackContext> contexts = callbackContexts.remove(runtime);
+        if (contexts == null || runtime.isClosed()) {
+            return;
+        }
+        runtime.getGlobalObject().delete(CALLBACK_OBJECT);
+        for (JavetCallbackContext context : contexts) {
+            runtime.removeCallbackContext(context.getHandle());
+        }
+    }
+
+    @V8Function(name = "log")
+    public void log(String level, String event, String fields) {
+        emitted.increment();
+        switch (level) {
+            case "error":
+                jsLogger.error("❌ [js] {} {}", event, fields);
+                break;
+            case "warn":
+                jsLogger.warn("⚠️ [js] {} {}", event, fields);
+                break;
+            case "info":
+                jsLogger.info("🟨 [js] {} {}", event, fields);
+                break;
+            default:
+                jsLogger.debug("🟨 [js] {} {}", event, fields);
+                break;
+        }
+    }
+
+    public String getLevel() {
+        return LEVEL_NAMES[level];
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 通过过滤和采样、实际写入 SLF4J 的日志条数
+     */
+    public long getEmittedCount() {
+        return emitted.sum();
+    }
+}
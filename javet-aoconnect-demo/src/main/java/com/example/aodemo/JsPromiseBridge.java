@@ -0,0 +1,132 @@
+package com.example.aodemo;
+
+import com.caoccao.javet.annotations.V8Function;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.callback.JavetCallbackContext;
+import com.caoccao.javet.values.reference.V8ValueGlobalObject;
+import com.caoccao.javet.values.reference.V8ValueObject;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JS Promise 到 Java {@link CompletableFuture} 的桥接。
+ *
+ * 在 Node 运行时中注册一个 Java 回调对象，JS 侧 Promise 的 resolve/reject 直接调用它来完成对应的
+ * CompletableFuture。每次调用使用独立的调用 ID，不再依赖 `globalThis.__javet*Result` 之类的全局结果变量，
+ * 同一个运行时上的并发调用互不干扰。
+ */
+public class JsPromiseBridge {
+    static final String CALLBACK_OBJECT = "__javetPromiseCallbacks";
+    static final String SETTLE_FUNCTION = "__javetSettle";
+
+    private static final String SETTLE_SCRIPT =
+        "globalThis.__javetSettle = function(id, promise) {\n" +
+        "  Promise.resolve(promise).then(\n" +
+        "    value => __javetPromiseCallbacks.resolve(id, typeof value === 'string' ? value : JSON.stringify(value)),\n" +
+        "    error => __javetPromiseCallbacks.reject(id, error ? (error.message || String(error)) : 'Unknown error')\n" +
+        "  );\n" +
+        "};";
+
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Map<Integer, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+    // 每个运行时上 bind 返回的回调上下文，运行时关闭前由 uninstall 释放
+    private final Map<V8Runtime, List<JavetCallbackContext>> callbackContexts =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * 在运行时中安装回调对象和 `__javetSettle(id, promise)` 辅助函数，每个运行时只需安装一次。
+     */
+    public void install(V8Runtime runtime) throws JavetException {
+        V8ValueGlobalObject global = runtime.getGlobalObject();
+        if (global.has(CALLBACK_OBJECT)) {
+            return;
+        }
+        try (V8ValueObject callbacks = runtime.createV8ValueObject()) {
+            callbackContexts.put(runtime, callbacks.bind(this));
+            global.set(CALLBACK_OBJECT, callbacks);
+        }
+        runtime.getExecutor(SETTLE_SCRIPT).executeVoid();
+    }
+
+    /**
+     * 删除回调对象并释放绑定的回调上下文，在运行时关闭之前调用（否则关闭时 Javet 报告回调上下文未回收）。
+     */
+    public void uninstall(V8Runtime runtime) throws JavetException {
+        List<JavetCallbackContext> contexts = callbackContexts.remove(runtime);
+        if (contexts == null || runtime.isClosed()) {
+            return;
+        }
+        runtime.getGlobalObject().delete(CALLBACK_OBJECT);
+        for (JavetCallbackContext context : contexts) {
+            runtime.removeCallbackContext(context.getHandle());
+        }
+    }
+
+    /**
+     * 登记一次新的 JS 调用，返回的调用 ID 需要传给 `__javetSettle`。
+     */
+    public PendingCall newCall() {
+        int id = nextId.incrementAndGet();
+        CompletableFuture<String> future = new CompletableFuture<>();
+        pending.put(id, future);
+        return new PendingCall(id, future);
+    }
+
+    /**
+     * 放弃等待某次调用（超时或取消），之后到达的结果会被丢弃。
+     */
+    public void forget(int id) {
+        pending.remove(id);
+    }
+
+    /**
+     * 当前尚未完成的调用数量。
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @V8Function(name = "resolve")
+    public void resolve(int id, String value) {
+        CompletableFuture<String> future = pending.remove(id);
+        if (future != null) {
+            future.complete(value);
+        }
+    }
+
+    @V8Function(name = "reject")
+    public void reject(int id, String error) {
+        CompletableFuture<String> future = pending.remove(id);
+        if (future != null) {
+            future.completeExceptionally(new RuntimeException("JavaScript error: " + error));
+        }
+    }
+
+    /**
+     * 一次等待中的 JS 调用。
+     */
+    public static final class PendingCall {
+        private final int id;
+        private final CompletableFuture<String> future;
+
+        private PendingCall(int id, CompletableFuture<String> future) {
+            this.id = id;
+            this.future = future;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public CompletableFuture<String> getFuture() {
+            return future;
+        }
+    }
+}
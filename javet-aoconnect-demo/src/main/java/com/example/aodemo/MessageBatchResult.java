@@ -0,0 +1,128 @@
+package com.example.aodemo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量发送结果：按提交顺序排列的逐条结果，以及本批次的吞吐量和延迟统计。
+ */
+public final class MessageBatchResult {
+    private final List<Entry> entries;
+    private final long elapsedNanos;
+    private final long[] sortedLatencies;
+    private final int failedCount;
+
+    MessageBatchResult(List<Entry> entries, long elapsedNanos) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.elapsedNanos = elapsedNanos;
+        this.sortedLatencies = new long[entries.size()];
+        int failed = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            sortedLatencies[i] = entry.latencyNanos;
+            if (!entry.isSuccess()) {
+                failed++;
+            }
+        }
+        Arrays.sort(sortedLatencies);
+        this.failedCount = failed;
+    }
+
+    /**
+     * 逐条结果，顺序与提交的消息列表一致
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public int getSucceededCount() {
+        return entries.size() - failedCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    /**
+     * 本批次吞吐量（条/秒，包括失败的消息）
+     */
+    public double getThroughputPerSecond() {
+        return elapsedNanos == 0 ? 0 : entries.size() * 1_000_000_000d / elapsedNanos;
+    }
+
+    /**
+     * 单条消息延迟的百分位（毫秒），percentile 取 0~100
+     */
+    public double getLatencyPercentileMillis(double percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100d * sortedLatencies.length) - 1;
+        index = Math.max(0, Math.min(index, sortedLatencies.length - 1));
+        return sortedLatencies[index] / 1_000_000d;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MessageBatchResult{size=%d, failed=%d, elapsed=%d ms, throughput=%.1f msg/s, p50=%.1f ms, p99=%.1f ms}",
+                getSize(), failedCount, getElapsedMillis(), getThroughputPerSecond(),
+                getLatencyPercentileMillis(50), getLatencyPercentileMillis(99));
+    }
+
+    /**
+     * 单条消息的发送结果
+     */
+    public static final class Entry {
+        private final AOMessage message;
+        private final String messageId;
+        private final Throwable error;
+        private final long latencyNanos;
+
+        Entry(AOMessage message, String messageId, Throwable error, long latencyNanos) {
+            this.message = message;
+            this.messageId = messageId;
+            this.error = error;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public AOMessage getMessage() {
+            return message;
+        }
+
+        /**
+         * 消息 ID，失败时为 null
+         */
+        public String getMessageId() {
+            return messageId;
+        }
+
+        /**
+         * 失败原因，成功时为 null
+         */
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+
+        public double getLatencyMillis() {
+            return latencyNanos / 1_000_000d;
+        }
+    }
+}
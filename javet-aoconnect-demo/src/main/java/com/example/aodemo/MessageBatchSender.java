@@ -0,0 +1,122 @@
+package com.example.aodemo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 批量消息发送器
+ *
+ * 在同一个事件循环运行时上保持最多 maxInFlight 条消息同时在途：每完成一条就启动下一条，
+ * 不阻塞调用方线程。结果按提交顺序返回，并累计吞吐量和延迟指标。
+ */
+public class MessageBatchSender {
+    private final Function<AOMessage, CompletableFuture<String>> dispatcher;
+    private final int maxInFlight;
+
+    // 累计指标（跨批次）
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+
+    public MessageBatchSender(Function<AOMessage, CompletableFuture<String>> dispatcher, int maxInFlight) {
+        this.dispatcher = dispatcher;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * 发送一批消息，所有消息完成（成功或失败）后返回的 Future 完成；单条失败不会让整批失败。
+     */
+    public CompletableFuture<MessageBatchResult> send(List<AOMessage> messages) {
+        return new Batch(messages).start();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    public long getSentCount() {
+        return sentCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * 累计平均延迟（毫秒）
+     */
+    public double getAverageLatencyMillis() {
+        long count = sentCount.sum() + failedCount.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / 1_000_000d / count;
+    }
+
+    private final class Batch {
+        private final List<AOMessage> messages;
+        private final MessageBatchResult.Entry[] entries;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<MessageBatchResult> done = new CompletableFuture<>();
+        private long startNanos;
+
+        private Batch(List<AOMessage> messages) {
+            this.messages = messages;
+            this.entries = new MessageBatchResult.Entry[messages.size()];
+            this.remaining = new AtomicInteger(messages.size());
+        }
+
+        private CompletableFuture<MessageBatchResult> start() {
+            startNanos = System.nanoTime();
+            if (messages.isEmpty()) {
+                done.complete(new MessageBatchResult(List.of(), 0));
+                return done;
+            }
+            int initial = Math.min(maxInFlight, messages.size());
+            for (int i = 0; i < initial; i++) {
+                launchNext();
+            }
+            return done;
+        }
+
+        private void launchNext() {
+            int index = next.getAndIncrement();
+            if (index >= messages.size()) {
+                return;
+            }
+            AOMessage message = messages.get(index);
+            long dispatchNanos = System.nanoTime();
+
+            CompletableFuture<String> future;
+            try {
+                future = dispatcher.apply(message);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+
+            BiConsumer<String, Throwable> onComplete = (messageId, error) -> {
+                long latency = System.nanoTime() - dispatchNanos;
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                entries[index] = new MessageBatchResult.Entry(message, messageId, cause, latency);
+                (cause == null ? sentCount : failedCount).increment();
+                totalLatencyNanos.add(latency);
+
+                if (remaining.decrementAndGet() == 0) {
+                    done.complete(new MessageBatchResult(Arrays.asList(entries), System.nanoTime() - startNanos));
+                } else {
+                    launchNext();
+                }
+            };
+            // 同步失败时异步回调，避免连续失败造成深度递归
+            if (future.isDone()) {
+                future.whenCompleteAsync(onComplete);
+            } else {
+                future.whenComplete(onComplete);
+            }
+        }
+    }
+}
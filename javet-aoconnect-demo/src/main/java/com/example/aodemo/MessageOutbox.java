@@ -0,0 +1,595 @@
+package com.example.aodemo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 持久化消息发件箱（追加写日志）
+ *
+ * 调用方只需把消息追加到本地日志即可返回，网络发送由发件箱异步完成：
+ * - 写线程批量取出追加请求，一次 write + 一次 fsync（group commit），然后交给桥接发送
+ * - 发送成功后追加一条完成记录（带消息 ID）；失败的消息交回写线程，按指数退避定时重新发送，直到成功
+ * - 日志按大小滚动为多个段文件，最老的段中所有消息都完成后整段删除
+ * - 启动时以内存映射方式扫描所有段，重新发送未完成的消息（至少一次语义）
+ *
+ * 记录格式：[int 长度][int CRC32][byte 类型][long 序号][负载]，扫描遇到截断或校验失败的记录即停止该段。
+ */
+public class MessageOutbox implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MessageOutbox.class);
+
+    private static final byte TYPE_APPEND = 1;
+    private static final byte TYPE_COMPLETE = 2;
+    // 只出现在磁盘上：数据为原始字节的追加记录，读回后仍是二进制消息
+    private static final byte TYPE_APPEND_BINARY = 3;
+    // 只在内存中流转：发送失败的消息交回写线程安排重试，不写入日志
+    private static final byte TYPE_RETRY = 4;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_GROUP_RECORDS = 1024;
+    private static final String SEGMENT_PREFIX = "outbox-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final Function<AOMessage, CompletableFuture<String>> dispatcher;
+    private final long retryBaseMillis;
+    private final long retryMaxMillis;
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // 以下字段在 open() 之后只由写线程访问
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private Segment active;
+    private long nextSequence = 1;
+    private long nextSegmentIndex = 1;
+    // 等待重试的消息，按到期时间排序，由写线程在轮询间隙重新发送
+    private final PriorityQueue<Entry> retries = new PriorityQueue<>((a, b) -> Long.compare(a.retryAtNanos, b.retryAtNanos));
+
+    private final AtomicLong outstanding = new AtomicLong();
+    private final LongAdder groupCommits = new LongAdder();
+    private final LongAdder appendedCount = new LongAdder();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder retriedCount = new LongAdder();
+    private final AtomicLong stranded = new AtomicLong();
+    private volatile int segmentCount;
+    private volatile boolean running;
+
+    public MessageOutbox(Path directory, long segmentBytes, Function<AOMessage, CompletableFuture<String>> dispatcher) {
+        this(directory, segmentBytes, dispatcher, 1000, 60_000);
+    }
+
+    /**
+     * @param retryBaseMillis 第一次发送失败后的重试等待上限，之后每次翻倍
+     * @param retryMaxMillis  重试等待的最大值
+     */
+    public MessageOutbox(Path directory, long segmentBytes, Function<AOMessage, CompletableFuture<String>> dispatcher,
+                         long retryBaseMillis, long retryMaxMillis) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.dispatcher = dispatcher;
+        this.retryBaseMillis = Math.max(1, retryBaseMillis);
+        this.retryMaxMillis = Math.max(this.retryBaseMillis, retryMaxMillis);
+        this.writer = new Thread(this::runWriter, "ao-outbox-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * 扫描已有的段文件，启动写线程，并重新发送上次未完成的消息。
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+
+        Map<Long, Entry> incomplete = new LinkedHashMap<>();
+        for (Path file : listSegmentFiles()) {
+            Segment segment = new Segment(file);
+            nextSegmentIndex = Math.max(nextSegmentIndex, parseSegmentIndex(file) + 1);
+            scan(segment, incomplete);
+            segments.addLast(segment);
+        }
+        for (Entry entry : incomplete.values()) {
+            entry.segment.pending.incrementAndGet();
+        }
+        outstanding.set(incomplete.size());
+
+        active = openSegment();
+        deleteCompletedSegments();
+
+        running = true;
+        writer.start();
+
+        if (!incomplete.isEmpty()) {
+            logger.info("♻️ Replaying {} incomplete outbox messages", incomplete.size());
+        }
+        for (Entry entry : incomplete.values()) {
+            dispatch(entry);
+        }
+        logger.info("📮 Message outbox opened at {} ({} segments)", directory, segmentCount);
+    }
+
+    /**
+     * 追加一条消息。返回的 Ticket 中 durable 在记录落盘后完成，sent 在网络发送成功后以消息 ID 完成。
+     */
+    public Ticket enqueue(AOMessage message) {
+        if (!running) {
+            throw new IllegalStateException("Message outbox is not open");
+        }
+        Entry entry = new Entry(message);
+        Record record = new Record(TYPE_APPEND, entry, null);
+        queue.add(record);
+        return new Ticket(record.durable, entry.sent);
+    }
+
+    private void dispatch(Entry entry) {
+        CompletableFuture<String> future;
+        try {
+            future = dispatcher.apply(entry.message);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((messageId, error) -> {
+            if (error == null) {
+                if (running) {
+                    queue.add(new Record(TYPE_COMPLETE, entry, messageId));
+                }
+                entry.sent.complete(messageId);
+            } else {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                stranded.incrementAndGet();
+                if (running) {
+                    logger.warn("Outbox message #{} failed (attempt {}), retrying with backoff: {}",
+                            entry.sequence, entry.attempts + 1, cause.getMessage());
+                    queue.add(new Record(TYPE_RETRY, entry, null));
+                } else {
+                    logger.warn("Outbox message #{} failed after close, it will be replayed on restart: {}", entry.sequence, cause.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * 写线程：为发送失败的消息安排下一次重试
+     */
+    private void scheduleRetry(Entry entry) {
+        entry.attempts++;
+        entry.retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis(entry.attempts));
+        retries.add(entry);
+    }
+
+    /**
+     * 写线程：重新发送所有已到期的消息
+     */
+    private void dispatchDueRetries() {
+        long now = System.nanoTime();
+        while (running && !retries.isEmpty() && retries.peek().retryAtNanos - now <= 0) {
+            Entry entry = retries.poll();
+            stranded.decrementAndGet();
+            retriedCount.increment();
+            dispatch(entry);
+        }
+    }
+
+    /**
+     * 写线程下一次轮询最多等待的时间：不超过 100ms，也不晚于最早一条重试的到期时间
+     */
+    private long pollTimeoutNanos() {
+        long timeout = TimeUnit.MILLISECONDS.toNanos(100);
+        if (!retries.isEmpty()) {
+            timeout = Math.min(timeout, Math.max(0, retries.peek().retryAtNanos - System.nanoTime()));
+        }
+        return timeout;
+    }
+
+    /**
+     * 第 attempts 次失败后的等待时间：[0, min(max, base × 2^(attempts-1))] 内均匀分布，
+     * 与 {@link BulkSpawner} 相同，避免远端恢复时所有积压消息在同一时刻一起重发
+     */
+    long backoffMillis(int attempts) {
+        long cap = retryBaseMillis << Math.min(attempts - 1, 20);
+        return ThreadLocalRandom.current().nextLong(Math.min(retryMaxMillis, cap) + 1);
+    }
+
+    private void runWriter() {
+        List<Record> group = new ArrayList<>(MAX_GROUP_RECORDS);
+        while (running || !queue.isEmpty()) {
+            try {
+                Record first = queue.poll(pollTimeoutNanos(), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    group.add(first);
+                    queue.drainTo(group, MAX_GROUP_RECORDS - 1);
+                    group.removeIf(record -> {
+                        if (record.type != TYPE_RETRY) {
+                            return false;
+                        }
+                        scheduleRetry(record.entry);
+                        return true;
+                    });
+                    if (!group.isEmpty()) {
+                        commit(group);
+                        deleteCompletedSegments();
+                    }
+                }
+                dispatchDueRetries();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * 一次写入整组记录并只 fsync 一次
+     */
+    private void commit(List<Record> group) {
+        try {
+            if (active.size >= segmentBytes) {
+                active.channel.close();
+                active = openSegment();
+            }
+
+            ByteBuffer buffer = encode(group);
+            int bytes = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                active.channel.write(buffer);
+            }
+            active.channel.force(false);
+            active.size += bytes;
+            groupCommits.increment();
+        } catch (IOException e) {
+            logger.error("Failed to commit {} outbox records", group.size(), e);
+            for (Record record : group) {
+                record.durable.completeExceptionally(e);
+                if (record.type == TYPE_APPEND) {
+                    if (record.entry.segment != null) {
+                        record.entry.segment.pending.decrementAndGet();
+                        outstanding.decrementAndGet();
+                    }
+                    record.entry.sent.completeExceptionally(e);
+                }
+            }
+            return;
+        }
+
+        for (Record record : group) {
+            if (record.type == TYPE_APPEND) {
+                appendedCount.increment();
+                record.durable.complete(record.entry.sequence);
+                dispatch(record.entry);
+            } else {
+                completedCount.increment();
+                record.entry.segment.pending.decrementAndGet();
+                outstanding.decrementAndGet();
+                record.durable.complete(record.entry.sequence);
+            }
+        }
+    }
+
+    private ByteBuffer encode(List<Record> group) {
+        List<byte[]> bodies = new ArrayList<>(group.size());
+        int total = 0;
+        for (Record record : group) {
+            if (record.type == TYPE_APPEND) {
+                record.entry.sequence = nextSequence++;
+                record.entry.segment = active;
+                active.pending.incrementAndGet();
+                outstanding.incrementAndGet();
+            }
+            byte[] body = encodeBody(record);
+            bodies.add(body);
+            total += RECORD_HEADER_BYTES + body.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        CRC32 crc = new CRC32();
+        for (byte[] body : bodies) {
+            crc.reset();
+            crc.update(body);
+            buffer.putInt(body.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(body);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private byte[] encodeBody(Record record) {
+        List<byte[]> strings = new ArrayList<>();
+        int tagCount = 0;
+        if (record.type == TYPE_APPEND) {
+            AOMessage message = record.entry.message;
+            tagCount = message.getTags().size();
+            strings.add(utf8(message.getProcessId()));
+            strings.add(utf8(message.getAction()));
+            for (Map.Entry<String, String> tag : message.getTags().entrySet()) {
+                strings.add(utf8(tag.getKey()));
+                strings.add(utf8(tag.getValue()));
+            }
+            strings.add(message.getDataBytes());
+        } else {
+            strings.add(utf8(record.messageId));
+        }
+
+        int size = 1 + 8 + (record.type == TYPE_APPEND ? 4 : 0);
+        for (byte[] s : strings) {
+            size += 4 + s.length;
+        }
+        ByteBuffer body = ByteBuffer.allocate(size);
+        boolean binary = record.type == TYPE_APPEND && record.entry.message.isBinary();
+        body.put(binary ? TYPE_APPEND_BINARY : record.type);
+        body.putLong(record.entry.sequence);
+        for (int i = 0; i < strings.size(); i++) {
+            // 追加记录：processId、action 之后写标签数量
+            if (record.type == TYPE_APPEND && i == 2) {
+                body.putInt(tagCount);
+            }
+            body.putInt(strings.get(i).length);
+            body.put(strings.get(i));
+        }
+        return body.array();
+    }
+
+    private void scan(Segment segment, Map<Long, Entry> incomplete) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 9 || length > buffer.remaining()) {
+                    logger.warn("Truncated outbox record in {}, ignoring the rest of the segment", segment.path.getFileName());
+                    break;
+                }
+                byte[] body = new byte[length];
+                buffer.get(body);
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    logger.warn("Corrupted outbox record in {}, ignoring the rest of the segment", segment.path.getFileName());
+                    break;
+                }
+
+                ByteBuffer record = ByteBuffer.wrap(body);
+                byte type = record.get();
+                long sequence = record.getLong();
+                nextSequence = Math.max(nextSequence, sequence + 1);
+                if (type == TYPE_APPEND || type == TYPE_APPEND_BINARY) {
+                    Entry entry = new Entry(decodeMessage(record, type == TYPE_APPEND_BINARY));
+                    entry.sequence = sequence;
+                    entry.segment = segment;
+                    incomplete.put(sequence, entry);
+                } else if (type == TYPE_COMPLETE) {
+                    incomplete.remove(sequence);
+                }
+            }
+        }
+    }
+
+    private AOMessage decodeMessage(ByteBuffer record, boolean binary) {
+        String processId = readUtf8(record);
+        String action = readUtf8(record);
+        int tagCount = record.getInt();
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (int i = 0; i < tagCount; i++) {
+            tags.put(readUtf8(record), readUtf8(record));
+        }
+        if (binary) {
+            byte[] data = new byte[record.getInt()];
+            record.get(data);
+            return new AOMessage(processId, action, tags, ByteBuffer.wrap(data));
+        }
+        String data = readUtf8(record);
+        return new AOMessage(processId, action, tags, data);
+    }
+
+    /**
+     * 从最老的段开始删除：只有更老的段都删除后才删除新段，保证完成记录不会先于对应的追加记录丢失
+     */
+    private void deleteCompletedSegments() {
+        while (!segments.isEmpty()) {
+            Segment oldest = segments.peekFirst();
+            if (oldest == active || oldest.pending.get() > 0) {
+                break;
+            }
+            segments.pollFirst();
+            try {
+                Files.deleteIfExists(oldest.path);
+                logger.debug("Deleted completed outbox segment {}", oldest.path.getFileName());
+            } catch (IOException e) {
+                logger.warn("Failed to delete outbox segment {}: {}", oldest.path.getFileName(), e.getMessage());
+            }
+        }
+        segmentCount = segments.size();
+    }
+
+    private Segment openSegment() throws IOException {
+        Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, nextSegmentIndex++, SEGMENT_SUFFIX));
+        Segment segment = new Segment(path);
+        segment.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment.size = segment.channel.size();
+        segments.addLast(segment);
+        segmentCount = segments.size();
+        return segment;
+    }
+
+    private List<Path> listSegmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> {
+                        String name = p.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static long parseSegmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readUtf8(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 已追加但尚未完成（未发送或发送失败）的消息数
+     */
+    public long getOutstandingCount() {
+        return outstanding.get();
+    }
+
+    public long getGroupCommitCount() {
+        return groupCommits.sum();
+    }
+
+    public long getAppendedCount() {
+        return appendedCount.sum();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    public int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * 最近一次发送失败、正在等待重试的消息数（远端持续不可用时会增长，其所在的段无法删除）
+     */
+    public long getStrandedCount() {
+        return stranded.get();
+    }
+
+    /**
+     * 失败后重新发送的累计次数
+     */
+    public long getRetriedCount() {
+        return retriedCount.sum();
+    }
+
+    /**
+     * 停止接收新消息，写完队列中已有的记录后关闭；仍在发送中或等待重试的消息下次启动时重放。
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (active != null && active.channel != null) {
+                active.channel.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close outbox segment: {}", e.getMessage());
+        }
+        logger.info("Message outbox closed, {} messages outstanding", outstanding.get());
+    }
+
+    /**
+     * 追加结果
+     */
+    public static final class Ticket {
+        private final CompletableFuture<Long> durable;
+        private final CompletableFuture<String> sent;
+
+        private Ticket(CompletableFuture<Long> durable, CompletableFuture<String> sent) {
+            this.durable = durable;
+            this.sent = sent;
+        }
+
+        /**
+         * 记录落盘后以日志序号完成
+         */
+        public CompletableFuture<Long> getDurable() {
+            return durable;
+        }
+
+        /**
+         * 网络发送成功后以消息 ID 完成；发送失败时不会异常完成，而是按退避重试直到成功（或关闭后下次启动时重放）
+         */
+        public CompletableFuture<String> getSent() {
+            return sent;
+        }
+    }
+
+    private static final class Entry {
+        private final AOMessage message;
+        private final CompletableFuture<String> sent = new CompletableFuture<>();
+        private long sequence;
+        private Segment segment;
+        // 以下字段只由写线程访问
+        private int attempts;
+        private long retryAtNanos;
+
+        private Entry(AOMessage message) {
+            this.message = message;
+        }
+    }
+
+    private static final class Record {
+        private final byte type;
+        private final Entry entry;
+        private final String messageId;
+        private final CompletableFuture<Long> durable = new CompletableFuture<>();
+
+        private Record(byte type, Entry entry, String messageId) {
+            this.type = type;
+            this.entry = entry;
+            this.messageId = messageId;
+        }
+    }
+
+    private static final class Segment {
+        private final Path path;
+        private final AtomicInteger pending = new AtomicInteger();
+        private FileChannel channel;
+        private long size;
+
+        private Segment(Path path) {
+            this.path = path;
+        }
+    }
+}
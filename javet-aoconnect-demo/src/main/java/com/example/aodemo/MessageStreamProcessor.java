@@ -0,0 +1,215 @@
+package com.example.aodemo;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 带背压的消息流：订阅上游的 {@link AOMessage} 流，逐条发送，并把结果作为 {@link MessageBatchResult.Entry} 发布给下游。
+ *
+ * 背压：已发送未完成的消息和已完成但下游还没取走的结果一起占用 maxInFlight 个名额，只有空出名额才向上游 request，
+ * 因此 V8 事件循环里的在途工作和本地缓冲的结果都不会超过 maxInFlight；下游消费慢时上游自然停下。
+ * 单条消息失败只体现在对应结果的 error 中，不会终止流；上游 onError 在在途消息全部交付后转发给下游。
+ *
+ * <pre>
+ * MessageStreamProcessor stream = bridge.messageStream();
+ * stream.subscribe(resultSubscriber);
+ * messagePublisher.subscribe(stream);
+ * </pre>
+ * 只支持一个下游订阅者。
+ */
+public class MessageStreamProcessor implements Flow.Processor<AOMessage, MessageBatchResult.Entry> {
+    private final Function<AOMessage, CompletableFuture<String>> dispatcher;
+    private final int maxInFlight;
+
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super MessageBatchResult.Entry> downstream;
+
+    private final Queue<MessageBatchResult.Entry> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicLong demand = new AtomicLong();
+    // 已发送未交付（在途 + 等待下游取走）的消息数
+    private final AtomicInteger outstanding = new AtomicInteger();
+    // 已向上游 request 但还没收到的消息数
+    private final AtomicInteger requested = new AtomicInteger();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private volatile boolean upstreamDone;
+    private volatile Throwable upstreamError;
+    private volatile boolean cancelled;
+    private volatile Throwable protocolError;
+    private boolean terminated;
+
+    public MessageStreamProcessor(Function<AOMessage, CompletableFuture<String>> dispatcher, int maxInFlight) {
+        this.dispatcher = dispatcher;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    // ---- 下游 ----
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super MessageBatchResult.Entry> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("MessageStreamProcessor supports a single subscriber"));
+            return;
+        }
+        downstream = subscriber;
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    // 规范 3.9：非正数的 request 以 onError 结束订阅
+                    protocolError = new IllegalArgumentException("Non-positive request: " + n);
+                    cancelUpstream();
+                    drain();
+                    return;
+                }
+                demand.getAndAccumulate(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                completed.clear();
+            }
+        });
+        drain();
+    }
+
+    // ---- 上游 ----
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        if (cancelled || protocolError != null) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(AOMessage message) {
+        requested.decrementAndGet();
+        if (cancelled || protocolError != null) {
+            return;
+        }
+        outstanding.incrementAndGet();
+        long start = System.nanoTime();
+
+        CompletableFuture<String> future;
+        try {
+            future = dispatcher.apply(message);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((messageId, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            completed.add(new MessageBatchResult.Entry(message, messageId, cause, System.nanoTime() - start));
+            drain();
+        });
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        upstreamError = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    /**
+     * 已发送未交付的消息数
+     */
+    public int getOutstandingCount() {
+        return outstanding.get();
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * 串行化所有对下游的信号和对上游的 request：同一时刻只有一个线程在执行循环体，其他线程只登记一次重跑
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            Flow.Subscriber<? super MessageBatchResult.Entry> subscriber = downstream;
+            if (subscriber != null && !terminated) {
+                if (protocolError != null) {
+                    terminated = true;
+                    completed.clear();
+                    subscriber.onError(protocolError);
+                } else if (cancelled) {
+                    completed.clear();
+                } else {
+                    MessageBatchResult.Entry entry;
+                    while (demand.get() > 0 && (entry = completed.poll()) != null) {
+                        demand.decrementAndGet();
+                        outstanding.decrementAndGet();
+                        subscriber.onNext(entry);
+                    }
+
+                    if (upstreamDone && outstanding.get() == 0) {
+                        terminated = true;
+                        if (upstreamError != null) {
+                            subscriber.onError(upstreamError);
+                        } else {
+                            subscriber.onComplete();
+                        }
+                    } else {
+                        requestUpstream();
+                    }
+                }
+            }
+        } while (wip.decrementAndGet() != 0);
+    }
+
+    private void cancelUpstream() {
+        Flow.Subscription subscription = upstream;
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private void requestUpstream() {
+        Flow.Subscription subscription = upstream;
+        if (subscription == null || upstreamDone) {
+            return;
+        }
+        int free = maxInFlight - outstanding.get() - requested.get();
+        if (free > 0) {
+            requested.addAndGet(free);
+            subscription.request(free);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.aodemo;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 外部指标系统的接入点（Micrometer、Prometheus client、Dropwizard 等）
+ *
+ * {@link BridgeMetrics} 在记录内部直方图的同时把每次事件转发到这里；实现只需做适配，不需要自己汇总。
+ * 名称使用点分小写，例如 `ao.op.latency`，操作名作为 `operation` 标签传入。
+ */
+public interface MetricsRegistry {
+
+    MetricsRegistry NOOP = new MetricsRegistry() {
+        @Override
+        public void gauge(String name, LongSupplier supplier) {
+        }
+
+        @Override
+        public void recordLatency(String name, String operation, long nanos, boolean success) {
+        }
+    };
+
+    /**
+     * 注册一个按需读取的仪表（池中活跃 / 空闲引擎数、在途调用数等）
+     */
+    void gauge(String name, LongSupplier supplier);
+
+    /**
+     * 记录一次操作的耗时和结果
+     */
+    void recordLatency(String name, String operation, long nanos, boolean success);
+}
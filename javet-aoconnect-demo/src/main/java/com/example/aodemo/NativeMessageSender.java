@@ -0,0 +1,169 @@
+package com.example.aodemo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 不经过 V8 的消息发送路径
+ *
+ * 用 {@link DataItemSigner} 在签名线程池上并行构造、签名 ANS-104 DataItem，再用 JDK HttpClient 直接 `POST` 到 MU。
+ * 消息 ID 在本地由签名计算，与 MU 返回的 ID 相同。代理规则与 JS 侧 fetch 垫片一致：配置了代理时，
+ * 127.0.0.1 / localhost 仍然直连。
+ */
+public class NativeMessageSender implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(NativeMessageSender.class);
+
+    private final DataItemSigner signer;
+    private final URI muUri;
+    private final HttpClient httpClient;
+    private final ExecutorService signingExecutor;
+    private final int signingThreads;
+
+    private final LongAdder signedCount = new LongAdder();
+    private final LongAdder signingNanos = new LongAdder();
+    private final LongAdder postedCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    /**
+     * @param signingThreads 签名线程数，0 表示 CPU 核数
+     */
+    public NativeMessageSender(DataItemSigner signer, String muUrl, String proxyUrl, int signingThreads) {
+        this.signer = signer;
+        this.muUri = URI.create(muUrl.endsWith("/") ? muUrl : muUrl + "/");
+        this.signingThreads = signingThreads > 0 ? signingThreads : Runtime.getRuntime().availableProcessors();
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.signingExecutor = Executors.newFixedThreadPool(this.signingThreads, r -> {
+            Thread thread = new Thread(r, "ao-signer-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10));
+        if (proxyUrl != null && !proxyUrl.isEmpty()) {
+            builder.proxy(new LocalBypassProxySelector(URI.create(proxyUrl)));
+        }
+        this.httpClient = builder.build();
+        logger.info("✍️ Java DataItem signer ready ({} signing threads, MU {})", this.signingThreads, muUri);
+    }
+
+    /**
+     * 在签名线程池上构造并签名 DataItem，不发送
+     */
+    public CompletableFuture<DataItem> sign(AOMessage message) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            DataItem item = signer.signMessage(message, null);
+            signingNanos.add(System.nanoTime() - start);
+            signedCount.increment();
+            return item;
+        }, signingExecutor);
+    }
+
+    /**
+     * 签名并发送到 MU，返回消息 ID
+     */
+    public CompletableFuture<String> send(AOMessage message, Duration timeout) {
+        return sign(message).thenCompose(item -> send(item, timeout));
+    }
+
+    /**
+     * 发送已签名的 DataItem（例如重发同一条消息，ID 不变）
+     */
+    public CompletableFuture<String> send(DataItem item, Duration timeout) {
+        return post(item, timeout)
+            .whenComplete((id, error) -> (error == null ? postedCount : failedCount).increment());
+    }
+
+    private CompletableFuture<String> post(DataItem item, Duration timeout) {
+        HttpRequest request = HttpRequest.newBuilder(muUri)
+                .timeout(timeout)
+                .header("Content-Type", "application/octet-stream")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(item.getRaw()))
+                .build();
+        String id = item.getId();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .thenApply(response -> {
+                if (response.statusCode() / 100 != 2) {
+                    throw new RuntimeException("MU rejected data item " + id + ": HTTP " + response.statusCode()
+                            + " " + response.body());
+                }
+                return id;
+            });
+    }
+
+    public int getSigningThreads() {
+        return signingThreads;
+    }
+
+    public long getSignedCount() {
+        return signedCount.sum();
+    }
+
+    public long getPostedCount() {
+        return postedCount.sum();
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * 平均签名耗时（毫秒，单个 DataItem）
+     */
+    public double getAverageSigningMillis() {
+        long count = signedCount.sum();
+        return count == 0 ? 0 : signingNanos.sum() / 1_000_000d / count;
+    }
+
+    @Override
+    public void close() {
+        signingExecutor.shutdownNow();
+    }
+
+    /**
+     * 本机地址直连，其他地址走代理
+     */
+    private static final class LocalBypassProxySelector extends ProxySelector {
+        private final List<Proxy> proxy;
+
+        private LocalBypassProxySelector(URI proxyUri) {
+            int port = proxyUri.getPort() > 0 ? proxyUri.getPort() : 80;
+            this.proxy = List.of(new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(proxyUri.getHost(), port)));
+        }
+
+        @Override
+        public List<Proxy> select(URI uri) {
+            String host = uri.getHost();
+            if ("127.0.0.1".equals(host) || "localhost".equalsIgnoreCase(host)) {
+                return List.of(Proxy.NO_PROXY);
+            }
+            return proxy;
+        }
+
+        @Override
+        public void connectFailed(URI uri, SocketAddress address, IOException e) {
+            logger.warn("⚠️ Proxy connection failed for {}: {}", uri, e.getMessage());
+        }
+    }
+}
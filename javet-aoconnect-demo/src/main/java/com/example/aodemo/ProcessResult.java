@@ -0,0 +1,75 @@
+package com.example.aodemo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 订阅收到的一条进程结果（CU `/results` 的一个 edge）：游标和计算结果。
+ */
+public final class ProcessResult {
+    private final String processId;
+    private final String cursor;
+    private final JsonNode node;
+
+    ProcessResult(String processId, String cursor, JsonNode node) {
+        this.processId = processId;
+        this.cursor = cursor;
+        this.node = node;
+    }
+
+    public String getProcessId() {
+        return processId;
+    }
+
+    /**
+     * 这条结果的游标，持久化后从它之后继续读取
+     */
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * 完整的结果对象（Messages、Spawns、Assignments、Output、Error 等）
+     */
+    public JsonNode getNode() {
+        return node;
+    }
+
+    /**
+     * 进程发出的消息（发件箱）
+     */
+    public List<JsonNode> getMessages() {
+        JsonNode messages = node.path("Messages");
+        if (!messages.isArray() || messages.size() == 0) {
+            return Collections.emptyList();
+        }
+        List<JsonNode> list = new ArrayList<>(messages.size());
+        messages.forEach(list::add);
+        return list;
+    }
+
+    /**
+     * Output.data，没有时为空字符串
+     */
+    public String getOutputData() {
+        JsonNode output = node.path("Output");
+        return output.isTextual() ? output.asText() : output.path("data").asText("");
+    }
+
+    /**
+     * 计算出错时的错误信息，正常时为 null
+     */
+    public String getError() {
+        JsonNode error = node.get("Error");
+        return error == null || error.isNull() ? null : error.isTextual() ? error.asText() : error.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "ProcessResult{processId='" + processId + "', cursor='" + cursor + "', messages=" + node.path("Messages").size()
+                + (getError() == null ? "" : ", error='" + getError() + "'") + "}";
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.aodemo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程结果订阅
+ *
+ * 为每个订阅的进程维护一个游标，按页（sort=ASC、from=游标）读取 CU `/results`，把新结果按顺序交给监听器：
+ * - 自适应轮询：整页读满时立即读下一页；有新结果时回到最小间隔；连续空轮询或出错时间隔翻倍，直到最大间隔
+ * - 游标持久化：每读完一页后把所有游标原子地写入本地文件，重启后从上次的位置继续（至少一次：崩溃时最后一页可能重复投递）
+ * 所有轮询结果都在同一个订阅线程上投递，同一进程的结果严格按游标顺序到达；监听器不要在回调中阻塞。
+ */
+public class ProcessSubscriptions implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessSubscriptions.class);
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * 读取一页结果，返回 `{ edges: [{ cursor, node }] }` 的 JSON
+     */
+    @FunctionalInterface
+    public interface ResultsFetcher {
+        CompletableFuture<String> fetch(String processId, String from, String sort, int limit);
+    }
+
+    public interface Listener {
+        void onResult(ProcessResult result);
+
+        /**
+         * 读取失败（之后会退避重试）
+         */
+        default void onError(String processId, Throwable error) {
+        }
+    }
+
+    /**
+     * 没有保存的游标时从哪里开始
+     */
+    public enum Start {
+        /**
+         * 从进程的第一条结果开始
+         */
+        EARLIEST,
+        /**
+         * 只接收订阅之后产生的结果
+         */
+        LATEST
+    }
+
+    private final ResultsFetcher fetcher;
+    private final Path cursorFile;
+    private final int pageSize;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, String> cursors = new ConcurrentHashMap<>();
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * @param cursorFile 游标文件，null 表示不持久化
+     */
+    public ProcessSubscriptions(ResultsFetcher fetcher, Path cursorFile, int pageSize, long minIntervalMillis, long maxIntervalMillis) {
+        this.fetcher = fetcher;
+        this.cursorFile = cursorFile;
+        this.pageSize = Math.max(1, pageSize);
+        this.minIntervalMillis = Math.max(1, minIntervalMillis);
+        this.maxIntervalMillis = Math.max(this.minIntervalMillis, maxIntervalMillis);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "ao-subscriptions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 关闭时丢弃尚未到期的轮询，只等正在处理的页面完成，不会因为排着的延迟轮询等满关闭超时
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * 加载保存的游标
+     */
+    public void open() throws IOException {
+        if (cursorFile == null || !Files.exists(cursorFile)) {
+            return;
+        }
+        Properties saved = new Properties();
+        try (InputStream input = Files.newInputStream(cursorFile)) {
+            saved.load(input);
+        }
+        saved.stringPropertyNames().forEach(processId -> cursors.put(processId, saved.getProperty(processId)));
+        logger.info("📬 Loaded {} subscription cursors from {}", cursors.size(), cursorFile);
+    }
+
+    /**
+     * 订阅进程结果。同一进程只能有一个订阅；有保存的游标时从游标之后继续，否则按 start 决定起点。
+     */
+    public Subscription subscribe(String processId, Listener listener, Start start) {
+        if (closed) {
+            throw new IllegalStateException("Process subscriptions are closed");
+        }
+        Subscription subscription = new Subscription(processId, listener, start);
+        if (subscriptions.putIfAbsent(processId, subscription) != null) {
+            throw new IllegalStateException("Process " + processId + " is already subscribed");
+        }
+        subscription.cursor = cursors.get(processId);
+        scheduler.execute(() -> poll(subscription));
+        logger.info("📬 Subscribed to {} (cursor={})", processId, subscription.cursor == null ? start : subscription.cursor);
+        return subscription;
+    }
+
+    private void poll(Subscription subscription) {
+        if (closed || subscription.cancelled) {
+            return;
+        }
+        polls.increment();
+        boolean resolveLatest = subscription.cursor == null && subscription.start == Start.LATEST && !subscription.positioned;
+        CompletableFuture<String> page;
+        try {
+            page = resolveLatest
+                    ? fetcher.fetch(subscription.processId, null, "DESC", 1)
+                    : fetcher.fetch(subscription.processId, subscription.cursor, "ASC", pageSize);
+        } catch (RuntimeException e) {
+            page = CompletableFuture.failedFuture(e);
+        }
+        page.whenComplete((json, error) -> {
+            if (!closed) {
+                scheduler.execute(() -> handle(subscription, json, error, resolveLatest));
+            }
+        });
+    }
+
+    private void handle(Subscription subscription, String json, Throwable error, boolean resolveLatest) {
+        if (closed || subscription.cancelled) {
+            return;
+        }
+        int received;
+        try {
+            if (error != null) {
+                throw error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            }
+            JsonNode edges = JSON.readTree(json).path("edges");
+            received = edges.size();
+            if (resolveLatest) {
+                // 以最新一条结果为起点，之前的不投递
+                subscription.positioned = true;
+                if (received > 0) {
+                    advance(subscription, edges.get(0).path("cursor").asText());
+                    flushCursors();
+                }
+                schedule(subscription, 0);
+                return;
+            }
+            for (JsonNode edge : edges) {
+                ProcessResult result = new ProcessResult(subscription.processId, edge.path("cursor").asText(), edge.path("node"));
+                try {
+                    subscription.listener.onResult(result);
+                } catch (RuntimeException e) {
+                    logger.warn("Subscription listener for {} failed on cursor {}: {}", subscription.processId, result.getCursor(), e.getMessage());
+                }
+                subscription.deliveredCount.increment();
+                delivered.increment();
+                advance(subscription, result.getCursor());
+            }
+            if (received > 0) {
+                flushCursors();
+            }
+        } catch (Throwable e) {
+            logger.debug("Polling results of {} failed: {}", subscription.processId, e.getMessage());
+            try {
+                subscription.listener.onError(subscription.processId, e);
+            } catch (RuntimeException listenerError) {
+                logger.warn("Subscription error listener for {} failed: {}", subscription.processId, listenerError.getMessage());
+            }
+            subscription.intervalMillis = Math.min(maxIntervalMillis, subscription.intervalMillis * 2);
+            schedule(subscription, subscription.intervalMillis);
+            return;
+        }
+
+        if (received >= pageSize) {
+            // 还有积压，立即读下一页
+            subscription.intervalMillis = minIntervalMillis;
+            schedule(subscription, 0);
+        } else if (received > 0) {
+            subscription.intervalMillis = minIntervalMillis;
+            schedule(subscription, minIntervalMillis);
+        } else {
+            schedule(subscription, subscription.intervalMillis);
+            subscription.intervalMillis = Math.min(maxIntervalMillis, subscription.intervalMillis * 2);
+        }
+    }
+
+    private void advance(Subscription subscription, String cursor) {
+        subscription.cursor = cursor;
+        cursors.put(subscription.processId, cursor);
+    }
+
+    private void schedule(Subscription subscription, long delayMillis) {
+        if (!closed && !subscription.cancelled) {
+            scheduler.schedule(() -> poll(subscription), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 把所有游标写入临时文件后原子替换，写入中途崩溃不会留下半个文件
+     */
+    private void flushCursors() {
+        if (cursorFile == null) {
+            return;
+        }
+        Properties snapshot = new Properties();
+        snapshot.putAll(cursors);
+        try {
+            Path parent = cursorFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, cursorFile.getFileName().toString(), ".tmp");
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                snapshot.store(output, "AO process subscription cursors");
+            }
+            Files.move(temp, cursorFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to persist subscription cursors to {}: {}", cursorFile, e.getMessage());
+        }
+    }
+
+    /**
+     * 各进程当前的游标
+     */
+    public Map<String, String> getCursors() {
+        return new TreeMap<>(cursors);
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    public long getPollCount() {
+        return polls.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushCursors();
+        logger.info("📬 Process subscriptions closed ({} delivered, {} polls)", delivered.sum(), polls.sum());
+    }
+
+    /**
+     * 一个进程的订阅
+     */
+    public final class Subscription {
+        private final String processId;
+        private final Listener listener;
+        private final Start start;
+        private final LongAdder deliveredCount = new LongAdder();
+        // 以下字段只在订阅线程上修改
+        private volatile String cursor;
+        private volatile long intervalMillis = minIntervalMillis;
+        private volatile boolean positioned;
+        private volatile boolean cancelled;
+
+        private Subscription(String processId, Listener listener, Start start) {
+            this.processId = processId;
+            this.listener = listener;
+            this.start = start;
+        }
+
+        public String getProcessId() {
+            return processId;
+        }
+
+        /**
+         * 最后投递的结果的游标，尚未投递时为 null
+         */
+        public String getCursor() {
+            return cursor;
+        }
+
+        /**
+         * 当前的空轮询间隔
+         */
+        public long getIntervalMillis() {
+            return intervalMillis;
+        }
+
+        public long getDeliveredCount() {
+            return deliveredCount.sum();
+        }
+
+        /**
+         * 取消订阅，保留游标，之后重新订阅会从这里继续
+         */
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(processId, this);
+        }
+    }
+}
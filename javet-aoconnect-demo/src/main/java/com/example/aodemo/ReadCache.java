@@ -0,0 +1,128 @@
+package com.example.aodemo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 读请求缓存（result / dry-run）
+ *
+ * - 合并：相同键的并发请求共享同一个在途 Future，只发一次网络请求
+ * - TTL：成功结果在 ttl 内直接返回；失败结果不缓存
+ * - 容量：超过上限时先清理过期条目，仍然超出则本次结果不缓存（仍然合并在途请求）
+ */
+public class ReadCache {
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ReadCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * dry-run 的缓存键：进程、Action、标签和数据的 SHA-256
+     */
+    public static Object dryRunKey(AOMessage message) {
+        return List.of("dryrun", message.contentHash());
+    }
+
+    /**
+     * result 的缓存键：消息结果一旦产生就不会变化
+     */
+    public static Object resultKey(String processId, String messageId) {
+        return List.of("result", processId, messageId);
+    }
+
+    public CompletableFuture<String> get(Object key, Supplier<CompletableFuture<String>> loader) {
+        long now = System.nanoTime();
+        Entry existing = entries.get(key);
+        if (existing != null && existing.isUsable(now)) {
+            (existing.future.isDone() ? hits : coalesced).increment();
+            return existing.future.copy();
+        }
+
+        Entry[] created = new Entry[1];
+        Entry entry = entries.compute(key, (k, current) -> {
+            if (current != null && current.isUsable(now)) {
+                return current;
+            }
+            created[0] = new Entry();
+            return created[0];
+        });
+        if (created[0] == null) {
+            (entry.future.isDone() ? hits : coalesced).increment();
+            return entry.future.copy();
+        }
+
+        misses.increment();
+        if (entries.size() > maxEntries) {
+            purgeExpired(now);
+        }
+        CompletableFuture<String> source;
+        try {
+            source = loader.get();
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        source.whenComplete((value, error) -> {
+            if (error != null || entries.size() > maxEntries) {
+                entries.remove(key, entry);
+            } else {
+                entry.expiresAt = System.nanoTime() + ttlNanos;
+            }
+            if (error != null) {
+                entry.future.completeExceptionally(error);
+            } else {
+                entry.future.complete(value);
+            }
+        });
+        // 返回副本：某个调用方取消或超时不会影响共享同一请求的其他调用方
+        return entry.future.copy();
+    }
+
+    private void purgeExpired(long now) {
+        entries.values().removeIf(entry -> entry.future.isDone() && !entry.isUsable(now));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+        // 在途期间为 Long.MAX_VALUE，完成后设置为过期时间
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private boolean isUsable(long now) {
+            if (!future.isDone()) {
+                return true;
+            }
+            return !future.isCompletedExceptionally() && now - expiresAt < 0;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.aodemo;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 待创建的 AO 进程：模块、标签和初始数据。
+ */
+public final class SpawnSpec {
+    private final String moduleId;
+    private final Map<String, String> tags;
+    private final String data;
+
+    /**
+     * @param moduleId 模块 ID，null 表示使用 ao.module.id
+     * @param tags     进程标签；未指定 App-Name / Authority 时使用桥接的默认值
+     * @param data     初始数据，可为 null
+     */
+    public SpawnSpec(String moduleId, Map<String, String> tags, String data) {
+        this.moduleId = moduleId;
+        this.tags = tags == null || tags.isEmpty()
+                ? Collections.emptyMap()
+                : Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+        this.data = data == null ? "" : data;
+    }
+
+    public static SpawnSpec of(Map<String, String> tags) {
+        return new SpawnSpec(null, tags, null);
+    }
+
+    /**
+     * 模块 ID，null 表示使用默认模块
+     */
+    public String getModuleId() {
+        return moduleId;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    @Override
+    public String toString() {
+        return "SpawnSpec{moduleId=" + (moduleId == null ? "<default>" : "'" + moduleId + "'")
+                + ", tags=" + tags + ", dataLength=" + data.length() + "}";
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.aodemo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * 启动时间基准测试：比较无缓存、冷启动（清空编译缓存）和热启动（复用编译缓存）下 {@link AOJavaBridge#initialize()} 的耗时。
+ *
+ * 每次启动都在新的 JVM 子进程中进行，与真实的进程启动一致；父进程汇总子进程输出的耗时。
+ * <pre>
+ * mvn -q exec:java -Dexec.mainClass=com.example.aodemo.StartupBenchmark -Dexec.args="--runs 5"
+ * </pre>
+ */
+public class StartupBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(StartupBenchmark.class);
+
+    private static final String RESULT_PREFIX = "STARTUP_RESULT ";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        if (options.containsKey("child")) {
+            runChild(options);
+            return;
+        }
+
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+        String walletPath = options.get("wallet");
+        if (walletPath == null) {
+            walletPath = BridgeBenchmark.writeTemporaryWallet().toString();
+        }
+        Path cacheDir = options.containsKey("cache-dir")
+                ? Paths.get(options.get("cache-dir"))
+                : Files.createTempDirectory("ao-compile-cache");
+        CompileCache cache = new CompileCache(cacheDir, true);
+
+        List<long[]> disabled = new ArrayList<>();
+        List<long[]> cold = new ArrayList<>();
+        List<long[]> warm = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            disabled.add(launchChild(walletPath, cacheDir, false));
+            cache.clear();
+            cold.add(launchChild(walletPath, cacheDir, true));
+            warm.add(launchChild(walletPath, cacheDir, true));
+        }
+
+        report("compile cache disabled", disabled);
+        report("cold (empty cache)", cold);
+        report("warm (cached)", warm);
+        logger.info("📦 Compile cache: {} files in {}", cache.getFileCount(), cacheDir);
+    }
+
+    /**
+     * 子进程：构造并初始化桥接，输出 [JVM 启动到初始化完成, initialize(), require(aoconnect)] 的毫秒数
+     */
+    private static void runChild(Map<String, String> options) throws Exception {
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        Properties overrides = new Properties();
+        overrides.setProperty("ao.wallet.path", options.get("wallet"));
+        overrides.setProperty("ao.proxy.url", "");
+        overrides.setProperty("javet.engine.pool.min-warm", "1");
+        overrides.setProperty("ao.startup.compile-cache.enabled", options.get("child"));
+        overrides.setProperty("ao.startup.compile-cache.dir", options.get("cache-dir"));
+
+        try (AOJavaBridge bridge = new AOJavaBridge(overrides)) {
+            long start = System.nanoTime();
+            bridge.initialize();
+            long initializeMillis = (System.nanoTime() - start) / 1_000_000;
+            long totalMillis = System.currentTimeMillis() - jvmStart;
+            System.out.println(RESULT_PREFIX + totalMillis + " " + initializeMillis + " " + bridge.getLastModuleLoadMillis());
+        }
+    }
+
+    private static long[] launchChild(String walletPath, Path cacheDir, boolean cacheEnabled) throws Exception {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", childClasspath(),
+                StartupBenchmark.class.getName(),
+                "--child", String.valueOf(cacheEnabled),
+                "--wallet", walletPath,
+                "--cache-dir", cacheDir.toString());
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+
+        long[] result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT_PREFIX)) {
+                    result = Arrays.stream(line.substring(RESULT_PREFIX.length()).trim().split(" "))
+                            .mapToLong(Long::parseLong).toArray();
+                } else {
+                    logger.debug("[child] {}", line);
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0 || result == null) {
+            throw new IllegalStateException("Startup child process failed with exit code " + exitCode);
+        }
+        return result;
+    }
+
+    /**
+     * `mvn exec:java` 在隔离的 URLClassLoader 中运行，java.class.path 只有 Maven 自身，需要从类加载器取项目类路径
+     */
+    private static String childClasspath() throws Exception {
+        ClassLoader loader = StartupBenchmark.class.getClassLoader();
+        if (!(loader instanceof URLClassLoader)) {
+            return System.getProperty("java.class.path");
+        }
+        List<String> entries = new ArrayList<>();
+        for (URL url : ((URLClassLoader) loader).getURLs()) {
+            entries.add(Paths.get(url.toURI()).toString());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void report(String name, List<long[]> samples) {
+        String[] columns = { "JVM start -> ready", "initialize()", "require(aoconnect)" };
+        StringBuilder line = new StringBuilder();
+        for (int column = 0; column < columns.length; column++) {
+            long[] values = new long[samples.size()];
+            for (int i = 0; i < samples.size(); i++) {
+                values[i] = samples.get(i)[column];
+            }
+            Arrays.sort(values);
+            if (line.length() > 0) {
+                line.append(", ");
+            }
+            line.append(columns[column]).append(" median=").append(values[values.length / 2])
+                .append(" ms min=").append(values[0]).append(" ms");
+        }
+        logger.info("⏱️ {} (n={}): {}", name, samples.size(), line);
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.aodemo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 多钱包分片
+ *
+ * 每个钱包绑定一个独占运行时的 {@link AOEventLoop}（native 签名时另有自己的签名器），消息按策略分配到分片：
+ * - ROUND_ROBIN：轮流分配，吞吐量随钱包数增长；同一钱包上的消息并发签名、并发在途，不保证相互顺序
+ * - PROCESS：按目标进程 ID 哈希固定到一个钱包，并且同一进程同时只有一条消息在途：上一条完成（成功或失败）后
+ *   才发出下一条，MU 按提交顺序收到同一进程的消息；不同进程之间仍然并发
+ * 事件循环归 {@link AOEventLoopGroup} 所有，分片的消息作为固定任务提交，不会被其他循环窃取。
+ */
+public class WalletShards implements AutoCloseable {
+
+    public enum Policy {
+        ROUND_ROBIN,
+        PROCESS;
+
+        public static Policy parse(String value) {
+            String normalized = value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+            switch (normalized) {
+                case "round-robin":
+                case "":
+                    return ROUND_ROBIN;
+                case "process":
+                    return PROCESS;
+                default:
+                    throw new IllegalArgumentException("Unknown wallet sharding policy: " + value);
+            }
+        }
+    }
+
+    private final Policy policy;
+    private final List<Shard> shards = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    // PROCESS 策略：每个进程最后一条消息的结果，下一条消息等它完成后再发送；进程没有在途消息时移除
+    private final Map<String, CompletableFuture<String>> processTails = new ConcurrentHashMap<>();
+
+    public WalletShards(Policy policy) {
+        this.policy = policy;
+    }
+
+    void add(String walletHandle, AOEventLoop loop, NativeMessageSender nativeSender) {
+        add(walletHandle, loop, nativeSender, nativeSender);
+    }
+
+    void add(String walletHandle, AOEventLoop loop, NativeMessageSender nativeSender, NativeMessageSender idempotentSender) {
+        shards.add(new Shard(shards.size(), walletHandle, loop, nativeSender, idempotentSender));
+    }
+
+    /**
+     * 为发往 processId 的消息选择分片
+     */
+    public Shard select(String processId) {
+        int size = shards.size();
+        if (size == 1) {
+            return shards.get(0);
+        }
+        int index = policy == Policy.PROCESS
+                ? Math.floorMod(processId.hashCode(), size)
+                : Math.floorMod(next.getAndIncrement(), size);
+        return shards.get(index);
+    }
+
+    /**
+     * 按策略发送一条发往 processId 的消息：PROCESS 策略下排在同一进程上一条消息之后，ROUND_ROBIN 直接发送
+     *
+     * @param send 实际发送，返回消息 ID
+     */
+    public CompletableFuture<String> sequence(String processId, Supplier<CompletableFuture<String>> send) {
+        if (policy != Policy.PROCESS) {
+            return start(send);
+        }
+        CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<String> previous = processTails.put(processId, result);
+        Runnable launch = () -> start(send).whenComplete((messageId, error) -> {
+            processTails.remove(processId, result);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(messageId);
+            }
+        });
+        if (previous == null) {
+            launch.run();
+        } else {
+            // 异步启动，避免一串同步失败的消息在完成回调里层层递归
+            previous.whenCompleteAsync((messageId, error) -> launch.run());
+        }
+        return result;
+    }
+
+    private static CompletableFuture<String> start(Supplier<CompletableFuture<String>> send) {
+        try {
+            return send.get();
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * PROCESS 策略下有消息在途或排队的进程数
+     */
+    public int getSequencedProcessCount() {
+        return processTails.size();
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public List<Shard> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    /**
+     * 所有分片事件循环的在途调用总数
+     */
+    public int getInFlightCount() {
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.loop.getInFlightCount();
+        }
+        return total;
+    }
+
+    /**
+     * 所有分片事件循环的排队调用总数
+     */
+    public int getQueuedCount() {
+        int total = 0;
+        for (Shard shard : shards) {
+            total += shard.loop.getQueuedCount();
+        }
+        return total;
+    }
+
+    /**
+     * 关闭各分片的签名器；事件循环由 {@link AOEventLoopGroup} 关闭
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            if (shard.nativeSender != null) {
+                shard.nativeSender.close();
+            }
+            if (shard.idempotentSender != null && shard.idempotentSender != shard.nativeSender) {
+                shard.idempotentSender.close();
+            }
+        }
+    }
+
+    /**
+     * 一个钱包及其专属的事件循环
+     */
+    public static final class Shard {
+        private final int index;
+        private final String walletHandle;
+        private final AOEventLoop loop;
+        private final NativeMessageSender nativeSender;
+        private final NativeMessageSender idempotentSender;
+        private final LongAdder dispatched = new LongAdder();
+
+        private Shard(int index, String walletHandle, AOEventLoop loop, NativeMessageSender nativeSender,
+                      NativeMessageSender idempotentSender) {
+            this.index = index;
+            this.walletHandle = walletHandle;
+            this.loop = loop;
+            this.nativeSender = nativeSender;
+            this.idempotentSender = idempotentSender;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getWalletHandle() {
+            return walletHandle;
+        }
+
+        public AOEventLoop getLoop() {
+            return loop;
+        }
+
+        /**
+         * native 签名发送器，ao.message.signing=js 时为 null
+         */
+        public NativeMessageSender getNativeSender() {
+            return nativeSender;
+        }
+
+        /**
+         * 带幂等键的消息使用的发送器：两种签名模式下都在 Java 中签名一次，重发时复用同一个 DataItem。
+         * native 签名时与 getNativeSender 相同
+         */
+        public NativeMessageSender getIdempotentSender() {
+            return idempotentSender;
+        }
+
+        void markDispatched() {
+            dispatched.increment();
+        }
+
+        public long getDispatchedCount() {
+            return dispatched.sum();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.aodemo;
+
+import com.caoccao.javet.enums.JSRuntimeType;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.engine.IJavetEngine;
+import com.caoccao.javet.interop.engine.JavetEngine;
+import com.caoccao.javet.interop.engine.JavetEngineConfig;
+import com.caoccao.javet.interop.engine.JavetEnginePool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预热的 Javet 引擎池
+ *
+ * 包装 {@link JavetEnginePool}，保证借出的每个 Node 运行时都已经执行过一次引导脚本
+ * （代理环境、`require('@permaweb/aoconnect')`、helper 函数等）：
+ * - 启动时预热可配置数量的运行时，请求路径上不再加载模块
+ * - 池扩容后新建的运行时在第一次借出时引导一次，之后复用
+ * - 可选健康检查：借出前确认就绪标记和 `aoconnect.connect` 仍然存在，否则重新引导
+ * - 运行时被关闭（池关闭或空闲淘汰）之前调用释放逻辑，解除引导时绑定的 Java 回调
+ * - 借出等待时间记为 `pool.borrow`，引导耗时记为 `pool.bootstrap`
+ */
+public class WarmEnginePool implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(WarmEnginePool.class);
+
+    private static final String MARK_READY_SCRIPT = "globalThis.__aoBridgeReady = true;";
+    private static final String HEALTH_CHECK_SCRIPT =
+        "globalThis.__aoBridgeReady === true && !!globalThis.aoconnect && typeof globalThis.aoconnect.connect === 'function'" +
+        " && typeof globalThis.__aoBridge === 'object'";
+
+    /**
+     * 运行时引导逻辑，每个运行时只执行一次。
+     */
+    @FunctionalInterface
+    public interface RuntimeInitializer {
+        void initialize(V8Runtime runtime) throws JavetException;
+    }
+
+    /**
+     * 运行时关闭前的释放逻辑（解除 bind 的回调等），与 {@link RuntimeInitializer} 对应。
+     */
+    @FunctionalInterface
+    public interface RuntimeReleaser {
+        void release(V8Runtime runtime) throws JavetException;
+    }
+
+    private final JavetEnginePool<V8Runtime> delegate;
+    private final RuntimeInitializer initializer;
+    private final RuntimeReleaser releaser;
+    private final int maxSize;
+    private final int minWarmEngines;
+    private final boolean healthCheckEnabled;
+    private final BridgeMetrics metrics;
+
+    // 已引导的运行时（按对象身份），运行时被池关闭后自动移除
+    private final Set<V8Runtime> bootstrapped = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private final AtomicInteger bootstrapCount = new AtomicInteger();
+    private final AtomicInteger healthCheckFailures = new AtomicInteger();
+
+    public WarmEnginePool(int maxSize, int minWarmEngines, boolean healthCheckEnabled, RuntimeInitializer initializer) {
+        this(maxSize, minWarmEngines, healthCheckEnabled, initializer, new BridgeMetrics(MetricsRegistry.NOOP));
+    }
+
+    public WarmEnginePool(int maxSize, int minWarmEngines, boolean healthCheckEnabled, RuntimeInitializer initializer,
+                          BridgeMetrics metrics) {
+        this(maxSize, minWarmEngines, healthCheckEnabled, initializer, null, metrics);
+    }
+
+    public WarmEnginePool(int maxSize, int minWarmEngines, boolean healthCheckEnabled, RuntimeInitializer initializer,
+                          RuntimeReleaser releaser, BridgeMetrics metrics) {
+        this.metrics = metrics;
+        this.maxSize = Math.max(1, maxSize);
+        this.minWarmEngines = Math.max(0, Math.min(minWarmEngines, this.maxSize));
+        this.healthCheckEnabled = healthCheckEnabled;
+        this.initializer = initializer;
+        this.releaser = releaser;
+
+        // 池在构造时按配置分配引擎槽位，大小必须在构造前设置（默认值为 CPU 核数）
+        JavetEngineConfig config = new JavetEngineConfig();
+        config.setJSRuntimeType(JSRuntimeType.Node);
+        config.setPoolMaxSize(this.maxSize);
+        config.setPoolMinSize(Math.max(1, this.minWarmEngines));
+        this.delegate = new ReleasingEnginePool(config);
+    }
+
+    /**
+     * 同时借出 minWarmEngines 个引擎并逐个引导，迫使池创建不同的运行时，然后全部归还。
+     */
+    public void warmUp() throws JavetException {
+        long start = System.nanoTime();
+        List<IJavetEngine<V8Runtime>> engines = new ArrayList<>(minWarmEngines);
+        try {
+            for (int i = 0; i < minWarmEngines; i++) {
+                IJavetEngine<V8Runtime> engine = borrow();
+                engines.add(engine);
+                ensureReady(engine.getV8Runtime());
+            }
+        } finally {
+            for (IJavetEngine<V8Runtime> engine : engines) {
+                closeQuietly(engine);
+            }
+        }
+        logger.info("🔥 Pre-warmed {} Node runtimes in {} ms", minWarmEngines,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * 借出一个已就绪的引擎，使用完后通过 close() 归还。
+     */
+    public IJavetEngine<V8Runtime> getEngine() throws JavetException {
+        IJavetEngine<V8Runtime> engine = borrow();
+        try {
+            ensureReady(engine.getV8Runtime());
+            return engine;
+        } catch (JavetException | RuntimeException e) {
+            closeQuietly(engine);
+            throw e;
+        }
+    }
+
+    private IJavetEngine<V8Runtime> borrow() throws JavetException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            IJavetEngine<V8Runtime> engine = delegate.getEngine();
+            success = true;
+            return engine;
+        } finally {
+            metrics.record("pool.borrow", System.nanoTime() - start, success);
+        }
+    }
+
+    private void ensureReady(V8Runtime runtime) throws JavetException {
+        if (bootstrapped.contains(runtime)) {
+            if (!healthCheckEnabled || isHealthy(runtime)) {
+                return;
+            }
+            healthCheckFailures.incrementAndGet();
+            bootstrapped.remove(runtime);
+            logger.warn("⚠️ Node runtime failed health check, bootstrapping it again");
+        }
+
+        long start = System.nanoTime();
+        try {
+            initializer.initialize(runtime);
+            runtime.getExecutor(MARK_READY_SCRIPT).executeVoid();
+        } catch (JavetException | RuntimeException e) {
+            metrics.record("pool.bootstrap", System.nanoTime() - start, false);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        metrics.record("pool.bootstrap", elapsed, true);
+        bootstrapped.add(runtime);
+        bootstrapCount.incrementAndGet();
+        logger.info("✅ Node runtime bootstrapped in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private boolean isHealthy(V8Runtime runtime) {
+        try {
+            return !runtime.isClosed() && runtime.getExecutor(HEALTH_CHECK_SCRIPT).executeBoolean();
+        } catch (Exception e) {
+            logger.debug("Health check error: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 运行时即将被池关闭：执行释放逻辑，失败只记录日志，不影响关闭
+     */
+    private void release(V8Runtime runtime) {
+        bootstrapped.remove(runtime);
+        if (releaser == null || runtime.isClosed()) {
+            return;
+        }
+        try {
+            releaser.release(runtime);
+        } catch (Exception e) {
+            logger.warn("Failed to release Node runtime: {}", e.getMessage());
+        }
+    }
+
+    private void closeQuietly(IJavetEngine<V8Runtime> engine) {
+        try {
+            engine.close();
+        } catch (Exception e) {
+            logger.warn("Failed to release engine: {}", e.getMessage());
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMinWarmEngines() {
+        return minWarmEngines;
+    }
+
+    public int getActiveEngineCount() {
+        return delegate.getActiveEngineCount();
+    }
+
+    public int getIdleEngineCount() {
+        return delegate.getIdleEngineCount();
+    }
+
+    /**
+     * 累计引导次数（包括预热、扩容和健康检查失败后的重新引导）
+     */
+    public int getBootstrapCount() {
+        return bootstrapCount.get();
+    }
+
+    public int getHealthCheckFailures() {
+        return healthCheckFailures.get();
+    }
+
+    @Override
+    public void close() throws JavetException {
+        bootstrapped.clear();
+        delegate.close();
+    }
+
+    /**
+     * 池关闭和空闲淘汰都通过 {@code JavetEngine.close(true)} 关闭运行时，在这里先执行释放逻辑
+     */
+    private final class ReleasingEnginePool extends JavetEnginePool<V8Runtime> {
+        private ReleasingEnginePool(JavetEngineConfig config) {
+            super(config);
+        }
+
+        @Override
+        protected JavetEngine<V8Runtime> createEngine() throws JavetException {
+            V8Runtime runtime = super.createEngine().getV8Runtime();
+            return new JavetEngine<>(this, runtime) {
+                @Override
+                protected void close(boolean forceClose) throws JavetException {
+                    if (forceClose) {
+                        release(v8Runtime);
+                    }
+                    super.close(forceClose);
+                }
+            };
+        }
+    }
+}
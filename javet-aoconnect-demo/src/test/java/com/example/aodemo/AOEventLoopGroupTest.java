@@ -0,0 +1,97 @@
+package com.example.aodemo;
+
+import com.caoccao.javet.interop.V8Host;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 事件循环组测试：在真实的 Node 运行时上分配调用，停止的循环不再被选中。Javet Node 运行时不可用时跳过。
+ */
+class AOEventLoopGroupTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    private final JsPromiseBridge promiseBridge = new JsPromiseBridge();
+    private WarmEnginePool enginePool;
+    private AOEventLoopGroup group;
+
+    @BeforeEach
+    void startGroup() throws Exception {
+        try {
+            Assumptions.assumeTrue(V8Host.getNodeInstance().isLibraryLoaded(), "Javet Node runtime is not loaded");
+        } catch (Throwable e) {
+            Assumptions.abort("Javet Node runtime is not available: " + e);
+        }
+        enginePool = new WarmEnginePool(4, 0, false, promiseBridge::install, promiseBridge::uninstall,
+                new BridgeMetrics(MetricsRegistry.NOOP));
+        group = new AOEventLoopGroup(enginePool, promiseBridge, 3);
+        group.start();
+    }
+
+    @AfterEach
+    void stopGroup() throws Exception {
+        if (group != null) {
+            group.close();
+        }
+        if (enginePool != null) {
+            enginePool.close();
+        }
+    }
+
+    private static AOEventLoop.JsCall echo(int value) {
+        return (runtime, callId) -> runtime.getExecutor(
+                JsPromiseBridge.SETTLE_FUNCTION + "(" + callId + ", Promise.resolve('" + value + "'))").executeVoid();
+    }
+
+    @Test
+    void distributesCallsAcrossLoops() throws Exception {
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            results.add(group.submit(echo(i), TIMEOUT_MS));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(String.valueOf(i), results.get(i).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void skipsStoppedLoops() throws Exception {
+        AOEventLoop dead = group.getLoop(1);
+        dead.close();
+        assertFalse(dead.isRunning());
+
+        // 停止的循环负载为 0，之前总会被选中，所有提交都以 "AO event loop is closed" 失败
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            results.add(group.submit(echo(i), TIMEOUT_MS));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(String.valueOf(i), results.get(i).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        }
+        assertEquals(0, dead.getQueuedCount());
+    }
+
+    @Test
+    void failsWhenNoLoopIsRunning() {
+        for (AOEventLoop loop : group.getLoops()) {
+            loop.close();
+        }
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> group.submit(echo(1), TIMEOUT_MS).get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertEquals("No AO event loop is running", error.getCause().getMessage());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.aodemo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 本地 AO 网络替身测试：用 Java 签名的 DataItem 走真实 HTTP，检查确定性 ID、/results 分页、Gateway 回答和失败注入
+ */
+class AOStubServerTest {
+
+    private static final String SCHEDULER_ID = "_GQ33BkPtZrqxA84vM8Zk-N2aO0toNNu_C-l-rawrBA";
+    // 进程 ID 是 32 字节的 base64url（43 个字符）
+    private static final String PROCESS_ID = "process-1" + "A".repeat(34);
+    private static final String OTHER_PROCESS_ID = "process-2" + "A".repeat(34);
+
+    private static DataItemSigner signer;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private AOStubServer stub;
+
+    @BeforeAll
+    static void createWallet() throws Exception {
+        signer = DataItemSigner.fromJwk(Files.readString(BridgeBenchmark.writeTemporaryWallet()));
+    }
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = new AOStubServer(0, 0, 0, 42L, SCHEDULER_ID).start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void muReturnsTheAns104IdOfTheDataItem() throws Exception {
+        DataItem item = signer.signMessage(AOMessage.of(PROCESS_ID, "Ping", "hello"), "");
+
+        HttpResponse<String> response = postDataItem(item);
+        assertEquals(202, response.statusCode());
+        assertEquals(item.getId(), mapper.readTree(response.body()).path("id").asText());
+        assertEquals(item.getId(), AOStubServer.dataItemId(item.getRaw()));
+        assertEquals(1, stub.getDataItemCount());
+    }
+
+    @Test
+    void resultsArePagedPerProcessInBothDirections() throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            DataItem item = signer.signMessage(AOMessage.of(PROCESS_ID, "Ping", "message-" + i), "");
+            postDataItem(item);
+            ids.add(item.getId());
+        }
+        // 发往其他进程的消息不出现在结果中
+        postDataItem(signer.signMessage(AOMessage.of(OTHER_PROCESS_ID, "Ping", "x"), ""));
+
+        JsonNode first = get("/results/" + PROCESS_ID + "?sort=ASC&limit=2");
+        assertEquals(List.of(ids.get(0), ids.get(1)), outputs(first));
+
+        String cursor = first.path("edges").get(1).path("cursor").asText();
+        JsonNode second = get("/results/" + PROCESS_ID + "?sort=ASC&limit=10&from=" + cursor);
+        assertEquals(ids.subList(2, 5), outputs(second));
+
+        JsonNode latest = get("/results/" + PROCESS_ID + "?sort=DESC&limit=2");
+        assertEquals(List.of(ids.get(4), ids.get(3)), outputs(latest));
+
+        assertEquals(0, get("/results/unknown-process").path("edges").size());
+    }
+
+    @Test
+    void gatewayAnswersSchedulerAndModuleQueries() throws Exception {
+        String scheduler = post("/graphql", "{\"query\":\"owners: [\\\"" + SCHEDULER_ID + "\\\"]\"}").body();
+        assertTrue(scheduler.contains("Scheduler-Location"));
+        assertTrue(scheduler.contains(stub.getUrl()));
+
+        String module = post("/graphql", "{\"query\":\"ids: [\\\"some-module\\\"]\"}").body();
+        assertTrue(module.contains("\"Module\""));
+        assertEquals(2, stub.getGraphqlQueryCount());
+
+        assertEquals(200, client.send(HttpRequest.newBuilder(URI.create(stub.getUrl() + "/result/anything")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertEquals(404, client.send(HttpRequest.newBuilder(URI.create(stub.getUrl() + "/unknown")).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    @Test
+    void injectsFailuresAtTheConfiguredRate() throws Exception {
+        stub.close();
+        stub = new AOStubServer(0, 0, 1.0, 42L, SCHEDULER_ID).start();
+
+        HttpResponse<String> response = postDataItem(signer.signMessage(AOMessage.of(PROCESS_ID, "Ping", "x"), ""));
+        assertEquals(503, response.statusCode());
+        assertEquals(1, stub.getInjectedFailureCount());
+        assertEquals(0, stub.getDataItemCount());
+    }
+
+    private HttpResponse<String> postDataItem(DataItem item) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(stub.getUrl() + "/"))
+                        .header("Content-Type", "application/octet-stream")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(item.getRaw()))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(URI.create(stub.getUrl() + path))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private JsonNode get(String path) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(stub.getUrl() + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return mapper.readTree(response.body());
+    }
+
+    private static List<String> outputs(JsonNode page) {
+        List<String> outputs = new ArrayList<>();
+        for (JsonNode edge : page.path("edges")) {
+            outputs.add(edge.path("node").path("Output").path("data").asText());
+        }
+        return outputs;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.aodemo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批量 spawn 测试：确定没有到达 MU 的错误才重试，超时等可能已创建进程的错误标记为结果未知
+ */
+class BulkSpawnerTest {
+
+    private static final String PROCESS_ID = "process-1" + "A".repeat(34);
+
+    private static List<SpawnSpec> specs(int count) {
+        return Collections.nCopies(count, SpawnSpec.of(Map.of("Name", "bulk")));
+    }
+
+    @Test
+    void retriesErrorsWhereTheRequestDidNotLand() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        BulkSpawner spawner = new BulkSpawner(spec -> calls.incrementAndGet() < 3
+                ? CompletableFuture.failedFuture(new RuntimeException("HTTP 503 Service Unavailable"))
+                : CompletableFuture.completedFuture(PROCESS_ID), 1, 4, 1, 1);
+
+        BulkSpawnResult result = spawner.spawn(specs(1), null).get(5, TimeUnit.SECONDS);
+        BulkSpawnResult.Entry entry = result.getEntries().get(0);
+        assertTrue(entry.isSuccess());
+        assertEquals(3, entry.getAttempts());
+        assertEquals(2, result.getRetryCount());
+    }
+
+    @Test
+    void doesNotRetryWhenTheSpawnMayHaveLanded() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        BulkSpawner spawner = new BulkSpawner(spec -> {
+            calls.incrementAndGet();
+            return CompletableFuture.failedFuture(new TimeoutException("AO call timed out after 60000 ms"));
+        }, 1, 4, 1, 1);
+
+        BulkSpawnResult result = spawner.spawn(specs(1), null).get(5, TimeUnit.SECONDS);
+        BulkSpawnResult.Entry entry = result.getEntries().get(0);
+        assertFalse(entry.isSuccess());
+        assertTrue(entry.isOutcomeUnknown());
+        assertEquals(1, calls.get());
+        assertEquals(1, result.getUnknownCount());
+        assertEquals(1, spawner.getUnknownCount());
+    }
+
+    @Test
+    void classifiesErrors() {
+        assertTrue(BulkSpawner.isRetryable(new RuntimeException("connect ECONNREFUSED 127.0.0.1:4000")));
+        assertTrue(BulkSpawner.isRetryable(new RuntimeException("429 Too Many Requests")));
+        assertFalse(BulkSpawner.isRetryable(new RuntimeException("socket hang up")));
+        assertFalse(BulkSpawner.isRetryable(new RuntimeException("502 Bad Gateway")));
+        assertFalse(BulkSpawner.isRetryable(new RuntimeException("Invalid process ID")));
+        // 消息里同时出现两类错误时按可能已到达处理
+        assertFalse(BulkSpawner.isRetryable(new RuntimeException("503 after ECONNRESET")));
+
+        assertTrue(BulkSpawner.isOutcomeUnknown(new RuntimeException("wrapped", new TimeoutException())));
+        assertTrue(BulkSpawner.isOutcomeUnknown(new RuntimeException("fetch failed")));
+        assertFalse(BulkSpawner.isOutcomeUnknown(new RuntimeException("503 Service Unavailable")));
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.aodemo;
+
+import com.caoccao.javet.interop.V8Host;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link DataItemSigner} 与 aoconnect `createDataItemSigner` 的交叉校验
+ *
+ * 对同一组 (target, 标签, 数据) 分别在 JS 和 Java 中签名：JS 的 DataItem 能被 Java 解析和验签，ID 一致，
+ * 除签名区（PSS 带随机盐）外逐字节相同。没有安装 node_modules 或 Javet Node 运行时不可用时跳过。
+ */
+class DataItemCrossCheckTest {
+
+    private static final String TARGET = "_GQ33BkPtZrqxA84vM8Zk-N2aO0toNNu_C-l-rawrBA";
+
+    private static AOStubServer stub;
+    private static AOJavaBridge bridge;
+    private static DataItemSigner signer;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startBridge() throws Exception {
+        Assumptions.assumeTrue(Files.exists(Paths.get("node_modules", "@permaweb", "aoconnect", "package.json")),
+                "aoconnect is not installed (run npm install)");
+        try {
+            Assumptions.assumeTrue(V8Host.getNodeInstance().isLibraryLoaded(), "Javet Node runtime is not loaded");
+        } catch (Throwable e) {
+            Assumptions.abort("Javet Node runtime is not available: " + e);
+        }
+
+        Path wallet = BridgeBenchmark.writeTemporaryWallet();
+        signer = DataItemSigner.fromJwk(Files.readString(wallet));
+        stub = new AOStubServer(0, 0, 0, 42L, TARGET).start();
+
+        Properties overrides = new Properties();
+        overrides.setProperty("ao.gateway.url", stub.getUrl());
+        overrides.setProperty("ao.mu.url", stub.getUrl());
+        overrides.setProperty("ao.cu.url", stub.getUrl());
+        overrides.setProperty("ao.scheduler.id", TARGET);
+        overrides.setProperty("ao.wallet.path", wallet.toString());
+        overrides.setProperty("ao.wallet.paths", wallet.toString());
+        overrides.setProperty("ao.proxy.url", "");
+        overrides.setProperty("ao.outbox.enabled", "false");
+        overrides.setProperty("ao.subscription.cursor-file", "");
+        overrides.setProperty("javet.engine.pool.min-warm", "1");
+        bridge = new AOJavaBridge(overrides);
+        bridge.initialize();
+    }
+
+    @AfterAll
+    static void stopBridge() {
+        if (bridge != null) {
+            bridge.close();
+        }
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void javaSigningIsByteCompatibleWithAoconnect() throws Exception {
+        for (AOMessage message : samples()) {
+            List<Map.Entry<String, String>> tags = DataItemSigner.messageTags(message);
+            JsonNode js = mapper.readTree(bridge.signWithJsAsync(message, toTagList(tags)).join());
+            DataItem jsItem = DataItem.parse(Base64.getDecoder().decode(js.get("raw").asText()));
+            DataItem javaItem = signer.signMessage(message, null);
+
+            String label = message.getAction();
+            assertTrue(DataItemSigner.verifyWithOwner(jsItem), label + ": JS signature does not verify with Java deep-hash");
+            assertTrue(signer.verify(javaItem), label + ": Java signature does not verify");
+            assertEquals(js.get("id").asText(), jsItem.getId(), label + ": ID mismatch");
+            assertEquals(tags, jsItem.getTags(), label + ": decoded tags differ");
+            assertTrue(equalExceptSignature(jsItem.getRaw(), javaItem.getRaw()),
+                    label + ": unsigned bytes differ (JS " + jsItem.getRaw().length + " B, Java " + javaItem.getRaw().length + " B)");
+        }
+    }
+
+    private static List<AOMessage> samples() {
+        Map<String, String> extraTags = new LinkedHashMap<>();
+        extraTags.put("Recipient", "fcoN_xJeisVsPXA-trzVAuIiqO3ydLQxM-L4XbrQKzY");
+        extraTags.put("Quantity", "1000000000000");
+        extraTags.put("X-Note", "标签 / UTF-8 ✓");
+        char[] large = new char[256 * 1024];
+        Arrays.fill(large, 'x');
+        // 不是合法 UTF-8 的二进制数据，只能经 ArrayBuffer 传入
+        byte[] binary = new byte[64 * 1024];
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = (byte) i;
+        }
+        return List.of(
+                AOMessage.of(TARGET, "Ping", ""),
+                AOMessage.of(TARGET, "Eval", "return 1 + 1"),
+                new AOMessage(TARGET, "Transfer", extraTags, "{\"memo\":\"数据 ✓\"}"),
+                AOMessage.of(TARGET, "Large", new String(large)),
+                AOMessage.of(TARGET, "Binary", binary));
+    }
+
+    private static List<Map<String, String>> toTagList(List<Map.Entry<String, String>> tags) {
+        List<Map<String, String>> list = new ArrayList<>(tags.size());
+        for (Map.Entry<String, String> tag : tags) {
+            Map<String, String> item = new LinkedHashMap<>(4);
+            item.put("name", tag.getKey());
+            item.put("value", tag.getValue());
+            list.add(item);
+        }
+        return list;
+    }
+
+    private static boolean equalExceptSignature(byte[] a, byte[] b) {
+        int signatureEnd = 2 + DataItem.SIGNATURE_LENGTH;
+        return a.length == b.length
+                && Arrays.equals(a, 0, 2, b, 0, 2)
+                && Arrays.equals(a, signatureEnd, a.length, b, signatureEnd, b.length);
+    }
+}
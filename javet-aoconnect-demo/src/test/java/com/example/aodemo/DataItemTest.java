@@ -0,0 +1,114 @@
+package com.example.aodemo;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ANS-104 DataItem 的纯 Java 检查：Avro 标签编码、deep-hash 固定向量、签名与验签
+ */
+class DataItemTest {
+
+    private static final String TARGET = "_GQ33BkPtZrqxA84vM8Zk-N2aO0toNNu_C-l-rawrBA";
+
+    private static DataItemSigner signer;
+
+    @BeforeAll
+    static void createWallet() throws Exception {
+        signer = DataItemSigner.fromJwk(Files.readString(BridgeBenchmark.writeTemporaryWallet()));
+    }
+
+    @Test
+    void encodesTagsAsAvroArray() {
+        // 块计数 1（zigzag 0x02），name 和 value 各为 长度 + 字节，0 结束
+        assertArrayEquals(new byte[]{0x02, 0x02, 'a', 0x02, 'b', 0x00}, DataItem.encodeTags(List.of(Map.entry("a", "b"))));
+        assertEquals(0, DataItem.encodeTags(List.of()).length);
+    }
+
+    @Test
+    void tagsRoundTripThroughParse() {
+        List<Map.Entry<String, String>> tags = new ArrayList<>();
+        tags.add(Map.entry("Action", "Transfer"));
+        tags.add(Map.entry("X-Note", "标签 / UTF-8 ✓"));
+        // 重复的标签名保留顺序
+        tags.add(Map.entry("Action", "Again"));
+        // 超过 63 字节的值需要多字节 varint 长度
+        tags.add(Map.entry("Long", "x".repeat(300)));
+
+        DataItem item = signer.sign(TARGET, "", tags, "data".getBytes(StandardCharsets.UTF_8));
+        DataItem parsed = DataItem.parse(item.getRaw());
+
+        assertEquals(tags, parsed.getTags());
+        assertEquals(TARGET, parsed.getTarget());
+        assertEquals("", parsed.getAnchor());
+        assertArrayEquals("data".getBytes(StandardCharsets.UTF_8), parsed.getData());
+        assertEquals(item.getId(), parsed.getId());
+    }
+
+    @Test
+    void deepHashMatchesKnownVectors() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        // 由 arweave-js deepHash 算法独立计算（Node crypto，SHA-384）
+        assertEquals("758c4e989ea2d8aa90a32c11610c5cf986a6a691d4fead109b706eb5f347145f3e16e94fae1df7b0b4da431c2a2d1445",
+                hex(DataItem.deepHash(List.of(utf8("dataitem"), utf8("1"), utf8("1"), new byte[0], bytes))));
+        assertEquals("a69e7d37fdc7f040a9ec16aae84de24fab4a653dac4de0bd247e36bab9fe45d9289c5a04a893c95285812f5cefc9707a",
+                hex(DataItem.deepHash(List.of())));
+    }
+
+    @Test
+    void signedItemsVerifyWithTheOwnerKey() {
+        Map<String, String> extraTags = new LinkedHashMap<>();
+        extraTags.put("Recipient", "fcoN_xJeisVsPXA-trzVAuIiqO3ydLQxM-L4XbrQKzY");
+        extraTags.put("Quantity", "1000000000000");
+        AOMessage message = new AOMessage(TARGET, "Transfer", extraTags, "{\"memo\":\"数据 ✓\"}");
+
+        DataItem item = signer.signMessage(message, null);
+        assertTrue(signer.verify(item));
+        assertTrue(DataItemSigner.verifyWithOwner(item));
+        assertArrayEquals(signer.getOwner(), item.getOwner());
+        assertEquals(DataItemSigner.messageTags(message), item.getTags());
+        assertEquals(AOStubServer.dataItemId(item.getRaw()), item.getId());
+
+        // 篡改数据后验签失败
+        byte[] tampered = item.getRaw();
+        tampered[tampered.length - 1] ^= 1;
+        assertFalse(DataItemSigner.verifyWithOwner(DataItem.parse(tampered)));
+    }
+
+    @Test
+    void binaryDataIsSignedAsIs() {
+        byte[] binary = new byte[64 * 1024];
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = (byte) i;
+        }
+        DataItem item = signer.signMessage(AOMessage.of(TARGET, "Binary", binary), null);
+        assertTrue(DataItemSigner.verifyWithOwner(DataItem.parse(item.getRaw())));
+        assertArrayEquals(binary, item.getData());
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
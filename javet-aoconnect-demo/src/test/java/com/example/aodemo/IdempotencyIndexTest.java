@@ -0,0 +1,132 @@
+package com.example.aodemo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 幂等索引测试：成功后命中、在途合并、失败后重发同一个 DataItem，以及按最近使用淘汰
+ */
+class IdempotencyIndexTest {
+
+    private static final long TTL_MS = 60_000;
+
+    private static DataItem item(String data) {
+        return DataItem.unsigned(new byte[DataItem.OWNER_LENGTH], null, null, List.of(), data.getBytes());
+    }
+
+    @Test
+    void returnsTheRecordedIdAfterSuccess() {
+        IdempotencyIndex index = new IdempotencyIndex(TTL_MS, 16);
+        AtomicInteger sends = new AtomicInteger();
+
+        assertEquals("msg-1", index.send("key", entry -> {
+            sends.incrementAndGet();
+            return CompletableFuture.completedFuture("msg-1");
+        }).join());
+        assertEquals("msg-1", index.send("key", entry -> {
+            sends.incrementAndGet();
+            return CompletableFuture.completedFuture("msg-2");
+        }).join());
+
+        assertEquals(1, sends.get());
+        assertEquals(1, index.getHitCount());
+        assertEquals("msg-1", index.getMessageId("key"));
+    }
+
+    @Test
+    void coalescesRetriesWhileInFlight() {
+        IdempotencyIndex index = new IdempotencyIndex(TTL_MS, 16);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        AtomicInteger sends = new AtomicInteger();
+
+        CompletableFuture<String> first = index.send("key", entry -> {
+            sends.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> retry = index.send("key", entry -> {
+            sends.incrementAndGet();
+            return CompletableFuture.completedFuture("msg-2");
+        });
+        assertFalse(retry.isDone());
+        assertNull(index.getMessageId("key"));
+
+        // 取消一个调用方不影响共享同一记录的其他调用方
+        first.cancel(false);
+        pending.complete("msg-1");
+        assertEquals("msg-1", retry.join());
+        assertEquals(1, sends.get());
+        assertEquals(1, index.getCoalescedCount());
+    }
+
+    @Test
+    void resendsTheSameSignedItemAfterFailure() {
+        IdempotencyIndex index = new IdempotencyIndex(TTL_MS, 16);
+        List<DataItem> posted = new ArrayList<>();
+        AtomicInteger signed = new AtomicInteger();
+
+        // 与 AOJavaBridge 相同：第一次发送时签名并保存在记录上，之后重发记录上的 DataItem
+        Function<IdempotencyIndex.Entry, CompletableFuture<String>> sender = entry -> {
+            if (entry.getSignedItem() == null) {
+                signed.incrementAndGet();
+                entry.setSignedItem(item("payload"));
+            }
+            posted.add(entry.getSignedItem());
+            return posted.size() == 1
+                    ? CompletableFuture.failedFuture(new TimeoutException("MU did not answer"))
+                    : CompletableFuture.completedFuture(entry.getSignedItem().getId());
+        };
+
+        CompletionException error = assertThrows(CompletionException.class, () -> index.send("key", sender).join());
+        assertTrue(error.getCause() instanceof TimeoutException);
+        String id = index.send("key", sender).join();
+
+        assertEquals(1, signed.get());
+        assertEquals(2, posted.size());
+        assertSame(posted.get(0), posted.get(1));
+        assertEquals(posted.get(0).getId(), id);
+        assertEquals(1, index.getResentCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedCompletedKeysFirst() {
+        IdempotencyIndex index = new IdempotencyIndex(TTL_MS, 2);
+        CompletableFuture<String> inFlight = new CompletableFuture<>();
+        index.send("in-flight", entry -> inFlight);
+        index.send("a", entry -> CompletableFuture.completedFuture("msg-a"));
+        index.send("b", entry -> CompletableFuture.completedFuture("msg-b"));
+
+        // 在途的键最久未使用，但优先淘汰已完成的 "a"
+        assertEquals(2, index.size());
+        assertNull(index.getMessageId("a"));
+        assertEquals("msg-b", index.getMessageId("b"));
+        inFlight.complete("msg-in-flight");
+        assertEquals("msg-in-flight", index.getMessageId("in-flight"));
+    }
+
+    @Test
+    void keysComeFromTheTagOrTheContentHash() {
+        AOMessage tagged = new AOMessage("process-1", "Ping", Map.of(IdempotencyIndex.TAG, "order-42"), "hello");
+        AOMessage plain = new AOMessage("process-1", "Ping", Map.of(), "hello");
+
+        assertEquals("order-42", IdempotencyIndex.keyOf(tagged, false));
+        assertNull(IdempotencyIndex.keyOf(plain, false));
+        assertEquals(plain.contentHash(), IdempotencyIndex.keyOf(plain, true));
+        assertSame(tagged, IdempotencyIndex.withKey(tagged, "order-42"));
+        assertEquals("order-7", IdempotencyIndex.withKey(plain, "order-7").getTags().get(IdempotencyIndex.TAG));
+    }
+}
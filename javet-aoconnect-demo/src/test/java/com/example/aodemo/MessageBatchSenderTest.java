@@ -0,0 +1,175 @@
+package com.example.aodemo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批量发送测试：使用手动完成的假分发器，检查在途上限、结果顺序和单条失败
+ */
+class MessageBatchSenderTest {
+
+    /**
+     * 记录每次分发，由测试按任意顺序完成，并统计同时在途的最大数量
+     */
+    private static final class FakeDispatcher {
+        private final List<AOMessage> dispatched = new ArrayList<>();
+        private final List<CompletableFuture<String>> pending = new ArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        synchronized CompletableFuture<String> dispatch(AOMessage message) {
+            dispatched.add(message);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<String> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        }
+
+        void succeed(int index) {
+            CompletableFuture<String> future;
+            synchronized (this) {
+                future = pending.get(index);
+            }
+            inFlight.decrementAndGet();
+            future.complete("msg-" + dispatched(index).getData());
+        }
+
+        void fail(int index, RuntimeException error) {
+            CompletableFuture<String> future;
+            synchronized (this) {
+                future = pending.get(index);
+            }
+            inFlight.decrementAndGet();
+            future.completeExceptionally(error);
+        }
+
+        synchronized int dispatchedCount() {
+            return dispatched.size();
+        }
+
+        synchronized AOMessage dispatched(int index) {
+            return dispatched.get(index);
+        }
+    }
+
+    private static List<AOMessage> messages(int count) {
+        List<AOMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(AOMessage.of("process-" + (i % 3), "Ping", String.valueOf(i)));
+        }
+        return messages;
+    }
+
+    @Test
+    void keepsAtMostMaxInFlightAndLaunchesOnCompletion() {
+        FakeDispatcher dispatcher = new FakeDispatcher();
+        MessageBatchSender sender = new MessageBatchSender(dispatcher::dispatch, 3);
+
+        CompletableFuture<MessageBatchResult> result = sender.send(messages(10));
+        assertEquals(3, dispatcher.dispatchedCount());
+
+        // 完成一条就启动下一条，按提交顺序启动
+        dispatcher.succeed(1);
+        assertEquals(4, dispatcher.dispatchedCount());
+        assertEquals("3", dispatcher.dispatched(3).getData());
+
+        for (int i = 0; i < 10; i++) {
+            if (i != 1) {
+                dispatcher.succeed(i);
+            }
+        }
+        assertTrue(result.isDone());
+        assertEquals(10, dispatcher.dispatchedCount());
+        assertEquals(3, dispatcher.maxInFlight.get());
+    }
+
+    @Test
+    void returnsEntriesInSubmissionOrderRegardlessOfCompletionOrder() {
+        FakeDispatcher dispatcher = new FakeDispatcher();
+        MessageBatchSender sender = new MessageBatchSender(dispatcher::dispatch, 5);
+        List<AOMessage> messages = messages(5);
+
+        CompletableFuture<MessageBatchResult> result = sender.send(messages);
+        for (int i = 4; i >= 0; i--) {
+            dispatcher.succeed(i);
+        }
+
+        MessageBatchResult batch = result.join();
+        assertEquals(5, batch.getSize());
+        for (int i = 0; i < 5; i++) {
+            MessageBatchResult.Entry entry = batch.getEntries().get(i);
+            assertSame(messages.get(i), entry.getMessage());
+            assertEquals("msg-" + i, entry.getMessageId());
+            assertTrue(entry.isSuccess());
+        }
+        assertEquals(5, sender.getSentCount());
+    }
+
+    @Test
+    void perEntryFailuresDoNotFailTheBatch() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        ConcurrentLinkedQueue<CompletableFuture<String>> slow = new ConcurrentLinkedQueue<>();
+        MessageBatchSender sender = new MessageBatchSender(message -> {
+            int n = calls.getAndIncrement();
+            if (n == 1) {
+                throw new IllegalStateException("dispatch rejected");
+            }
+            if (n == 2) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException("bad tags"));
+            }
+            CompletableFuture<String> future = new CompletableFuture<>();
+            slow.add(future);
+            return future;
+        }, 2);
+
+        CompletableFuture<MessageBatchResult> result = sender.send(messages(4));
+        // 同步失败的两条异步回调后启动最后一条
+        for (int completed = 0; completed < 2; ) {
+            CompletableFuture<String> future = slow.poll();
+            if (future == null) {
+                Thread.sleep(1);
+                continue;
+            }
+            future.complete("ok");
+            completed++;
+        }
+
+        MessageBatchResult batch = result.get(5, TimeUnit.SECONDS);
+        assertEquals(4, batch.getSize());
+        assertEquals(2, batch.getFailedCount());
+        assertEquals(2, batch.getSucceededCount());
+
+        MessageBatchResult.Entry rejected = batch.getEntries().get(1);
+        assertFalse(rejected.isSuccess());
+        assertNull(rejected.getMessageId());
+        assertTrue(rejected.getError() instanceof IllegalStateException);
+        assertTrue(batch.getEntries().get(2).getError() instanceof IllegalArgumentException);
+        assertTrue(batch.getEntries().get(0).isSuccess());
+        assertTrue(batch.getEntries().get(3).isSuccess());
+
+        assertEquals(2, sender.getSentCount());
+        assertEquals(2, sender.getFailedCount());
+    }
+
+    @Test
+    void emptyBatchCompletesImmediately() {
+        MessageBatchSender sender = new MessageBatchSender(message -> {
+            throw new AssertionError("should not dispatch");
+        }, 4);
+        MessageBatchResult batch = sender.send(List.of()).join();
+        assertEquals(0, batch.getSize());
+        assertEquals(0, batch.getThroughputPerSecond());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.aodemo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 发件箱测试：发送失败后在进程内按退避重试，完成后删除段文件，关闭时未完成的消息在重启后重放
+ */
+class MessageOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void failedSendsAreRetriedUntilTheySucceed() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        MessageOutbox outbox = new MessageOutbox(directory, 256, message -> {
+            // 前三次发送失败
+            if (attempts.incrementAndGet() <= 3) {
+                return CompletableFuture.failedFuture(new IllegalStateException("MU unavailable"));
+            }
+            return CompletableFuture.completedFuture("id-" + message.getData());
+        }, 5, 20);
+        outbox.open();
+        try {
+            MessageOutbox.Ticket ticket = outbox.enqueue(AOMessage.of("process-1", "Ping", "1"));
+            assertEquals("id-1", ticket.getSent().get(5, TimeUnit.SECONDS));
+            assertEquals(4, attempts.get());
+            assertEquals(3, outbox.getRetriedCount());
+
+            waitUntil(() -> outbox.getOutstandingCount() == 0);
+            assertEquals(0, outbox.getStrandedCount());
+        } finally {
+            outbox.close();
+        }
+    }
+
+    @Test
+    void completedSegmentsAreDeletedAfterRetries() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        MessageOutbox outbox = new MessageOutbox(directory, 64, message -> attempts.incrementAndGet() % 2 == 1
+                ? CompletableFuture.failedFuture(new IllegalStateException("timeout"))
+                : CompletableFuture.completedFuture("ok"), 1, 5);
+        outbox.open();
+        try {
+            // 每条记录都超过段大小，每次提交后都会滚动到新段
+            for (int i = 0; i < 5; i++) {
+                outbox.enqueue(AOMessage.of("process-1", "Ping", "message-" + i)).getSent().get(5, TimeUnit.SECONDS);
+            }
+            outbox.enqueue(AOMessage.of("process-1", "Ping", "last")).getSent().get(5, TimeUnit.SECONDS);
+
+            waitUntil(() -> outbox.getOutstandingCount() == 0 && outbox.getSegmentCount() == 1);
+            assertEquals(0, outbox.getStrandedCount());
+        } finally {
+            outbox.close();
+        }
+    }
+
+    @Test
+    void strandedMessagesAreCountedAndReplayedOnRestart() throws Exception {
+        MessageOutbox failing = new MessageOutbox(directory, 1024,
+                message -> CompletableFuture.failedFuture(new IllegalStateException("down")), 1000, 1000);
+        failing.open();
+        try {
+            failing.enqueue(AOMessage.of("process-1", "Ping", "a")).getDurable().get(5, TimeUnit.SECONDS);
+            failing.enqueue(AOMessage.of("process-2", "Ping", "b")).getDurable().get(5, TimeUnit.SECONDS);
+            waitUntil(() -> failing.getStrandedCount() == 2);
+            assertEquals(2, failing.getOutstandingCount());
+        } finally {
+            failing.close();
+        }
+
+        List<String> replayed = new CopyOnWriteArrayList<>();
+        MessageOutbox recovered = new MessageOutbox(directory, 1024, message -> {
+            replayed.add(message.getData());
+            return CompletableFuture.completedFuture("id");
+        });
+        recovered.open();
+        try {
+            waitUntil(() -> recovered.getOutstandingCount() == 0);
+            assertEquals(List.of("a", "b"), replayed);
+            assertEquals(0, recovered.getStrandedCount());
+        } finally {
+            recovered.close();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.aodemo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 结果订阅测试：整页读满时连续翻页按顺序投递，关闭时不等待尚未到期的轮询
+ */
+class ProcessSubscriptionsTest {
+
+    private static final String PROCESS_ID = "process-1";
+
+    @TempDir
+    Path directory;
+
+    /**
+     * 与 CU /results 相同的分页：游标为序号，Output.data 为第几条结果
+     */
+    private static CompletableFuture<String> page(int total, String from, int limit) {
+        StringBuilder json = new StringBuilder("{\"edges\":[");
+        int index = from == null ? 0 : Integer.parseInt(from) + 1;
+        for (int count = 0; count < limit && index < total; count++, index++) {
+            if (count > 0) {
+                json.append(',');
+            }
+            json.append("{\"cursor\":\"").append(index).append("\",\"node\":{\"Messages\":[],\"Output\":{\"data\":\"result-")
+                    .append(index).append("\"}}}");
+        }
+        return CompletableFuture.completedFuture(json.append("]}").toString());
+    }
+
+    @Test
+    void deliversAllPagesInOrderAndClosesWithoutWaitingForDelayedPolls() throws Exception {
+        List<String> outputs = new CopyOnWriteArrayList<>();
+        // 最小轮询间隔 30s：读完积压后下一次轮询远未到期
+        ProcessSubscriptions subscriptions = new ProcessSubscriptions(
+                (processId, from, sort, limit) -> page(5, from, limit),
+                directory.resolve("cursors.properties"), 2, 30_000, 60_000);
+        subscriptions.open();
+        subscriptions.subscribe(PROCESS_ID, result -> outputs.add(result.getOutputData()), ProcessSubscriptions.Start.EARLIEST);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (outputs.size() < 5) {
+            assertTrue(System.nanoTime() < deadline, "results not delivered within 5s");
+            Thread.sleep(5);
+        }
+        assertEquals(List.of("result-0", "result-1", "result-2", "result-3", "result-4"), outputs);
+
+        long start = System.nanoTime();
+        subscriptions.close();
+        long closeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(closeMillis < 1000, "close took " + closeMillis + " ms");
+
+        // 游标已持久化，重新打开后从上次的位置继续
+        ProcessSubscriptions reopened = new ProcessSubscriptions(
+                (processId, from, sort, limit) -> page(5, from, limit),
+                directory.resolve("cursors.properties"), 2, 30_000, 60_000);
+        reopened.open();
+        assertEquals("4", reopened.getCursors().get(PROCESS_ID));
+        reopened.close();
+    }
+}
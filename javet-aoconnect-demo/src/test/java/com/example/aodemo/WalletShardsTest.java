@@ -0,0 +1,122 @@
+package com.example.aodemo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 钱包分片测试：PROCESS 策略下同一进程同时只有一条消息在途，不同进程并发；ROUND_ROBIN 不排队
+ */
+class WalletShardsTest {
+
+    private static WalletShards shards(WalletShards.Policy policy, int count) {
+        WalletShards shards = new WalletShards(policy);
+        for (int i = 0; i < count; i++) {
+            shards.add("wallet-" + i, null, null);
+        }
+        return shards;
+    }
+
+    @Test
+    void processPolicyPinsAProcessToOneShard() {
+        WalletShards shards = shards(WalletShards.Policy.PROCESS, 4);
+        WalletShards.Shard first = shards.select("process-a");
+        for (int i = 0; i < 10; i++) {
+            assertSame(first, shards.select("process-a"));
+        }
+    }
+
+    @Test
+    void processPolicySendsOneMessageAtATimePerProcess() throws Exception {
+        WalletShards shards = shards(WalletShards.Policy.PROCESS, 2);
+        List<CompletableFuture<String>> sends = new ArrayList<>();
+
+        CompletableFuture<String> first = shards.sequence("process-a", () -> record(sends));
+        CompletableFuture<String> second = shards.sequence("process-a", () -> record(sends));
+        CompletableFuture<String> other = shards.sequence("process-b", () -> record(sends));
+
+        // process-a 的第二条等待第一条；process-b 不受影响
+        assertEquals(2, sends.size());
+        assertEquals(2, shards.getSequencedProcessCount());
+
+        sends.get(0).complete("a-1");
+        assertEquals("a-1", first.get(1, TimeUnit.SECONDS));
+        waitForSends(sends, 3);
+        assertFalse(second.isDone());
+
+        sends.get(2).complete("a-2");
+        sends.get(1).complete("b-1");
+        assertEquals("a-2", second.get(1, TimeUnit.SECONDS));
+        assertEquals("b-1", other.get(1, TimeUnit.SECONDS));
+        waitUntilEmpty(shards);
+    }
+
+    @Test
+    void failuresDoNotBlockTheNextMessage() throws Exception {
+        WalletShards shards = shards(WalletShards.Policy.PROCESS, 1);
+        List<CompletableFuture<String>> sends = new ArrayList<>();
+
+        CompletableFuture<String> blocked = shards.sequence("process-a", () -> record(sends));
+        CompletableFuture<String> rejected = shards.sequence("process-a", () -> {
+            throw new IllegalStateException("dispatch rejected");
+        });
+        CompletableFuture<String> last = shards.sequence("process-a", () -> CompletableFuture.completedFuture("a-3"));
+
+        sends.get(0).completeExceptionally(new IllegalStateException("MU unavailable"));
+        CompletionException error = assertThrows(CompletionException.class, blocked::join);
+        assertEquals("MU unavailable", error.getCause().getMessage());
+        assertThrows(CompletionException.class, rejected::join);
+        assertEquals("a-3", last.get(1, TimeUnit.SECONDS));
+        waitUntilEmpty(shards);
+    }
+
+    @Test
+    void roundRobinDoesNotSequence() {
+        WalletShards shards = shards(WalletShards.Policy.ROUND_ROBIN, 2);
+        List<CompletableFuture<String>> sends = new ArrayList<>();
+        shards.sequence("process-a", () -> record(sends));
+        shards.sequence("process-a", () -> record(sends));
+        assertEquals(2, sends.size());
+        assertEquals(0, shards.getSequencedProcessCount());
+        assertTrue(shards.select("process-a") != shards.select("process-a"));
+    }
+
+    private static CompletableFuture<String> record(List<CompletableFuture<String>> sends) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        synchronized (sends) {
+            sends.add(future);
+        }
+        return future;
+    }
+
+    private static void waitForSends(List<CompletableFuture<String>> sends, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            synchronized (sends) {
+                if (sends.size() >= count) {
+                    return;
+                }
+            }
+            assertTrue(System.nanoTime() < deadline, "send not started within 5s");
+            Thread.sleep(1);
+        }
+    }
+
+    private static void waitUntilEmpty(WalletShards shards) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (shards.getSequencedProcessCount() > 0) {
+            assertTrue(System.nanoTime() < deadline, "process tails not released within 5s");
+            Thread.sleep(1);
+        }
+    }
+}